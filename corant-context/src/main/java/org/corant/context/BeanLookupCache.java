@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.context;
+
+import static org.corant.shared.util.Objects.forceCast;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.CDI;
+import javax.inject.Singleton;
+import org.corant.shared.ubiquity.Sortable;
+
+/**
+ * corant-context
+ *
+ * <p>
+ * A lookup cache of the CDI bean instances that are used in hot paths, the lookup results are
+ * cached by the lookup kind, the bean type and the qualifiers only if all the matched beans are
+ * normal scoped (the client proxies are cached) or singleton scoped, so that the dependent bean
+ * instances are never retained. The sorted bean lists are pre-sorted if the bean type is
+ * {@link Sortable}. The cache is cleared when the container is initialized or is going to shut
+ * down, see {@link ContainerEvents}.
+ *
+ * @author bingo 下午2:14:36
+ *
+ */
+public class BeanLookupCache {
+
+  static final Object UNCACHEABLE = new Object();
+  static final Map<List<Object>, Object> cache = new ConcurrentHashMap<>();
+
+  /**
+   * Clear all cached lookup results.
+   */
+  public static void clear() {
+    cache.clear();
+  }
+
+  /**
+   * Returns the cached result of {@link Beans#find(Class, Annotation...)}.
+   *
+   * @param <T> the bean type to be resolved
+   * @param instanceClass the bean instance class to be resolved
+   * @param qualifiers the bean qualifiers that use to resolve
+   */
+  public static <T> Optional<T> find(Class<T> instanceClass, Annotation... qualifiers) {
+    return lookup(Arrays.asList("find", instanceClass, Arrays.asList(qualifiers)),
+        instanceClass, qualifiers, () -> Beans.find(instanceClass, qualifiers));
+  }
+
+  /**
+   * Returns the cached result of {@link Beans#findNamed(Class, String)}.
+   *
+   * @param <T> the bean type to be resolved
+   * @param instanceClass the bean instance class to be resolved
+   * @param name the bean name for CDI bean lookup
+   */
+  public static <T> Optional<T> findNamed(Class<T> instanceClass, String name) {
+    return lookup(Arrays.asList("findNamed", instanceClass, name), instanceClass,
+        new Annotation[] {Any.Literal.INSTANCE}, () -> Beans.findNamed(instanceClass, name));
+  }
+
+  /**
+   * Returns the cached result of {@link Beans#resolve(Class, Annotation...)}, the resolving
+   * failures are not cached.
+   *
+   * @param <T> the bean type to be resolved
+   * @param instanceClass the bean instance class to be resolved
+   * @param qualifiers the bean qualifiers that use to resolve
+   */
+  public static <T> T resolve(Class<T> instanceClass, Annotation... qualifiers) {
+    return lookup(Arrays.asList("resolve", instanceClass, Arrays.asList(qualifiers)),
+        instanceClass, qualifiers, () -> Beans.resolve(instanceClass, qualifiers));
+  }
+
+  /**
+   * Returns the cached unmodifiable list of the bean instances that match the given instance class
+   * and qualifiers, if the instance class is {@link Sortable} the list is sorted by
+   * {@link Sortable#compare(Sortable, Sortable)}.
+   *
+   * @param <T> the bean type to be selected
+   * @param instanceClass the bean instance class to be selected
+   * @param qualifiers the bean qualifiers that use to select
+   */
+  public static <T> List<T> selectSorted(Class<T> instanceClass, Annotation... qualifiers) {
+    return lookup(Arrays.asList("selectSorted", instanceClass, Arrays.asList(qualifiers)),
+        instanceClass, qualifiers, () -> {
+          Stream<T> stream = Beans.select(instanceClass, qualifiers).stream();
+          if (Sortable.class.isAssignableFrom(instanceClass)) {
+            stream = stream.sorted((x, y) -> Sortable.compare((Sortable) x, (Sortable) y));
+          }
+          return Collections.unmodifiableList(stream.collect(Collectors.toList()));
+        });
+  }
+
+  static boolean isCacheable(Class<?> instanceClass, Annotation... qualifiers) {
+    BeanManager bm = CDI.current().getBeanManager();
+    return bm.getBeans(instanceClass, qualifiers).stream()
+        .allMatch(b -> bm.isNormalScope(b.getScope()) || b.getScope() == Singleton.class);
+  }
+
+  static <T> T lookup(List<Object> key, Class<?> instanceClass, Annotation[] qualifiers,
+      Supplier<T> supplier) {
+    Object cached = cache.get(key);
+    if (cached == UNCACHEABLE) {
+      return supplier.get();
+    } else if (cached != null) {
+      return forceCast(cached);
+    }
+    T result = supplier.get();
+    if (result != null) {
+      cache.putIfAbsent(key, isCacheable(instanceClass, qualifiers) ? result : UNCACHEABLE);
+    }
+    return result;
+  }
+}
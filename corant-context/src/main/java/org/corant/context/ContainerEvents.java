@@ -36,10 +36,15 @@ public class ContainerEvents {
   protected Event<ContainerEvent> events;
 
   protected void onContainerBeforeShutdown(@Observes ContainerBeforeShutdown e) {
-    events.fire(new PreContainerStopEvent(e.getContainerId()));
+    try {
+      events.fire(new PreContainerStopEvent(e.getContainerId()));
+    } finally {
+      BeanLookupCache.clear();
+    }
   }
 
   protected void onContainerInitialized(@Observes ContainerInitialized e) {
+    BeanLookupCache.clear();
     events.fire(new PostContainerStartedEvent(e.getContainerId()));
     events.fireAsync(new PostContainerStartedAsyncEvent(e.getContainerId()));
   }
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2013-2021, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.datasource.shared;
+
+import static org.corant.shared.normal.Names.applicationName;
+import static org.corant.shared.util.MBeans.registerToMBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.corant.config.Configs;
+import org.corant.shared.ubiquity.Tuple.Triple;
+
+/**
+ * corant-modules-datasource-shared
+ *
+ * <p>
+ * A bounded cache of the results that derived from parsing the SQL statements, such as the
+ * normalized statement templates and the count statements. The cache is bounded by the total
+ * weight of the entries, the weight of an entry is approximately the number of characters of its
+ * key and value, so that a few huge statements can't exhaust the heap. The hit, miss and eviction
+ * counters are exposed via JMX.
+ *
+ * <p>
+ * The cache is backed by a concurrent hash map so that the lookups don't contend with each other,
+ * each entry records its last access time. When the total weight exceeds the maximum weight, one
+ * of the writers evicts the least recently accessed entries until the total weight drops to three
+ * quarters of the maximum weight, the eviction is approximate since the entries may be accessed or
+ * added concurrently.
+ *
+ * <p>
+ * The cache can be configured by the following configuration properties:
+ * <ul>
+ * <li>{@code corant.datasource.sql-statement-cache.max-weight} the maximum total weight, if the
+ * value is less than or equal to 0 the cache is disabled, default is 4194304.</li>
+ * <li>{@code corant.datasource.sql-statement-cache.jmx-enabled} whether to register the cache to
+ * JMX, default is true.</li>
+ * </ul>
+ *
+ * @author bingo 下午3:52:06
+ *
+ */
+public class SqlStatementCache implements SqlStatementCacheMBean {
+
+  public static final String CFG_PREFIX = "corant.datasource.sql-statement-cache";
+  public static final long DEFAULT_MAX_WEIGHT = 4L * 1024 * 1024;
+
+  static final Logger logger = Logger.getLogger(SqlStatementCache.class.getName());
+
+  protected final long maxWeight;
+  protected final Map<String, Entry> entries = new ConcurrentHashMap<>(256);
+  protected final LongAdder hits = new LongAdder();
+  protected final LongAdder misses = new LongAdder();
+  protected final LongAdder evictions = new LongAdder();
+  protected final AtomicLong weight = new AtomicLong();
+  protected final AtomicBoolean evicting = new AtomicBoolean();
+
+  public SqlStatementCache(long maxWeight) {
+    this.maxWeight = maxWeight;
+  }
+
+  /**
+   * Returns the shared instance that configured by the configuration properties.
+   */
+  public static SqlStatementCache getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  @Override
+  public void clear() {
+    entries.forEach(this::remove);
+  }
+
+  /**
+   * Returns the cached value of the given key or null if not found.
+   *
+   * @param <V> the value type
+   * @param key the cache key
+   */
+  @SuppressWarnings("unchecked")
+  public <V> V get(String key) {
+    if (maxWeight <= 0) {
+      return null;
+    }
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    entry.accessed = System.nanoTime();
+    hits.increment();
+    return (V) entry.value;
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  @Override
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  @Override
+  public double getHitRatio() {
+    long h = hits.sum();
+    long total = h + misses.sum();
+    return total == 0 ? 0 : (double) h / total;
+  }
+
+  @Override
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  @Override
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  @Override
+  public int getSize() {
+    return entries.size();
+  }
+
+  @Override
+  public long getWeight() {
+    return weight.get();
+  }
+
+  /**
+   * Put the given value into the cache and evict the least recently accessed entries if the total
+   * weight exceeds the maximum weight. The entry whose weight exceeds the maximum weight is not
+   * cached.
+   *
+   * @param key the cache key
+   * @param value the value to cache
+   * @param valueWeight the weight of the value, usually the number of characters of the value
+   */
+  public void put(String key, Object value, int valueWeight) {
+    long entryWeight = (long) key.length() + Math.max(valueWeight, 0);
+    if (maxWeight <= 0 || entryWeight > maxWeight) {
+      return;
+    }
+    Entry previous = entries.put(key, new Entry(value, entryWeight));
+    weight.addAndGet(previous == null ? entryWeight : entryWeight - previous.weight);
+    // re-check after the eviction since the writers that arrived during it don't evict
+    while (weight.get() > maxWeight && evicting.compareAndSet(false, true)) {
+      try {
+        evict();
+      } finally {
+        evicting.set(false);
+      }
+    }
+  }
+
+  /**
+   * Evict the least recently accessed entries until the total weight drops to three quarters of
+   * the maximum weight, only one thread evicts at a time, the other writers don't wait for it.
+   */
+  protected void evict() {
+    long target = maxWeight - (maxWeight >>> 2);
+    if (weight.get() <= target) {
+      return;
+    }
+    // snapshot the access times, the sorting can't rely on the values that are being changed
+    List<Triple<Long, String, Entry>> candidates = new ArrayList<>(entries.size());
+    entries.forEach((k, v) -> candidates.add(Triple.of(v.accessed, k, v)));
+    candidates.sort(Comparator.comparingLong(Triple::getLeft));
+    for (Triple<Long, String, Entry> candidate : candidates) {
+      if (weight.get() <= target) {
+        break;
+      }
+      if (remove(candidate.getMiddle(), candidate.getRight())) {
+        evictions.increment();
+      }
+    }
+  }
+
+  protected boolean remove(String key, Entry entry) {
+    if (entries.remove(key, entry)) {
+      weight.addAndGet(-entry.weight);
+      return true;
+    }
+    return false;
+  }
+
+  static SqlStatementCache create() {
+    long maxWeight = DEFAULT_MAX_WEIGHT;
+    boolean jmxEnabled = true;
+    try {
+      maxWeight = Configs.getValue(CFG_PREFIX + ".max-weight", Long.class, DEFAULT_MAX_WEIGHT);
+      jmxEnabled = Configs.getValue(CFG_PREFIX + ".jmx-enabled", Boolean.class, Boolean.TRUE);
+    } catch (Exception e) {
+      logger.log(Level.WARNING, e,
+          () -> "Can't resolve the sql statement cache configuration, use the defaults.");
+    }
+    SqlStatementCache cache = new SqlStatementCache(maxWeight);
+    if (jmxEnabled && maxWeight > 0) {
+      try {
+        registerToMBean(applicationName().concat(":type=sql-statement-cache"), cache);
+      } catch (Exception e) {
+        logger.log(Level.WARNING, e, () -> "Can't register the sql statement cache to jmx.");
+      }
+    }
+    return cache;
+  }
+
+  /**
+   * corant-modules-datasource-shared
+   *
+   * @author bingo 下午3:52:06
+   *
+   */
+  protected static class Entry {
+    final Object value;
+    final long weight;
+    volatile long accessed = System.nanoTime();
+
+    Entry(Object value, long weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * corant-modules-datasource-shared
+   *
+   * @author bingo 下午3:52:06
+   *
+   */
+  static class Holder {
+    static final SqlStatementCache INSTANCE = create();
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2013-2021, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.datasource.shared;
+
+/**
+ * corant-modules-datasource-shared
+ *
+ * <p>
+ * The management interface of {@link SqlStatementCache}.
+ *
+ * @author bingo 下午3:52:06
+ *
+ */
+public interface SqlStatementCacheMBean {
+
+  void clear();
+
+  long getEvictionCount();
+
+  long getHitCount();
+
+  double getHitRatio();
+
+  long getMaxWeight();
+
+  long getMissCount();
+
+  int getSize();
+
+  long getWeight();
+}
@@ -24,6 +24,7 @@ import static org.corant.shared.util.Strings.defaultBlank;
 import static org.corant.shared.util.Strings.defaultString;
 import static org.corant.shared.util.Strings.isBlank;
 import static org.corant.shared.util.Strings.substring;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -71,11 +72,19 @@ import net.sf.jsqlparser.util.deparser.UpdateDeParser;
 /**
  * corant-modules-datasource-shared
  *
+ * <p>
+ * Note: The normalized statement templates and the count statements are cached in the
+ * {@link SqlStatementCache}, the normalized statement template is keyed by the original statement
+ * and the sizes of the array or collection parameters, so that the statement is parsed only once
+ * for each distinct combination.
+ *
  * @author bingo 下午4:06:43
  *
  */
 public class SqlStatements {
 
+  static final SqlStatementCache CACHE = SqlStatementCache.getInstance();
+
   /**
    * Converts the given named parameters(:name) prepared SQL statement and the given query
    * parameters maps to a normalized SQL prepared statement and its query parameters and return
@@ -105,16 +114,33 @@ public class SqlStatements {
    * @return a normalized SQL query statement and an ordered array of query parameters.
    */
   public static Pair<String, Object[]> normalize(String sql, Map<String, Object> namedParameters) {
-    try {
-      StringBuilder statement = new StringBuilder();
-      List<Object> useParams = new ArrayList<>();
-      ExpressionDeParser expressionDeParser =
-          new JdbcParameterExpressionDeParser(namedParameters, useParams);
-      normalize(CCJSqlParserUtil.parse(sql), statement, expressionDeParser);
-      return Pair.of(statement.toString(), useParams.toArray());
-    } catch (JSQLParserException ex) {
-      throw new CorantRuntimeException(ex);
+    if (sql == null) {
+      return normalize(sql, new JdbcParameterExpressionDeParser(namedParameters));
     }
+    List<String> arities = new ArrayList<>();
+    namedParameters.forEach((k, v) -> {
+      if (isMultiple(v)) {
+        arities.add(k + ':' + sizeOfMultiple(v));
+      }
+    });
+    Collections.sort(arities);
+    String key = "N\u0000" + sql + "\u0000" + String.join(",", arities);
+    NormalizedTemplate template = CACHE.get(key);
+    if (template == null) {
+      JdbcParameterExpressionDeParser deparser =
+          new JdbcParameterExpressionDeParser(namedParameters);
+      Pair<String, Object[]> normalized = normalize(sql, deparser);
+      CACHE.put(key, deparser.toTemplate(normalized.getKey()), normalized.getKey().length());
+      return normalized;
+    }
+    List<Object> useParams = new ArrayList<>();
+    for (Object slot : template.slots) {
+      String name = (String) slot;
+      shouldBeTrue(namedParameters.containsKey(name),
+          "The named parameter [%s] in SQL does not match the given parameter!", name);
+      useParams.addAll(resolveParameter(namedParameters.get(name)));
+    }
+    return Pair.of(template.sql, useParams.toArray());
   }
 
   /**
@@ -149,16 +175,26 @@ public class SqlStatements {
         || streamOf(ordinaryParameters).noneMatch(p -> p instanceof Collection)) {
       return Pair.of(sql, ordinaryParameters);
     }
-    try {
-      StringBuilder statement = new StringBuilder();
-      List<Object> useParams = new ArrayList<>();
-      ExpressionDeParser expressionDeParser =
-          new JdbcParameterExpressionDeParser(ordinaryParameters, useParams);
-      normalize(CCJSqlParserUtil.parse(sql), statement, expressionDeParser);
-      return Pair.of(statement.toString(), useParams.toArray());
-    } catch (JSQLParserException ex) {
-      throw new CorantRuntimeException(ex);
+    StringBuilder key = new StringBuilder(sql.length() + ordinaryParameters.length * 3 + 2)
+        .append("O\u0000").append(sql).append('\u0000');
+    for (Object parameter : ordinaryParameters) {
+      key.append(isMultiple(parameter) ? sizeOfMultiple(parameter) : -1).append(',');
+    }
+    String cacheKey = key.toString();
+    NormalizedTemplate template = CACHE.get(cacheKey);
+    if (template == null) {
+      JdbcParameterExpressionDeParser deparser =
+          new JdbcParameterExpressionDeParser(ordinaryParameters);
+      Pair<String, Object[]> normalized = normalize(sql, deparser);
+      CACHE.put(cacheKey, deparser.toTemplate(normalized.getKey()),
+          normalized.getKey().length());
+      return normalized;
+    }
+    List<Object> useParams = new ArrayList<>();
+    for (Object slot : template.slots) {
+      useParams.addAll(resolveParameter(ordinaryParameters[(Integer) slot]));
     }
+    return Pair.of(template.sql, useParams.toArray());
   }
 
   /**
@@ -172,10 +208,39 @@ public class SqlStatements {
    * @param aggregateFunctions the aggregation functions that can't be optimized.
    * @param wrappedTableAlias the wrapped select statement table alias
    * @return an optimized count query statement
+   * @see SqlStatementCache
    * @throws JSQLParserException if CCJSqlParserUtil occurred error
    */
   public static String resolveCountSql(String sql, String countColumn, String countColumnAlias,
       String wrappedTableAlias, Collection<String> aggregateFunctions) throws JSQLParserException {
+    StringBuilder key = new StringBuilder(sql.length() + 64).append("C\u0000").append(sql)
+        .append('\u0000').append(countColumn).append('\u0000').append(countColumnAlias)
+        .append('\u0000').append(wrappedTableAlias).append('\u0000');
+    if (aggregateFunctions != null) {
+      aggregateFunctions.forEach(f -> key.append(f).append(','));
+    }
+    String cacheKey = key.toString();
+    Object cached = CACHE.get(cacheKey);
+    if (cached instanceof String) {
+      return (String) cached;
+    } else if (cached != null) {
+      throw new JSQLParserException((String) ((Object[]) cached)[0]);
+    }
+    try {
+      String countSql = parseCountSql(sql, countColumn, countColumnAlias, wrappedTableAlias,
+          aggregateFunctions);
+      CACHE.put(cacheKey, countSql, countSql.length());
+      return countSql;
+    } catch (JSQLParserException ex) {
+      // caches the failure so that the dialect specific statements are not parsed again
+      String message = defaultString(ex.getMessage());
+      CACHE.put(cacheKey, new Object[] {message}, message.length());
+      throw ex;
+    }
+  }
+
+  static String parseCountSql(String sql, String countColumn, String countColumnAlias,
+      String wrappedTableAlias, Collection<String> aggregateFunctions) throws JSQLParserException {
     Select select = (Select) CCJSqlParserUtil.parse(sql);
     SelectBody selectBody = select.getSelectBody();
     reviseCountSqlSelectBody(selectBody);
@@ -206,6 +271,37 @@ public class SqlStatements {
     return select.toString();
   }
 
+  static boolean isMultiple(Object parameter) {
+    return parameter instanceof Collection || parameter != null && parameter.getClass().isArray();
+  }
+
+  static Pair<String, Object[]> normalize(String sql, JdbcParameterExpressionDeParser deparser) {
+    try {
+      StringBuilder statement = new StringBuilder();
+      normalize(CCJSqlParserUtil.parse(sql), statement, deparser);
+      return Pair.of(statement.toString(), deparser.useParams.toArray());
+    } catch (JSQLParserException ex) {
+      throw new CorantRuntimeException(ex);
+    }
+  }
+
+  static List<Object> resolveParameter(Object parameter) {
+    List<Object> params = new ArrayList<>();
+    if (parameter instanceof Collection) {
+      params.addAll((Collection<?>) parameter);
+    } else if (parameter != null && parameter.getClass().isArray()) {
+      Collections.addAll(params, wrapArray(parameter));
+    } else {
+      params.add(parameter);
+    }
+    return params;
+  }
+
+  static int sizeOfMultiple(Object parameter) {
+    return parameter instanceof Collection ? ((Collection<?>) parameter).size()
+        : Array.getLength(parameter);
+  }
+
   static boolean canBeOptimized(SelectBody selectBody, Collection<String> aggregationFunctions) {
     if (selectBody instanceof PlainSelect) {
       PlainSelect plainSelect = (PlainSelect) selectBody;
@@ -377,18 +473,17 @@ public class SqlStatements {
   static class JdbcParameterExpressionDeParser extends ExpressionDeParser {
     private final Object[] ordinaryParameters;
     private final Map<String, Object> namedParameters;
-    private final List<Object> useParams;
+    private final List<Object> useParams = new ArrayList<>();
+    private final List<Object> slots = new ArrayList<>();
 
-    JdbcParameterExpressionDeParser(Map<String, Object> parameters, List<Object> useParams) {
+    JdbcParameterExpressionDeParser(Map<String, Object> parameters) {
       namedParameters = parameters;
       ordinaryParameters = Objects.EMPTY_ARRAY;
-      this.useParams = useParams;
     }
 
-    JdbcParameterExpressionDeParser(Object[] parameters, List<Object> useParams) {
+    JdbcParameterExpressionDeParser(Object[] parameters) {
       ordinaryParameters = parameters;
       namedParameters = null;
-      this.useParams = useParams;
     }
 
     @Override
@@ -405,6 +500,7 @@ public class SqlStatements {
         buffer.append("?");
       }
       useParams.addAll(tempParams);
+      slots.add(name);
     }
 
     @Override
@@ -425,18 +521,31 @@ public class SqlStatements {
         buffer.append("?");
       }
       useParams.addAll(tempParams);
+      slots.add(jdbcParameter.getIndex() - 1);
     }
 
-    protected List<Object> resolveParameter(Object parameter) {
-      List<Object> params = new ArrayList<>();
-      if (parameter instanceof Collection) {
-        params.addAll((Collection<?>) parameter);
-      } else if (parameter != null && parameter.getClass().isArray()) {
-        Collections.addAll(params, wrapArray(parameter));
-      } else {
-        params.add(parameter);
-      }
-      return params;
+    NormalizedTemplate toTemplate(String sql) {
+      return new NormalizedTemplate(sql, slots.toArray());
+    }
+  }
+
+  /**
+   * corant-modules-datasource-shared
+   *
+   * <p>
+   * The cached normalized statement, the slots are the parameter names or the zero based parameter
+   * indexes in the order of the placeholders, used to rebuild the parameters without parsing.
+   *
+   * @author bingo 下午3:52:06
+   *
+   */
+  static class NormalizedTemplate {
+    final String sql;
+    final Object[] slots;
+
+    NormalizedTemplate(String sql, Object[] slots) {
+      this.sql = sql;
+      this.slots = slots;
     }
   }
 }
@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2013-2021, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.datasource.shared.util;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import org.corant.modules.datasource.shared.util.DbUtilBasicRowProcessor.CaseInsensitiveHashMap;
+
+/**
+ * corant-modules-datasource-shared
+ *
+ * <p>
+ * A compact case-insensitive row map, the column values of a row are stored in an array and the
+ * column name to index table is shared by all the rows of a result set, so a large result set no
+ * longer allocates a hash table per row. The row is still mutable, the columns can be replaced or
+ * removed, and the entries that are not the result set columns (e.g. the injected fetch query
+ * results) are stored in an additional case-insensitive map that created on demand.
+ *
+ * <p>
+ * Note: Unlike {@link CaseInsensitiveHashMap}, replacing the value of a column with a differently
+ * cased key keeps the original column label, and the removed column that is put again keeps its
+ * original position.
+ *
+ * @author bingo 下午5:20:14
+ *
+ */
+public class ColumnarRow extends AbstractMap<String, Object> implements Serializable {
+
+  private static final long serialVersionUID = 3530425129004364207L;
+
+  protected final Columns columns;
+  protected final Object[] values;
+  protected BitSet removed;
+  protected Map<String, Object> extras;
+  protected transient Set<Entry<String, Object>> entrySet;
+
+  public ColumnarRow(Columns columns) {
+    this.columns = columns;
+    values = new Object[columns.names.length];
+  }
+
+  @Override
+  public void clear() {
+    int length = values.length;
+    if (length > 0) {
+      if (removed == null) {
+        removed = new BitSet(length);
+      }
+      removed.set(0, length);
+    }
+    for (int i = 0; i < length; i++) {
+      values[i] = null;
+    }
+    extras = null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    int i = columns.indexOf(key);
+    if (i >= 0 && !isRemoved(i)) {
+      return true;
+    }
+    return extras != null && key != null && extras.containsKey(key);
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    Set<Entry<String, Object>> es = entrySet;
+    return es != null ? es : (entrySet = new EntrySet());
+  }
+
+  @Override
+  public Object get(Object key) {
+    int i = columns.indexOf(key);
+    if (i >= 0 && !isRemoved(i)) {
+      return values[i];
+    }
+    return extras != null && key != null ? extras.get(key) : null;
+  }
+
+  public Columns getColumns() {
+    return columns;
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    int i = columns.indexOf(key);
+    if (i >= 0) {
+      Object old = null;
+      if (isRemoved(i)) {
+        removed.clear(i);
+      } else {
+        old = values[i];
+      }
+      values[i] = value;
+      return old;
+    }
+    if (extras == null) {
+      extras = new CaseInsensitiveHashMap();
+    }
+    return extras.put(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    int i = columns.indexOf(key);
+    if (i >= 0 && !isRemoved(i)) {
+      return removeColumn(i);
+    }
+    return extras != null && key != null ? extras.remove(key) : null;
+  }
+
+  @Override
+  public int size() {
+    int size = values.length - (removed == null ? 0 : removed.cardinality());
+    return extras == null ? size : size + extras.size();
+  }
+
+  protected boolean isRemoved(int index) {
+    return removed != null && removed.get(index);
+  }
+
+  protected Object removeColumn(int index) {
+    Object old = values[index];
+    values[index] = null;
+    if (removed == null) {
+      removed = new BitSet(values.length);
+    }
+    removed.set(index);
+    return old;
+  }
+
+  /**
+   * Set the value of the column at the given index, used by the row processor to populate the
+   * row.
+   */
+  protected void set(int index, Object value) {
+    values[index] = value;
+  }
+
+  /**
+   * corant-modules-datasource-shared
+   *
+   * <p>
+   * The shared column labels of the rows of a result set, the duplicate labels are merged and the
+   * last one wins.
+   *
+   * @author bingo 下午5:20:14
+   *
+   */
+  public static class Columns implements Serializable {
+
+    private static final long serialVersionUID = -4418806307306557498L;
+
+    protected final String[] names;
+    protected final Map<String, Integer> indexes;
+    protected final Map<String, Integer> lowerCaseIndexes;
+
+    public Columns(String[] names) {
+      this.names = names;
+      indexes = new HashMap<>(names.length << 1);
+      lowerCaseIndexes = new HashMap<>(names.length << 1);
+      for (int i = 0; i < names.length; i++) {
+        indexes.put(names[i], i);
+        lowerCaseIndexes.put(names[i].toLowerCase(Locale.ENGLISH), i);
+      }
+    }
+
+    public String getName(int index) {
+      return names[index];
+    }
+
+    public int indexOf(Object key) {
+      if (key == null) {
+        return -1;
+      }
+      Integer index = indexes.get(key);
+      if (index == null) {
+        index = lowerCaseIndexes.get(key.toString().toLowerCase(Locale.ENGLISH));
+      }
+      return index == null ? -1 : index;
+    }
+
+    public int size() {
+      return names.length;
+    }
+  }
+
+  /**
+   * corant-modules-datasource-shared
+   *
+   * @author bingo 下午5:20:14
+   *
+   */
+  protected class ColumnEntry implements Entry<String, Object> {
+
+    final int index;
+
+    ColumnEntry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> e = (Entry<?, ?>) o;
+      return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+    }
+
+    @Override
+    public String getKey() {
+      return columns.names[index];
+    }
+
+    @Override
+    public Object getValue() {
+      return values[index];
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      Object old = values[index];
+      values[index] = value;
+      return old;
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  /**
+   * corant-modules-datasource-shared
+   *
+   * @author bingo 下午5:20:14
+   *
+   */
+  protected class EntryIterator implements Iterator<Entry<String, Object>> {
+
+    int next = advance(0);
+    int current = -1;
+    boolean currentExtra;
+    Iterator<Entry<String, Object>> extraIterator;
+
+    @Override
+    public boolean hasNext() {
+      if (next < values.length) {
+        return true;
+      }
+      if (extraIterator == null) {
+        if (extras == null) {
+          return false;
+        }
+        extraIterator = extras.entrySet().iterator();
+      }
+      return extraIterator.hasNext();
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (next < values.length) {
+        current = next;
+        currentExtra = false;
+        next = advance(next + 1);
+        return new ColumnEntry(current);
+      }
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Entry<String, Object> entry = extraIterator.next();
+      current = -1;
+      currentExtra = true;
+      return entry;
+    }
+
+    @Override
+    public void remove() {
+      if (currentExtra) {
+        extraIterator.remove();
+        currentExtra = false;
+      } else if (current >= 0) {
+        removeColumn(current);
+        current = -1;
+      } else {
+        throw new IllegalStateException();
+      }
+    }
+
+    int advance(int from) {
+      int i = from;
+      while (i < values.length && isRemoved(i)) {
+        i++;
+      }
+      return i;
+    }
+  }
+
+  /**
+   * corant-modules-datasource-shared
+   *
+   * @author bingo 下午5:20:14
+   *
+   */
+  protected class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+    @Override
+    public void clear() {
+      ColumnarRow.this.clear();
+    }
+
+    @Override
+    public Iterator<Entry<String, Object>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return ColumnarRow.this.size();
+    }
+  }
+}
@@ -14,6 +14,7 @@
 package org.corant.modules.datasource.shared.util;
 
 import static org.corant.shared.util.Empties.isEmpty;
+import java.lang.ref.WeakReference;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -44,32 +45,71 @@ public class DbUtilBasicRowProcessor extends BasicRowProcessor {
       Services.selectRequired(DbUtilBasicFieldProcessor.class).sorted(Sortable::compare)
           .collect(Collectors.toList());
 
+  protected static final ThreadLocal<ResultSetColumns> lastColumns = new ThreadLocal<>();
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The returned row is a {@link ColumnarRow}, the column labels and the field processors of the
+   * result set are resolved once and shared by the rows of the same result set.
+   */
   @Override
   public Map<String, Object> toMap(ResultSet rs) throws SQLException {
-    Map<String, Object> result = new CaseInsensitiveHashMap();
+    ResultSetColumns resultSetColumns = resolveColumns(rs);
+    ColumnarRow result = new ColumnarRow(resultSetColumns.columns);
+    int[] indexes = resultSetColumns.indexes;
+    DbUtilBasicFieldProcessor[] processors = resultSetColumns.processors;
+    for (int i = 0; i < indexes.length; i++) {
+      if (processors[i] != null) {
+        result.set(i, processors[i].convert(rs, indexes[i]));
+      } else {
+        result.set(i, rs.getObject(indexes[i]));
+      }
+    }
+    return result;
+  }
+
+  protected ResultSetColumns resolveColumns(ResultSet rs) throws SQLException {
+    ResultSetColumns last = lastColumns.get();
+    if (last != null && last.resultSet.get() == rs) {
+      return last;
+    }
     ResultSetMetaData rsmd = rs.getMetaData();
     int cols = rsmd.getColumnCount();
-
+    // the duplicate labels are merged and the last one wins, same as the original map put
+    Map<String, Integer> labels = new LinkedHashMap<>(cols << 1);
+    Map<String, String> lowerCaseLabels = new HashMap<>(cols << 1);
     for (int i = 1; i <= cols; i++) {
       String columnName = rsmd.getColumnLabel(i);
-      int type = rsmd.getColumnType(i);
       if (isEmpty(columnName)) {
         columnName = rsmd.getColumnName(i);
       }
-      boolean converted = false;
+      String oldName = lowerCaseLabels.put(columnName.toLowerCase(Locale.ENGLISH), columnName);
+      if (oldName != null) {
+        labels.remove(oldName);
+      }
+      labels.put(columnName, i);
+    }
+    String[] names = new String[labels.size()];
+    int[] indexes = new int[names.length];
+    DbUtilBasicFieldProcessor[] processors = new DbUtilBasicFieldProcessor[names.length];
+    int c = 0;
+    for (Map.Entry<String, Integer> label : labels.entrySet()) {
+      names[c] = label.getKey();
+      indexes[c] = label.getValue();
+      int type = rsmd.getColumnType(indexes[c]);
       for (DbUtilBasicFieldProcessor fp : FIELD_PROCESSORS) {
-        if (fp.supports(columnName, type)) {
-          result.put(columnName, fp.convert(rs, i));
-          converted = true;
+        if (fp.supports(names[c], type)) {
+          processors[c] = fp;
           break;
         }
       }
-      if (!converted) {
-        result.put(columnName, rs.getObject(i));
-      }
+      c++;
     }
-
-    return result;
+    ResultSetColumns resolved =
+        new ResultSetColumns(rs, new ColumnarRow.Columns(names), indexes, processors);
+    lastColumns.set(resolved);
+    return resolved;
   }
 
   /**
@@ -89,7 +129,7 @@ public class DbUtilBasicRowProcessor extends BasicRowProcessor {
    * key.toString().toLowerCase()
    * </pre>
    */
-  private static class CaseInsensitiveHashMap extends LinkedHashMap<String, Object> {
+  static class CaseInsensitiveHashMap extends LinkedHashMap<String, Object> {
     /**
      * Required for serialization support.
      *
@@ -161,4 +201,29 @@ public class DbUtilBasicRowProcessor extends BasicRowProcessor {
       return super.remove(realKey);
     }
   }
+
+  /**
+   * corant-modules-datasource-shared
+   *
+   * <p>
+   * The resolved columns of the last result set processed by the current thread, the result set
+   * is weakly referenced so that it can be collected after closed.
+   *
+   * @author bingo 下午5:20:14
+   *
+   */
+  protected static class ResultSetColumns {
+    final WeakReference<ResultSet> resultSet;
+    final ColumnarRow.Columns columns;
+    final int[] indexes;
+    final DbUtilBasicFieldProcessor[] processors;
+
+    protected ResultSetColumns(ResultSet resultSet, ColumnarRow.Columns columns, int[] indexes,
+        DbUtilBasicFieldProcessor[] processors) {
+      this.resultSet = new WeakReference<>(resultSet);
+      this.columns = columns;
+      this.indexes = indexes;
+      this.processors = processors;
+    }
+  }
 }
@@ -41,5 +41,16 @@ public interface MessageStorage extends UnaryOperator<Message> {
     return DUMMY_INST;
   }
 
+  /**
+   * Returns whether the stored messages are dispatched by the storage itself, for example the
+   * transactional outbox storage that relays the stored messages in background. If true, the unit
+   * of work does not dispatch the stored messages after the transaction is committed.
+   *
+   * @return isSelfDispatching
+   */
+  default boolean isSelfDispatching() {
+    return false;
+  }
+
   default void prepare() {}
 }
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.ddd.shared.message;
+
+import static org.corant.context.Beans.find;
+import static org.corant.modules.ddd.shared.message.JDBCMessageStorage.COL_AGGREGATE_KEY;
+import static org.corant.modules.ddd.shared.message.JDBCMessageStorage.COL_ATTEMPTS;
+import static org.corant.modules.ddd.shared.message.JDBCMessageStorage.COL_ID;
+import static org.corant.modules.ddd.shared.message.JDBCMessageStorage.COL_PAYLOAD;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import org.corant.context.ContainerEvents.PostContainerStartedEvent;
+import org.corant.modules.ddd.Message;
+import org.corant.modules.ddd.MessageDispatcher;
+import org.corant.modules.ddd.annotation.InfrastructureServices;
+import org.corant.shared.service.RequiredConfiguration;
+import org.corant.shared.service.RequiredConfiguration.ValuePredicate;
+import org.corant.shared.util.Serializations;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * corant-modules-ddd-shared
+ *
+ * <p>
+ * The background relay of the transactional outbox, the relay periodically scans the committed
+ * messages from the outbox table batch by batch in the order of the id, dispatches them to the
+ * {@link MessageDispatcher} and deletes the dispatched messages. If a message fails to be
+ * dispatched, its attempts are increased and the subsequent messages with the same aggregate key
+ * are skipped in the current round, they are retried with the failed message in the next round, so
+ * the messages of an aggregate are dispatched in the order in which they were stored, and the
+ * failed messages don't block the messages of the other aggregates. The messages whose attempts
+ * reach the max attempts are regarded as dead letters, they are retained in the outbox table but
+ * no longer dispatched, and the subsequent messages with the same aggregate key are released. The
+ * dead letters can be redelivered by resetting their attempts. If there is no available message
+ * dispatcher, the relay skips the round and retains all the messages.
+ *
+ * <p>
+ * Note: The delivery is at least once, a message may be dispatched repeatedly if the relay stops
+ * after dispatching and before deleting, so the message consumers should be idempotent. The relay
+ * does not lock the outbox rows, generally it should be enabled only in one application instance
+ * that uses the same outbox table.
+ *
+ * @author bingo 下午3:42:18
+ *
+ */
+@ApplicationScoped
+@InfrastructureServices
+@RequiredConfiguration(key = "corant.ddd.message.outbox.enable", predicate = ValuePredicate.EQ,
+    type = Boolean.class, value = "true")
+public class JDBCMessageRelay {
+
+  protected final transient Logger logger = Logger.getLogger(this.getClass().toString());
+
+  protected final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor();
+
+  @Inject
+  protected JDBCMessageStorage storage;
+
+  @Inject
+  @ConfigProperty(name = "corant.ddd.message.outbox.relay-enable", defaultValue = "true")
+  protected boolean enable;
+
+  @Inject
+  @ConfigProperty(name = "corant.ddd.message.outbox.relay-interval", defaultValue = "PT1S")
+  protected Duration interval;
+
+  @Inject
+  @ConfigProperty(name = "corant.ddd.message.outbox.relay-batch-size", defaultValue = "128")
+  protected int batchSize;
+
+  @Inject
+  @ConfigProperty(name = "corant.ddd.message.outbox.relay-max-attempts", defaultValue = "16")
+  protected int maxAttempts;
+
+  @Inject
+  @ConfigProperty(name = "corant.ddd.message.outbox.termination-timeout", defaultValue = "PT5S")
+  protected Duration terminationTimeout;
+
+  protected String selectSql;
+
+  protected String deleteSql;
+
+  protected String failSql;
+
+  /**
+   * Relay the outbox messages, scan the outbox from the beginning to the end in one round, the
+   * messages that fail to be dispatched and the subsequent messages with the same aggregate key are
+   * retained for the next round.
+   */
+  public void relay() {
+    final Optional<MessageDispatcher> dispatcher = find(MessageDispatcher.class);
+    if (!dispatcher.isPresent()) {
+      logger.warning(
+          () -> "Can't find the message dispatcher, skip relaying the outbox messages.");
+      return;
+    }
+    try {
+      final Set<String> blockedKeys = new HashSet<>();
+      long lastId = Long.MIN_VALUE;
+      Long nextId;
+      while ((nextId = relayBatch(dispatcher.get(), lastId, blockedKeys)) != null) {
+        lastId = nextId;
+        logger.finer(() -> "Continue to relay the next batch of the outbox messages.");
+      }
+    } catch (Exception e) {
+      logger.log(Level.WARNING, e, () -> "Relay the outbox messages occurred error!");
+    }
+  }
+
+  protected void delete(Connection conn, List<Long> ids) throws SQLException {
+    if (ids.isEmpty()) {
+      return;
+    }
+    try (PreparedStatement ps = conn.prepareStatement(deleteSql)) {
+      for (Long id : ids) {
+        ps.setLong(1, id);
+        ps.addBatch();
+      }
+      ps.executeBatch();
+    }
+  }
+
+  protected void dispatch(MessageDispatcher dispatcher, Message message) {
+    dispatcher.accept(new Message[] {message});
+  }
+
+  protected void fail(Connection conn, OutboxRecord record) throws SQLException {
+    try (PreparedStatement ps = conn.prepareStatement(failSql)) {
+      ps.setLong(1, record.id);
+      ps.executeUpdate();
+    }
+    if (record.attempts + 1 >= maxAttempts) {
+      logger.severe(() -> String.format(
+          "The outbox message %s failed %s times, it is retained as a dead letter.", record.id,
+          record.attempts + 1));
+    }
+  }
+
+  protected List<OutboxRecord> fetch(Connection conn, long afterId) throws SQLException {
+    List<OutboxRecord> records = new ArrayList<>(batchSize);
+    try (PreparedStatement ps = conn.prepareStatement(selectSql)) {
+      ps.setLong(1, afterId);
+      ps.setInt(2, maxAttempts);
+      ps.setMaxRows(batchSize);
+      ps.setFetchSize(batchSize);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next() && records.size() < batchSize) {
+          records.add(new OutboxRecord(rs.getLong(COL_ID), rs.getString(COL_AGGREGATE_KEY),
+              rs.getBytes(COL_PAYLOAD), rs.getInt(COL_ATTEMPTS)));
+        }
+      }
+    }
+    return records;
+  }
+
+  @PostConstruct
+  protected void onPostConstruct() {
+    String table = storage.getTable();
+    selectSql = "SELECT " + COL_ID + ", " + COL_AGGREGATE_KEY + ", " + COL_PAYLOAD + ", "
+        + COL_ATTEMPTS + " FROM " + table + " WHERE " + COL_ID + " > ? AND " + COL_ATTEMPTS
+        + " < ? ORDER BY " + COL_ID;
+    deleteSql = "DELETE FROM " + table + " WHERE " + COL_ID + " = ?";
+    failSql = "UPDATE " + table + " SET " + COL_ATTEMPTS + " = " + COL_ATTEMPTS + " + 1 WHERE "
+        + COL_ID + " = ?";
+  }
+
+  protected void onPostContainerStarted(@Observes PostContainerStartedEvent e) {
+    if (enable) {
+      final long ms = Math.max(interval.toMillis(), 1L);
+      executor.scheduleWithFixedDelay(this::relay, ms, ms, TimeUnit.MILLISECONDS);
+      logger.fine(() -> String.format("Start the outbox message relay, the interval is %sms.", ms));
+    }
+  }
+
+  @PreDestroy
+  protected void onPreDestroy() {
+    final long ms = terminationTimeout.toMillis();
+    try {
+      executor.shutdown();
+      if (!executor.awaitTermination(ms, TimeUnit.MILLISECONDS)) {
+        logger.log(Level.WARNING, () -> "Terminate the outbox message relay timeout!");
+      }
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, e, () -> "Can not terminate the outbox message relay.");
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Relay a batch of the outbox messages whose id is greater than the given id, returns the last id
+   * of the batch if the batch is full, that means there may be more messages to relay, otherwise
+   * returns null.
+   *
+   * @param dispatcher the message dispatcher
+   * @param afterId the last id of the previous batch
+   * @param blockedKeys the aggregate keys of the failed messages in the current round
+   */
+  protected Long relayBatch(MessageDispatcher dispatcher, long afterId, Set<String> blockedKeys)
+      throws SQLException {
+    try (Connection conn = storage.getDataSource().getConnection()) {
+      List<OutboxRecord> records = fetch(conn, afterId);
+      List<Long> dispatched = new ArrayList<>(records.size());
+      for (OutboxRecord record : records) {
+        if (record.aggregateKey != null && blockedKeys.contains(record.aggregateKey)) {
+          continue;
+        }
+        try {
+          dispatch(dispatcher, (Message) Serializations.deserialize(record.payload));
+          dispatched.add(record.id);
+        } catch (RuntimeException ex) {
+          logger.log(Level.WARNING, ex,
+              () -> String.format("Dispatch the outbox message %s occurred error!", record.id));
+          if (record.aggregateKey != null) {
+            blockedKeys.add(record.aggregateKey);
+          }
+          fail(conn, record);
+        }
+      }
+      delete(conn, dispatched);
+      if (!dispatched.isEmpty()) {
+        logger.fine(() -> String.format("Relayed %s outbox messages.", dispatched.size()));
+      }
+      return records.size() == batchSize ? records.get(records.size() - 1).id : null;
+    }
+  }
+
+  /**
+   * corant-modules-ddd-shared
+   *
+   * @author bingo 下午3:42:18
+   *
+   */
+  protected static class OutboxRecord {
+
+    protected final long id;
+    protected final String aggregateKey;
+    protected final byte[] payload;
+    protected final int attempts;
+
+    protected OutboxRecord(long id, String aggregateKey, byte[] payload, int attempts) {
+      this.id = id;
+      this.aggregateKey = aggregateKey;
+      this.payload = payload;
+      this.attempts = attempts;
+    }
+  }
+}
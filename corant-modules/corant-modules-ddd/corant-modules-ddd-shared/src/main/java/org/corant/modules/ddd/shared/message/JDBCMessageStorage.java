@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.ddd.shared.message;
+
+import static org.corant.context.Beans.findNamed;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import org.corant.modules.ddd.AbstractAggregateMessage;
+import org.corant.modules.ddd.Aggregate.AggregateIdentifier;
+import org.corant.modules.ddd.Message;
+import org.corant.modules.ddd.MessageStorage;
+import org.corant.modules.ddd.annotation.InfrastructureServices;
+import org.corant.shared.exception.CorantRuntimeException;
+import org.corant.shared.service.RequiredConfiguration;
+import org.corant.shared.service.RequiredConfiguration.ValuePredicate;
+import org.corant.shared.util.Serializations;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * corant-modules-ddd-shared
+ *
+ * <p>
+ * The transactional outbox message storage, the messages are serialized and inserted into the
+ * outbox table through the given data source before the transaction is committed, so that the
+ * messages and the aggregates are committed or rolled back together in the same local transaction
+ * when the data source is also used by the persistence unit. The stored messages are dispatched by
+ * {@link JDBCMessageRelay} in background after the transaction is committed, so the unit of work
+ * does not need to send messages to the message broker in the transaction.
+ *
+ * <p>
+ * The outbox table should be created in advance, the id column must be generated by the database
+ * and increase with the insertion order, the attempts column records the failed dispatch attempts
+ * of the message, for example:
+ *
+ * <pre>
+ * CREATE TABLE DDD_MESSAGE_OUTBOX (
+ *   ID BIGINT AUTO_INCREMENT PRIMARY KEY,
+ *   AGGREGATE_KEY VARCHAR(255),
+ *   PAYLOAD BLOB NOT NULL,
+ *   CREATED_TIME TIMESTAMP NOT NULL,
+ *   ATTEMPTS INT DEFAULT 0 NOT NULL
+ * )
+ * </pre>
+ *
+ * @author bingo 下午3:42:18
+ *
+ */
+@ApplicationScoped
+@InfrastructureServices
+@RequiredConfiguration(key = "corant.ddd.message.outbox.enable", predicate = ValuePredicate.EQ,
+    type = Boolean.class, value = "true")
+public class JDBCMessageStorage implements MessageStorage {
+
+  public static final String COL_ID = "ID";
+  public static final String COL_AGGREGATE_KEY = "AGGREGATE_KEY";
+  public static final String COL_PAYLOAD = "PAYLOAD";
+  public static final String COL_CREATED_TIME = "CREATED_TIME";
+  public static final String COL_ATTEMPTS = "ATTEMPTS";
+
+  protected final transient Logger logger = Logger.getLogger(this.getClass().toString());
+
+  @Inject
+  @ConfigProperty(name = "corant.ddd.message.outbox.data-source")
+  protected Optional<String> dataSourceName;
+
+  @Inject
+  @ConfigProperty(name = "corant.ddd.message.outbox.table", defaultValue = "DDD_MESSAGE_OUTBOX")
+  protected String table;
+
+  protected DataSource dataSource;
+
+  protected String insertSql;
+
+  @Override
+  public Message apply(Message message) {
+    try (Connection conn = dataSource.getConnection();
+        PreparedStatement ps = conn.prepareStatement(insertSql)) {
+      ps.setString(1, resolveAggregateKey(message));
+      ps.setBytes(2, Serializations.serialize(message));
+      ps.setTimestamp(3, Timestamp.from(Instant.now()));
+      ps.setInt(4, 0);
+      ps.executeUpdate();
+      logger.finer(() -> String.format("Store the domain message %s to the outbox table %s.",
+          message.getClass(), table));
+      return message;
+    } catch (SQLException e) {
+      throw new CorantRuntimeException(e);
+    }
+  }
+
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  @Override
+  public boolean isSelfDispatching() {
+    return true;
+  }
+
+  @PostConstruct
+  protected void onPostConstruct() {
+    dataSource = findNamed(DataSource.class, dataSourceName.orElse(null))
+        .orElseThrow(() -> new CorantRuntimeException("Can't find the outbox data source [%s].",
+            dataSourceName.orElse(null)));
+    insertSql = "INSERT INTO " + table + " (" + COL_AGGREGATE_KEY + ", " + COL_PAYLOAD + ", "
+        + COL_CREATED_TIME + ", " + COL_ATTEMPTS + ") VALUES (?, ?, ?, ?)";
+  }
+
+  /**
+   * Returns the ordering key of the given message, the messages with the same key are dispatched in
+   * the order in which they were stored. By default, the key of the aggregate message is the type
+   * and the id of the source aggregate, the other messages have no key and are not ordered.
+   *
+   * @param message the message to store
+   * @return the ordering key or null
+   */
+  protected String resolveAggregateKey(Message message) {
+    if (message instanceof AbstractAggregateMessage) {
+      AbstractAggregateMessage aggregateMessage = (AbstractAggregateMessage) message;
+      if (aggregateMessage.getMetadata() != null) {
+        AggregateIdentifier source = aggregateMessage.getMetadata().getSource();
+        if (source != null) {
+          return source.getType() + ":" + source.getId();
+        }
+      }
+    }
+    return null;
+  }
+}
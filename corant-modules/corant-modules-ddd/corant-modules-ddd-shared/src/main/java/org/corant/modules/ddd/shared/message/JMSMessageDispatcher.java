@@ -100,41 +100,46 @@ public class JMSMessageDispatcher implements MessageDispatcher {
     }
   }
 
+  /**
+   * Send the given domain message to the given destination. The payload stream of the binary
+   * message is kept open until the message is sent and closed afterwards, since some binary
+   * marshallers (e.g. the provider large message streaming) read the payload while sending.
+   */
   public void send(String broker, boolean multicast, String destination,
       Map<String, Object> properties, Message message) {
     JMSContext ctx = obtainJmsContext(broker);
     final Destination dest = resolveDestination(message, ctx, multicast, destination);
     logger.finer(() -> String.format("Resolved JMS message destination %s for domain message %s",
         dest, message.getClass()));
-    final javax.jms.Message jmsMsg = createJMSMessage(ctx, message);
-    if (isNotEmpty(properties)) {
-      properties.forEach(uncheckedBiConsumer(jmsMsg::setObjectProperty));
+    if (message instanceof BinaryMessage) {
+      try (InputStream is = ((BinaryMessage) message).openStream()) {
+        send(ctx, dest, properties, createJMSMessage(ctx, (BinaryMessage) message, is));
+      } catch (IOException e) {
+        throw new CorantRuntimeException(e);
+      }
+    } else {
+      send(ctx, dest, properties, createJMSMessage(ctx, message));
     }
-    onPreDispatch(jmsMsg);
-    ctx.createProducer().send(dest, jmsMsg);
   }
 
   protected Destination createDestination(JMSContext ctx, boolean multicast, String destination) {
     return multicast ? ctx.createTopic(destination) : ctx.createQueue(destination);
   }
 
+  protected javax.jms.Message createJMSMessage(JMSContext ctx, BinaryMessage message,
+      InputStream is) {
+    final javax.jms.Message jmsMsg = binaryMarshaller.serialize(ctx, is);
+    logger.finer(() -> String.format(
+        "Convert the domain message %s to binary JMS message, serialize schema %s.",
+        message.getClass(), binaryMarshallerName));
+    return jmsMsg;
+  }
+
   protected javax.jms.Message createJMSMessage(JMSContext ctx, Message message) {
-    final javax.jms.Message jmsMsg;
-    if (message instanceof BinaryMessage) {
-      try (InputStream is = ((BinaryMessage) message).openStream()) {
-        jmsMsg = binaryMarshaller.serialize(ctx, is);
-        logger.finer(() -> String.format(
-            "Convert the domain message %s to binary JMS message, serialize schema %s.",
-            message.getClass(), binaryMarshallerName));
-      } catch (IOException e) {
-        throw new CorantRuntimeException(e);
-      }
-    } else {
-      jmsMsg = marshaller.serialize(ctx, message);
-      logger.finer(
-          () -> String.format("Convert the domain message %s to JMS message, serialize schema %s",
-              message.getClass(), marshallerName));
-    }
+    final javax.jms.Message jmsMsg = marshaller.serialize(ctx, message);
+    logger.finer(
+        () -> String.format("Convert the domain message %s to JMS message, serialize schema %s",
+            message.getClass(), marshallerName));
     return jmsMsg;
   }
 
@@ -167,6 +172,15 @@ public class JMSMessageDispatcher implements MessageDispatcher {
     }
   }
 
+  protected void send(JMSContext ctx, Destination dest, Map<String, Object> properties,
+      javax.jms.Message jmsMsg) {
+    if (isNotEmpty(properties)) {
+      properties.forEach(uncheckedBiConsumer(jmsMsg::setObjectProperty));
+    }
+    onPreDispatch(jmsMsg);
+    ctx.createProducer().send(dest, jmsMsg);
+  }
+
   protected Destination resolveDestination(Message message, JMSContext ctx, boolean multicast,
       String destination) {
     if (!destinationResolvers.isUnsatisfied()) {
@@ -14,7 +14,6 @@
 package org.corant.modules.ddd.shared.unitwork;
 
 import static org.corant.shared.util.Assertions.shouldBeTrue;
-import static org.corant.shared.util.Objects.areEqual;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -75,7 +74,7 @@ public abstract class AbstractJPAUnitOfWork implements UnitOfWork, EntityManager
   protected final Map<AggregateIdentifier, Lifecycle> registeredAggregates = new LinkedHashMap<>();
   protected final Map<AggregateIdentifier, Lifecycle> evolutiveAggregates = new LinkedHashMap<>();
   protected final Map<Object, Object> registeredVariables = new LinkedHashMap<>();
-  protected final LinkedList<WrappedMessage> registeredMessages = new LinkedList<>();
+  protected final WrappedMessageQueue registeredMessages = new WrappedMessageQueue();
 
   protected volatile boolean activated;
 
@@ -101,10 +100,10 @@ public abstract class AbstractJPAUnitOfWork implements UnitOfWork, EntityManager
           AggregateIdentifier ai = new DefaultAggregateIdentifier(aggregate);
           registeredAggregates.remove(ai);
           evolutiveAggregates.remove(ai);
-          registeredMessages.removeIf(e -> areEqual(e.getSource(), ai));
+          registeredMessages.removeSource(ai);
         }
       } else if (obj instanceof Message) {
-        registeredMessages.removeIf(um -> areEqual(obj, um.delegate));
+        registeredMessages.removeMessage((Message) obj);
       } else if (obj instanceof Map.Entry<?, ?>) {
         Map.Entry<?, ?> p = (Map.Entry<?, ?>) obj;
         registeredVariables.remove(p.getKey());
@@ -146,7 +145,7 @@ public abstract class AbstractJPAUnitOfWork implements UnitOfWork, EntityManager
    * @return the registered messsages
    */
   public List<WrappedMessage> getMessages() {
-    return Collections.unmodifiableList(registeredMessages);
+    return Collections.unmodifiableList(registeredMessages.toList());
   }
 
   @Override
@@ -194,11 +193,11 @@ public abstract class AbstractJPAUnitOfWork implements UnitOfWork, EntityManager
             evolutiveAggregates.put(ai, al);
           }
           for (Message message : aggregate.extractMessages(true)) {
-            WrappedMessage.mergeToQueue(registeredMessages, new WrappedMessage(message, ai));
+            registeredMessages.merge(new WrappedMessage(message, ai));
           }
         }
       } else if (obj instanceof Message) {
-        WrappedMessage.mergeToQueue(registeredMessages, new WrappedMessage((Message) obj));
+        registeredMessages.merge(new WrappedMessage((Message) obj));
       } else if (obj instanceof Map.Entry<?, ?>) {
         Map.Entry<?, ?> p = (Map.Entry<?, ?>) obj;
         registeredVariables.put(p.getKey(), p.getValue());
@@ -222,7 +221,7 @@ public abstract class AbstractJPAUnitOfWork implements UnitOfWork, EntityManager
 
   protected boolean extractMessages(LinkedList<WrappedMessage> messages) {
     if (!registeredMessages.isEmpty()) {
-      registeredMessages.stream().sorted().forEach(messages::offer);
+      registeredMessages.toList().stream().sorted().forEach(messages::offer);
       registeredMessages.clear();
       return true;
     }
@@ -58,7 +58,7 @@ public class JTARLJPAUnitOfWork extends AbstractJTAJPAUnitOfWork {
 
   @Override
   public void complete(boolean success) {
-    if (success) {
+    if (success && !messageStorage.isSelfDispatching()) {
       int messageSize = sizeOf(storedMessages);
       messageDispatcher.accept(storedMessages.toArray(new Message[messageSize]));
     }
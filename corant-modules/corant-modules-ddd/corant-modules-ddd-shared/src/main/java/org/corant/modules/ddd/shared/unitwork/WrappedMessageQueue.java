@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.ddd.shared.unitwork;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import org.corant.modules.ddd.MergableMessage;
+import org.corant.modules.ddd.Message;
+
+/**
+ * corant-modules-ddd-shared
+ *
+ * <p>
+ * The message queue of the unit of work, the messages are kept in the order in which they were
+ * enqueued, and are indexed by the message class and source, by the source and by the message, so
+ * that the merging of the correlated mergeable messages and the removal of the messages of an
+ * aggregate don't need to scan the whole queue.
+ *
+ * @author bingo 下午4:26:51
+ *
+ */
+final class WrappedMessageQueue implements Iterable<WrappedMessage> {
+
+  static final Logger logger = Logger.getLogger(WrappedMessageQueue.class.getName());
+
+  final Set<WrappedMessage> messages = new LinkedHashSet<>();
+  final Map<List<Object>, Set<WrappedMessage>> correlations = new HashMap<>();
+  final Map<Object, Set<WrappedMessage>> sources = new HashMap<>();
+  final Map<Message, Set<WrappedMessage>> delegates = new HashMap<>();
+
+  static List<Object> correlationKey(WrappedMessage message) {
+    return Arrays.asList(message.delegate.getClass(), message.getSource());
+  }
+
+  static void index(Map<?, Set<WrappedMessage>> index, Object key, WrappedMessage message) {
+    @SuppressWarnings("unchecked")
+    Map<Object, Set<WrappedMessage>> map = (Map<Object, Set<WrappedMessage>>) index;
+    map.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(message);
+  }
+
+  static void unindex(Map<?, Set<WrappedMessage>> index, Object key, WrappedMessage message) {
+    Set<WrappedMessage> indexed = index.get(key);
+    if (indexed != null && indexed.remove(message) && indexed.isEmpty()) {
+      index.remove(key);
+    }
+  }
+
+  public void clear() {
+    messages.clear();
+    correlations.clear();
+    sources.clear();
+    delegates.clear();
+  }
+
+  public boolean isEmpty() {
+    return messages.isEmpty();
+  }
+
+  @Override
+  public Iterator<WrappedMessage> iterator() {
+    return messages.iterator();
+  }
+
+  /**
+   * Enqueue the given message, if the message is mergeable and there is a correlated message (the
+   * same message class and the same source) in the queue that can be merged, the correlated message
+   * is removed and merged into the given message, the given message is enqueued only if the merged
+   * message is valid.
+   *
+   * @param newMsg the message to enqueue
+   *
+   * @see WrappedMessage#isCorrelated(WrappedMessage, WrappedMessage)
+   */
+  public void merge(WrappedMessage newMsg) {
+    if (newMsg.delegate instanceof MergableMessage) {
+      Set<WrappedMessage> correlated = correlations.get(correlationKey(newMsg));
+      WrappedMessage oldMgbMsg = correlated == null ? null : correlated.iterator().next();
+      final MergableMessage older = oldMgbMsg == null ? null : (MergableMessage) oldMgbMsg.delegate;
+      final MergableMessage newer = (MergableMessage) newMsg.delegate;
+      if (older == null || !newer.canMerge(older)) {
+        logger.fine(() -> String.format("Enqueue message %s.", newer));
+        add(newMsg);
+      } else {
+        logger.fine(() -> String.format("Remove message %s from queue.", older));
+        remove(oldMgbMsg);
+        if (newer.merge(older).isValid()) {
+          logger.fine(() -> String.format("Merge message %s to %s and enqueue it.", older, newer));
+          add(newMsg);
+        }
+      }
+    } else {
+      logger.fine(() -> String.format("Enqueue message %s.", newMsg.delegate));
+      add(newMsg);
+    }
+  }
+
+  /**
+   * Remove the messages that the delegate message equals the given message.
+   *
+   * @param message the message to remove
+   */
+  public void removeMessage(Message message) {
+    Set<WrappedMessage> removed = delegates.get(message);
+    if (removed != null) {
+      new ArrayList<>(removed).forEach(this::remove);
+    }
+  }
+
+  /**
+   * Remove the messages that the source equals the given source.
+   *
+   * @param source the source of the messages to remove
+   */
+  public void removeSource(Object source) {
+    Set<WrappedMessage> removed = sources.get(source);
+    if (removed != null) {
+      new ArrayList<>(removed).forEach(this::remove);
+    }
+  }
+
+  public int size() {
+    return messages.size();
+  }
+
+  public List<WrappedMessage> toList() {
+    return new ArrayList<>(messages);
+  }
+
+  void add(WrappedMessage message) {
+    if (messages.add(message)) {
+      if (message.delegate instanceof MergableMessage) {
+        index(correlations, correlationKey(message), message);
+      }
+      index(sources, message.getSource(), message);
+      index(delegates, message.delegate, message);
+    }
+  }
+
+  void remove(WrappedMessage message) {
+    if (messages.remove(message)) {
+      if (message.delegate instanceof MergableMessage) {
+        unindex(correlations, correlationKey(message), message);
+      }
+      unindex(sources, message.getSource(), message);
+      unindex(delegates, message.delegate, message);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2013-2021, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.ddd.shared.message;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.InflaterInputStream;
+import javax.enterprise.inject.Instance;
+import javax.jms.BytesMessage;
+import javax.jms.Destination;
+import javax.jms.JMSContext;
+import javax.jms.JMSProducer;
+import javax.jms.Message;
+import javax.jms.Queue;
+import org.corant.modules.ddd.Message.BinaryMessage;
+import org.corant.modules.jms.artemis.ArtemisZipBinaryMessageMarshaller;
+import org.junit.Test;
+import junit.framework.TestCase;
+
+/**
+ * corant-modules-ddd-shared
+ *
+ * @author bingo 下午12:01:54
+ *
+ */
+public class JMSMessageDispatcherTest extends TestCase {
+
+  /**
+   * The binary marshaller is the Artemis streaming one that is selected when the configuration
+   * property 'corant.jms.artemis.zip-binary-streaming.enable' is true, the mocked producer reads
+   * the payload stream while sending as the Artemis client does.
+   */
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testSendBinaryMessageWithArtemisStreaming() throws Exception {
+    final byte[] payload = "corant binary message payload".getBytes(StandardCharsets.UTF_8);
+    final AtomicBoolean payloadClosed = new AtomicBoolean();
+    final AtomicReference<InputStream> bodyStream = new AtomicReference<>();
+    final AtomicReference<byte[]> sent = new AtomicReference<>();
+
+    BytesMessage jmsMsg = mock(BytesMessage.class);
+    doAnswer(i -> {
+      bodyStream.set(i.getArgument(1));
+      return null;
+    }).when(jmsMsg).setObjectProperty(eq(ArtemisZipBinaryMessageMarshaller.INPUT_STREAM_PROPERTY),
+        any());
+    JMSProducer producer = mock(JMSProducer.class);
+    when(producer.send(any(Destination.class), any(Message.class))).thenAnswer(i -> {
+      assertFalse("The payload stream was closed before sending", payloadClosed.get());
+      sent.set(inflate(bodyStream.get()));
+      return producer;
+    });
+    JMSContext ctx = mock(JMSContext.class);
+    when(ctx.createBytesMessage()).thenReturn(jmsMsg);
+    when(ctx.createQueue("queue")).thenReturn(mock(Queue.class));
+    when(ctx.createProducer()).thenReturn(producer);
+
+    JMSMessageDispatcher dispatcher = new JMSMessageDispatcher() {
+      @Override
+      protected JMSContext obtainJmsContext(String broker) {
+        return ctx;
+      }
+    };
+    dispatcher.destinationResolvers = mock(Instance.class);
+    when(dispatcher.destinationResolvers.isUnsatisfied()).thenReturn(true);
+    dispatcher.preDispatchHandlers = mock(Instance.class);
+    when(dispatcher.preDispatchHandlers.isUnsatisfied()).thenReturn(true);
+    dispatcher.binaryMarshaller = new ArtemisZipBinaryMessageMarshaller();
+
+    BinaryMessage message = () -> new ByteArrayInputStream(payload) {
+      @Override
+      public void close() throws IOException {
+        payloadClosed.set(true);
+        super.close();
+      }
+    };
+    dispatcher.send("broker", false, "queue", Collections.emptyMap(), message);
+
+    assertNotNull(sent.get());
+    assertTrue(Arrays.equals(payload, sent.get()));
+    assertTrue("The payload stream was not closed after sending", payloadClosed.get());
+  }
+
+  static byte[] inflate(InputStream deflated) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream is = new InflaterInputStream(deflated)) {
+      byte[] buffer = new byte[1024];
+      int read;
+      while ((read = is.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return out.toByteArray();
+  }
+}
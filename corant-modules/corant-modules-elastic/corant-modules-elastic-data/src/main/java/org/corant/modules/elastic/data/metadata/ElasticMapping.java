@@ -17,10 +17,13 @@ import static org.corant.shared.util.Assertions.shouldBeFalse;
 import static org.corant.shared.util.Assertions.shouldNotNull;
 import static org.corant.shared.util.Empties.isEmpty;
 import static org.corant.shared.util.Maps.mapOf;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.corant.modules.elastic.data.metadata.resolver.ElasticObjectMapper;
 import org.corant.modules.elastic.data.model.ElasticDocument;
 import org.elasticsearch.index.VersionType;
@@ -38,6 +41,9 @@ import org.elasticsearch.index.VersionType;
  */
 public class ElasticMapping implements Iterable<ElasticMapping> {
 
+  static final byte[] NAME_KEY = "\"name\":".getBytes(StandardCharsets.UTF_8);
+  static final byte[] PARENT_KEY = "\"parent\":".getBytes(StandardCharsets.UTF_8);
+
   private final Class<?> documentClass;
   private final boolean versioned;
   private final VersionType versionType;
@@ -45,6 +51,8 @@ public class ElasticMapping implements Iterable<ElasticMapping> {
   private final String name;
   private final String joinFiledName;
   private final boolean root;
+  private final byte[] joinSource;
+  private final Map<Class<?>, Boolean> joinConflicts = new ConcurrentHashMap<>();
 
   /**
    * @param documentClass
@@ -61,6 +69,7 @@ public class ElasticMapping implements Iterable<ElasticMapping> {
     this.name = name;
     this.versionType = versionType;
     versioned = versionType != VersionType.INTERNAL;
+    joinSource = joinFiledName != null ? resolveJoinSource() : null;
   }
 
   @SuppressWarnings("unchecked")
@@ -160,4 +169,54 @@ public class ElasticMapping implements Iterable<ElasticMapping> {
     return convertedMap;
   }
 
+  /**
+   * Convert elastic document to JSON source bytes directly, without building the intermediate map
+   * object, the content is the same as the map object returned by {@link #toMap(ElasticDocument)}.
+   * The join field source of the parent-child relationship is precomputed with the mapping.
+   *
+   * @param doc the document to convert
+   * @return the JSON source bytes
+   */
+  public byte[] toSource(ElasticDocument doc) {
+    byte[] source = ElasticObjectMapper.toBytes(doc);
+    int len = source.length;
+    if (joinSource == null || len <= 2 || source[0] != '{' || source[len - 1] != '}') {
+      return source;
+    }
+    shouldBeFalse(joinConflicts.computeIfAbsent(doc.getClass(),
+        c -> ElasticObjectMapper.getPropertyNames(c).contains(getJoinFiledName())),
+        "Join field name and property name conflicts %s.", getJoinFiledName());
+    ByteArrayOutputStream out = new ByteArrayOutputStream(len + joinSource.length + 64);
+    out.write(source, 0, len - 1);
+    out.write(joinSource, 0, joinSource.length);
+    if (!isRoot()) {
+      String parentId = shouldNotNull(doc.getPId(), "Parent id can not null");
+      byte[] parent = ElasticObjectMapper.toBytes(parentId);
+      out.write(',');
+      out.write(PARENT_KEY, 0, PARENT_KEY.length);
+      out.write(parent, 0, parent.length);
+    }
+    out.write('}');
+    out.write('}');
+    return out.toByteArray();
+  }
+
+  /**
+   * Returns the beginning of the join field source that is appended to the document source, it
+   * contains the join field name and the mapping name, and the parent id is appended to it for the
+   * child document.
+   */
+  private byte[] resolveJoinSource() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] field = ElasticObjectMapper.toBytes(getJoinFiledName());
+    byte[] value = ElasticObjectMapper.toBytes(getName());
+    out.write(',');
+    out.write(field, 0, field.length);
+    out.write(':');
+    out.write('{');
+    out.write(NAME_KEY, 0, NAME_KEY.length);
+    out.write(value, 0, value.length);
+    return out.toByteArray();
+  }
+
 }
@@ -21,13 +21,17 @@ import java.util.Currency;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.stream.Collectors;
 import org.corant.shared.exception.CorantRuntimeException;
 import org.corant.shared.util.Primitives;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
@@ -81,6 +85,17 @@ public class ElasticObjectMapper {
     SIMPLE_TYPE_WRAPPER_MAP.remove(type);
   }
 
+  /**
+   * Returns the serialized property names of the given class.
+   *
+   * @param cls the class to introspect
+   * @return the property names
+   */
+  public static Set<String> getPropertyNames(Class<?> cls) {
+    return ESJOM.getSerializationConfig().introspect(ESJOM.constructType(cls)).findProperties()
+        .stream().map(BeanPropertyDefinition::getName).collect(Collectors.toSet());
+  }
+
   public static boolean isSimpleType(Class<?> type) {
     Class<?> useType = type.isArray() ? type.getComponentType() : type;
     return SIMPLE_TYPE_WRAPPER_MAP.containsKey(useType)
@@ -92,6 +107,20 @@ public class ElasticObjectMapper {
     SIMPLE_TYPE_WRAPPER_MAP.put(type, clazz);
   }
 
+  /**
+   * Serialize the given object to JSON bytes directly, without converting it to a map.
+   *
+   * @param object the object to serialize
+   * @return the JSON bytes
+   */
+  public static byte[] toBytes(Object object) {
+    try {
+      return ESJOM.writeValueAsBytes(object);
+    } catch (JsonProcessingException e) {
+      throw new CorantRuntimeException(e);
+    }
+  }
+
   public static Map<String, Object> toMap(Object document) {
     if (document != null) {
       return ESJOM.convertValue(document, new TypeReference<Map<String, Object>>() {});
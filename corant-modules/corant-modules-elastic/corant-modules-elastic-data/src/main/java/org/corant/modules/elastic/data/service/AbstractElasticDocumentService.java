@@ -84,7 +84,7 @@ public abstract class AbstractElasticDocumentService implements ElasticDocumentS
       List<ElasticDocument> docs = entry.getValue();
       for (ElasticDocument doc : docs) {
         requestBuilder.add(indexRequestBuilder(indexing.getName(), doc.getId(), doc.getRId(),
-            mapping.toMap(doc), false, 0L, null).request());
+            mapping.toSource(doc)).request());
       }
     }
     docMap.clear();
@@ -187,6 +187,21 @@ public abstract class AbstractElasticDocumentService implements ElasticDocumentS
     return indexRequestBuilderx(indexName, id, routingId, null, obj, flush, version, versionType);
   }
 
+  /**
+   * Build the index request builder with the JSON source bytes, no flush immediately and no version
+   * control, generally used for bulk indexing.
+   */
+  protected IndexRequestBuilder indexRequestBuilder(String indexName, String id, String routingId,
+      byte[] source) {
+    IndexRequestBuilder rb = getTransportClient()
+        .prepareIndex(indexName, Elastic6Constants.TYP_NME, id)
+        .setSource(source, XContentType.JSON);
+    if (isNotBlank(routingId)) {
+      rb.setRouting(routingId);
+    }
+    return rb;
+  }
+
   protected IndexRequestBuilder indexRequestBuilderx(String indexName, String id, String routingId,
       String parentId, Map<?, ?> obj, boolean flush, long version, VersionType versionType) {
     IndexRequestBuilder rb =
@@ -0,0 +1,594 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.elastic.data.service;
+
+import static org.corant.shared.util.Assertions.shouldBeTrue;
+import static org.corant.shared.util.Assertions.shouldNotNull;
+import static org.corant.shared.util.Maps.getMapString;
+import static org.corant.shared.util.Objects.defaultObject;
+import static org.corant.shared.util.Strings.isNotBlank;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.corant.modules.elastic.data.Elastic6Constants;
+import org.corant.modules.elastic.data.metadata.ElasticIndexing;
+import org.corant.modules.elastic.data.metadata.ElasticMapping;
+import org.corant.modules.elastic.data.model.ElasticDocument;
+import org.corant.modules.elastic.data.model.ElasticVersionedDocument;
+import org.corant.shared.exception.CorantRuntimeException;
+import org.corant.shared.retry.BackoffStrategy;
+import org.corant.shared.retry.BackoffStrategy.BackoffAlgorithm;
+import org.corant.shared.retry.BackoffStrategy.BackoffStrategyBuilder;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.rest.RestStatus;
+
+/**
+ * corant-modules-elastic-data
+ *
+ * <p>
+ * A long-lived bulk processor that accepts the document write requests continuously and sends them
+ * to the cluster in batches. The current batch is flushed when the number of the actions or the
+ * estimated size in bytes reaches the limits, or when the flush interval elapses. At most
+ * {@code concurrentRequests} batches are executed concurrently and at most {@code queueCapacity}
+ * flushed batches wait for execution, when the limits are reached, the callers that add requests
+ * are blocked until an executing batch is completed, which provides the backpressure to the
+ * callers.
+ *
+ * <p>
+ * The items rejected by the cluster (status 429) are retried with the back-off strategy until the
+ * max retry attempts are reached, the other failed items are not retried. The execution result of
+ * each batch is reported to the listener, and the cumulative counts can be obtained from the
+ * processor.
+ *
+ * <p>
+ * Note: The processor must be closed after use, the close method flushes the current batch and
+ * waits for the executing batches to be completed.
+ *
+ * @see ElasticDocumentService#bulkProcessor()
+ * @author bingo 下午3:16:42
+ *
+ */
+public class ElasticBulkProcessor implements AutoCloseable {
+
+  protected static final Logger logger = Logger.getLogger(ElasticBulkProcessor.class.getName());
+
+  protected final ElasticDocumentService service;
+  protected final int bulkActions;
+  protected final long bulkSizeInBytes;
+  protected final int maxRetries;
+  protected final BackoffStrategy backoffStrategy;
+  protected final RefreshPolicy refreshPolicy;
+  protected final Duration closeTimeout;
+  protected final Consumer<BulkResult> listener;
+  protected final int totalPermits;
+  protected final Semaphore permits;
+  protected final ExecutorService executor;
+  protected final ScheduledExecutorService scheduler;
+
+  protected final AtomicLong executionIds = new AtomicLong();
+  protected final LongAdder executedBulks = new LongAdder();
+  protected final LongAdder succeededActions = new LongAdder();
+  protected final LongAdder failedActions = new LongAdder();
+  protected final LongAdder retriedActions = new LongAdder();
+
+  protected BulkRequest current;
+  protected volatile boolean closed;
+
+  protected ElasticBulkProcessor(ElasticBulkProcessorBuilder builder) {
+    service = shouldNotNull(builder.service);
+    bulkActions = builder.bulkActions;
+    bulkSizeInBytes = builder.bulkSizeInBytes;
+    maxRetries = builder.maxRetries;
+    backoffStrategy = defaultObject(builder.backoffStrategy, BackoffStrategy.NON_BACKOFF_STRATEGY);
+    refreshPolicy = defaultObject(builder.refreshPolicy, RefreshPolicy.NONE);
+    closeTimeout = defaultObject(builder.closeTimeout, Duration.ofSeconds(30));
+    listener = defaultObject(builder.listener, this::logResult);
+    totalPermits = builder.concurrentRequests + builder.queueCapacity;
+    permits = new Semaphore(totalPermits);
+    executor = Executors.newFixedThreadPool(builder.concurrentRequests);
+    current = newBulkRequest();
+    if (builder.flushInterval != null && !builder.flushInterval.isZero()) {
+      final long ms = Math.max(builder.flushInterval.toMillis(), 1L);
+      scheduler = Executors.newSingleThreadScheduledExecutor();
+      scheduler.scheduleWithFixedDelay(this::flushInterval, ms, ms, TimeUnit.MILLISECONDS);
+    } else {
+      scheduler = null;
+    }
+  }
+
+  public static ElasticBulkProcessorBuilder builder(ElasticDocumentService service) {
+    return new ElasticBulkProcessorBuilder(service);
+  }
+
+  /**
+   * Add the given write request to the current batch, if the current batch is full, it is flushed
+   * and the caller may be blocked until there are available execution permits.
+   *
+   * @param request the write request to add
+   * @return this processor
+   */
+  public ElasticBulkProcessor add(DocWriteRequest<?> request) {
+    shouldNotNull(request);
+    synchronized (this) {
+      ensureOpen();
+      current.add(request);
+      if (current.numberOfActions() >= bulkActions
+          || bulkSizeInBytes > 0 && current.estimatedSizeInBytes() >= bulkSizeInBytes) {
+        executeCurrent();
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Add the given document to the current batch, the index name and the mapping are resolved with
+   * the document class.
+   *
+   * @param document the document to index
+   * @return this processor
+   *
+   * @see ElasticDocumentService#index(ElasticDocument, boolean)
+   */
+  public ElasticBulkProcessor add(ElasticDocument document) {
+    Class<?> docCls = shouldNotNull(document).getClass();
+    ElasticIndexing indexing = shouldNotNull(service.resolveIndexing(docCls));
+    ElasticMapping mapping = shouldNotNull(service.resolveMapping(docCls));
+    IndexRequest request =
+        new IndexRequest(indexing.getName(), Elastic6Constants.TYP_NME, document.getId())
+            .source(mapping.toSource(document), XContentType.JSON);
+    if (isNotBlank(document.getRId())) {
+      request.routing(document.getRId());
+    }
+    if (document instanceof ElasticVersionedDocument) {
+      VersionType versionType = defaultObject(mapping.getVersionType(), VersionType.INTERNAL);
+      if (versionType != VersionType.INTERNAL) {
+        long version = ((ElasticVersionedDocument) document).getVn();
+        shouldBeTrue(version > 0);
+        request.version(version).versionType(versionType);
+      }
+    }
+    return add(request);
+  }
+
+  /**
+   * Add the given document map to the current batch, the document id is the value of the key
+   * {@code id} of the map.
+   *
+   * @param indexName the document index name
+   * @param obj the document map to index
+   * @return this processor
+   */
+  @SuppressWarnings("unchecked")
+  public ElasticBulkProcessor add(String indexName, Map<?, ?> obj) {
+    return add(new IndexRequest(indexName, Elastic6Constants.TYP_NME, getMapString(obj, "id"))
+        .source((Map<String, ?>) obj, XContentType.SMILE));
+  }
+
+  /**
+   * Close the processor, the current batch is flushed and then wait for the executing batches to be
+   * completed within the given timeout.
+   *
+   * @param timeout the timeout to wait
+   * @return true if all batches are completed within the given timeout
+   */
+  public boolean awaitClose(Duration timeout) {
+    synchronized (this) {
+      if (closed) {
+        return true;
+      }
+      closed = true;
+      if (scheduler != null) {
+        scheduler.shutdownNow();
+      }
+      if (current.numberOfActions() > 0) {
+        executeCurrent();
+      }
+    }
+    try {
+      if (permits.tryAcquire(totalPermits, timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        permits.release(totalPermits);
+        return true;
+      }
+      logger.log(Level.WARNING, () -> "Close the elastic bulk processor timeout!");
+      return false;
+    } catch (InterruptedException e) {
+      logger.log(Level.WARNING, e, () -> "Can not close the elastic bulk processor.");
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Override
+  public void close() {
+    awaitClose(closeTimeout);
+  }
+
+  /**
+   * Flush the current batch if it is not empty, the caller may be blocked until there are available
+   * execution permits.
+   */
+  public synchronized void flush() {
+    ensureOpen();
+    if (current.numberOfActions() > 0) {
+      executeCurrent();
+    }
+  }
+
+  public long getExecutedBulks() {
+    return executedBulks.sum();
+  }
+
+  public long getFailedActions() {
+    return failedActions.sum();
+  }
+
+  public long getRetriedActions() {
+    return retriedActions.sum();
+  }
+
+  public long getSucceededActions() {
+    return succeededActions.sum();
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  protected BulkResult doExecute(long executionId, BulkRequest request) {
+    final long startTime = System.currentTimeMillis();
+    int succeeded = 0;
+    int failed = 0;
+    int retried = 0;
+    int attempts = 0;
+    Throwable cause = null;
+    BulkRequest pending = request;
+    while (pending != null) {
+      BulkRequest rejected = null;
+      try {
+        BulkResponse response = service.getTransportClient().bulk(pending).actionGet();
+        for (BulkItemResponse item : response.getItems()) {
+          if (!item.isFailed()) {
+            succeeded++;
+          } else if (item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS
+              && attempts < maxRetries) {
+            if (rejected == null) {
+              rejected = newBulkRequest();
+            }
+            rejected.add(pending.requests().get(item.getItemId()));
+          } else {
+            failed++;
+            logger.log(Level.WARNING, item.getFailure().getCause(), item::getFailureMessage);
+          }
+        }
+      } catch (RuntimeException e) {
+        if (isRejected(e) && attempts < maxRetries) {
+          rejected = pending;
+        } else {
+          failed += pending.numberOfActions();
+          cause = e;
+        }
+      }
+      if (rejected != null) {
+        attempts++;
+        retried += rejected.numberOfActions();
+        if (!backoff(attempts)) {
+          failed += rejected.numberOfActions();
+          rejected = null;
+        }
+      }
+      pending = rejected;
+    }
+    executedBulks.increment();
+    succeededActions.add(succeeded);
+    failedActions.add(failed);
+    retriedActions.add(retried);
+    return new BulkResult(executionId, request.numberOfActions(), request.estimatedSizeInBytes(),
+        succeeded, failed, retried, System.currentTimeMillis() - startTime, cause);
+  }
+
+  protected void ensureOpen() {
+    if (closed) {
+      throw new CorantRuntimeException("The elastic bulk processor has been closed!");
+    }
+  }
+
+  /**
+   * Execute the current batch asynchronously, the caller is blocked until there is an available
+   * execution permit. The current batch is swapped out only after the permit is acquired, and is
+   * restored if it can't be executed, so that no request is dropped. Must be called while holding
+   * the lock of this processor.
+   */
+  protected void executeCurrent() {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CorantRuntimeException(e);
+    }
+    final BulkRequest request = swap();
+    final long executionId = executionIds.incrementAndGet();
+    try {
+      executor.execute(() -> {
+        try {
+          listener.accept(doExecute(executionId, request));
+        } catch (RuntimeException e) {
+          logger.log(Level.WARNING, e,
+              () -> String.format("Execute the elastic bulk %s occurred error!", executionId));
+        } finally {
+          permits.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      current = request;
+      permits.release();
+      throw new CorantRuntimeException(e);
+    }
+  }
+
+  protected void flushInterval() {
+    try {
+      synchronized (this) {
+        if (!closed && current.numberOfActions() > 0) {
+          executeCurrent();
+        }
+      }
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, e, () -> "Flush the elastic bulk processor occurred error!");
+    }
+  }
+
+  protected boolean isRejected(Throwable throwable) {
+    return throwable instanceof RejectedExecutionException
+        || ExceptionsHelper.status(throwable) == RestStatus.TOO_MANY_REQUESTS;
+  }
+
+  protected void logResult(BulkResult result) {
+    if (result.getFailed() > 0) {
+      logger.log(Level.WARNING, result.getCause(), result::toString);
+    } else {
+      logger.fine(result::toString);
+    }
+  }
+
+  protected BulkRequest newBulkRequest() {
+    return new BulkRequest().setRefreshPolicy(refreshPolicy);
+  }
+
+  protected BulkRequest swap() {
+    BulkRequest request = current;
+    current = newBulkRequest();
+    return request;
+  }
+
+  boolean backoff(int attempts) {
+    long ms = backoffStrategy.computeBackoffMillis(attempts);
+    if (ms > 0) {
+      try {
+        Thread.sleep(ms);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * corant-modules-elastic-data
+   *
+   * @author bingo 下午3:17:08
+   *
+   */
+  public static class BulkResult {
+
+    protected final long executionId;
+    protected final int actions;
+    protected final long sizeInBytes;
+    protected final int succeeded;
+    protected final int failed;
+    protected final int retried;
+    protected final long tookMillis;
+    protected final Throwable cause;
+
+    protected BulkResult(long executionId, int actions, long sizeInBytes, int succeeded, int failed,
+        int retried, long tookMillis, Throwable cause) {
+      this.executionId = executionId;
+      this.actions = actions;
+      this.sizeInBytes = sizeInBytes;
+      this.succeeded = succeeded;
+      this.failed = failed;
+      this.retried = retried;
+      this.tookMillis = tookMillis;
+      this.cause = cause;
+    }
+
+    public int getActions() {
+      return actions;
+    }
+
+    /**
+     * Returns the exception that causes the whole batch to fail, or null.
+     */
+    public Throwable getCause() {
+      return cause;
+    }
+
+    public long getExecutionId() {
+      return executionId;
+    }
+
+    public int getFailed() {
+      return failed;
+    }
+
+    /**
+     * Returns the number of the retried actions, an action may be counted repeatedly if it is
+     * retried multiple times.
+     */
+    public int getRetried() {
+      return retried;
+    }
+
+    public long getSizeInBytes() {
+      return sizeInBytes;
+    }
+
+    public int getSucceeded() {
+      return succeeded;
+    }
+
+    public long getTookMillis() {
+      return tookMillis;
+    }
+
+    @Override
+    public String toString() {
+      return "BulkResult [executionId=" + executionId + ", actions=" + actions + ", sizeInBytes="
+          + sizeInBytes + ", succeeded=" + succeeded + ", failed=" + failed + ", retried="
+          + retried + ", tookMillis=" + tookMillis + "]";
+    }
+
+  }
+
+  /**
+   * corant-modules-elastic-data
+   *
+   * @author bingo 下午3:17:25
+   *
+   */
+  public static class ElasticBulkProcessorBuilder {
+
+    final ElasticDocumentService service;
+    int bulkActions = 1000;
+    long bulkSizeInBytes = 5L * 1024 * 1024;
+    Duration flushInterval;
+    int concurrentRequests = 1;
+    int queueCapacity = 1;
+    int maxRetries = 3;
+    BackoffStrategy backoffStrategy =
+        new BackoffStrategyBuilder().algorithm(BackoffAlgorithm.EXPO_EQUAL_JITTER)
+            .baseDuration(Duration.ofMillis(50)).maxDuration(Duration.ofSeconds(5)).build();
+    RefreshPolicy refreshPolicy = RefreshPolicy.NONE;
+    Duration closeTimeout = Duration.ofSeconds(30);
+    Consumer<BulkResult> listener;
+
+    protected ElasticBulkProcessorBuilder(ElasticDocumentService service) {
+      this.service = shouldNotNull(service);
+    }
+
+    /**
+     * The back-off strategy used to retry the rejected items, default is the capped exponential
+     * back-off with equal jitter that the base duration is 50ms and the max duration is 5s.
+     */
+    public ElasticBulkProcessorBuilder backoffStrategy(BackoffStrategy backoffStrategy) {
+      this.backoffStrategy = backoffStrategy;
+      return this;
+    }
+
+    public ElasticBulkProcessor build() {
+      return new ElasticBulkProcessor(this);
+    }
+
+    /**
+     * The max number of the actions of a batch, default is 1000.
+     */
+    public ElasticBulkProcessorBuilder bulkActions(int bulkActions) {
+      shouldBeTrue(bulkActions > 0, "The bulk actions must greater than 0!");
+      this.bulkActions = bulkActions;
+      return this;
+    }
+
+    /**
+     * The max estimated size in bytes of a batch, default is 5MB, non-positive means no limit.
+     */
+    public ElasticBulkProcessorBuilder bulkSizeInBytes(long bulkSizeInBytes) {
+      this.bulkSizeInBytes = bulkSizeInBytes;
+      return this;
+    }
+
+    public ElasticBulkProcessorBuilder closeTimeout(Duration closeTimeout) {
+      this.closeTimeout = closeTimeout;
+      return this;
+    }
+
+    /**
+     * The number of the batches that can be executed concurrently, default is 1.
+     */
+    public ElasticBulkProcessorBuilder concurrentRequests(int concurrentRequests) {
+      shouldBeTrue(concurrentRequests > 0, "The concurrent requests must greater than 0!");
+      this.concurrentRequests = concurrentRequests;
+      return this;
+    }
+
+    /**
+     * The interval to flush the current batch, default is null means no interval flushing.
+     */
+    public ElasticBulkProcessorBuilder flushInterval(Duration flushInterval) {
+      this.flushInterval = flushInterval;
+      return this;
+    }
+
+    /**
+     * The listener that receives the execution result of each batch, default is logging the
+     * result.
+     */
+    public ElasticBulkProcessorBuilder listener(Consumer<BulkResult> listener) {
+      this.listener = listener;
+      return this;
+    }
+
+    /**
+     * The max retry attempts of the rejected items, default is 3, 0 means no retry.
+     */
+    public ElasticBulkProcessorBuilder maxRetries(int maxRetries) {
+      shouldBeTrue(maxRetries >= 0, "The max retries can't less than 0!");
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /**
+     * The number of the flushed batches that can wait for execution, default is 1.
+     */
+    public ElasticBulkProcessorBuilder queueCapacity(int queueCapacity) {
+      shouldBeTrue(queueCapacity >= 0, "The queue capacity can't less than 0!");
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    public ElasticBulkProcessorBuilder refreshPolicy(RefreshPolicy refreshPolicy) {
+      this.refreshPolicy = refreshPolicy;
+      return this;
+    }
+  }
+}
@@ -27,6 +27,7 @@ import org.corant.modules.elastic.data.metadata.resolver.ElasticIndexingResolver
 import org.corant.modules.elastic.data.metadata.resolver.ElasticObjectMapper;
 import org.corant.modules.elastic.data.model.ElasticDocument;
 import org.corant.modules.elastic.data.model.ElasticVersionedDocument;
+import org.corant.modules.elastic.data.service.ElasticBulkProcessor.ElasticBulkProcessorBuilder;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
 import org.elasticsearch.client.transport.TransportClient;
@@ -69,6 +70,17 @@ public interface ElasticDocumentService {
    */
   int bulkIndex(String indexName, List<Map<?, ?>> objs, boolean flush);
 
+  /**
+   * Returns a builder of the long-lived bulk processor that sends the documents to the cluster in
+   * batches continuously, the built processor must be closed after use.
+   *
+   * @return the bulk processor builder
+   * @see ElasticBulkProcessor
+   */
+  default ElasticBulkProcessorBuilder bulkProcessor() {
+    return ElasticBulkProcessor.builder(this);
+  }
+
   /**
    * Delete document indexing by index name and document id, no flush immediately.
    *
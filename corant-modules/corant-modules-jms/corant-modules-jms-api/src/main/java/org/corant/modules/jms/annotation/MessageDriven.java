@@ -57,6 +57,45 @@ public @interface MessageDriven {
    */
   String acknowledge() default "2";
 
+  /**
+   * The maximum number of messages that are received and delivered to the message driven method in
+   * one batch, if the value is greater than 1 the batch mode is enabled. In batch mode, the first
+   * parameter of the method must be a {@link java.util.List} of the message payloads, the messages
+   * of a batch are received and handled in one acknowledgement, which means that in JTA XA, the
+   * whole batch is a transaction; in SESSION_TRANSACTED, the whole batch is committed once; in
+   * CLIENT_ACKNOWLEDGE, the whole batch is acknowledged once. The batch mode does not support
+   * {@link #reply()}. Default value is 1.
+   *
+   * <p>
+   * <b>Note:</b> The final value type is <b>integer</b> type; in order to support configurability,
+   * the string is used as the value type of annotation property, and the value will eventually be
+   * converted to integer type. If the value of this property uses the <b>"${...}"</b> expression,
+   * the specific value can be obtained from the system property or configuration, and then convert
+   * it to integer value.
+   *
+   * @see #batchTimeout()
+   * @return batchSize
+   */
+  String batchSize() default "1";
+
+  /**
+   * The maximum time in milliseconds to wait for collecting the rest messages of a batch after the
+   * first message of the batch is received, the batch is delivered when it is full or the time
+   * window is closed. If the value is less than or equal to 0, the batch is delivered as soon as no
+   * more message is immediately available. Only works if {@link #batchSize()} is greater than 1,
+   * default is 0.
+   *
+   * <p>
+   * <b>Note:</b> The final value type is <b>long</b> type; in order to support configurability, the
+   * string is used as the value type of annotation property, and the value will eventually be
+   * converted to long type. If the value of this property uses the <b>"${...}"</b> expression, the
+   * specific value can be obtained from the system property or configuration, and then convert it
+   * to long value.
+   *
+   * @return batchTimeout
+   */
+  String batchTimeout() default "0";
+
   /**
    * Returns the Back-off Algorithm, default is {@link BackoffAlgorithm#FIXED}
    * <p>
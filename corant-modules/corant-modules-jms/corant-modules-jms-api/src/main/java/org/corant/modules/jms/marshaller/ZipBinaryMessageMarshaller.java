@@ -17,21 +17,22 @@ import static org.corant.modules.jms.JMSNames.MSG_MARSHAL_SCHEMA_ZIP_BINARY;
 import static org.corant.shared.util.Assertions.shouldBeTrue;
 import static org.corant.shared.util.Assertions.shouldInstanceOf;
 import static org.corant.shared.util.Compressors.compress;
-import static org.corant.shared.util.Compressors.decompress;
 import static org.corant.shared.util.Iterables.iterableOf;
-import static org.corant.shared.util.Streams.copy;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Named;
 import javax.jms.BytesMessage;
 import javax.jms.JMSContext;
 import javax.jms.JMSException;
 import javax.jms.Message;
+import javax.jms.MessageEOFException;
 import javax.jms.MessageFormatRuntimeException;
 import javax.jms.Session;
 import org.corant.shared.exception.CorantRuntimeException;
@@ -40,26 +41,45 @@ import org.corant.shared.resource.InputStreamResource;
 /**
  * corant-modules-jms-api
  *
+ * <p>
+ * The zlib compressed binary message marshaller. The payload input stream is deflated directly
+ * into the bytes message body chunk by chunk, and the body of the received message is inflated
+ * lazily while the returned {@link InputStreamResource} is being read, so the payload is never
+ * materialized on heap by the marshaller.
+ *
+ * <p>
+ * Note: Since the body is read lazily, the returned {@link InputStreamResource} is only readable
+ * while the message is being handled, once the message handler returns the message may be
+ * acknowledged and its body released, the handler should copy the payload if it is needed
+ * afterwards.
+ *
  * @author bingo 上午11:36:52
  *
  */
 @ApplicationScoped
 @Named(MSG_MARSHAL_SCHEMA_ZIP_BINARY)
 public class ZipBinaryMessageMarshaller implements MessageMarshaller {
+
+  protected static final int BUFFER_SIZE = 8192;
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The returned resource reads the message body lazily, it must be consumed before the message
+   * handling completes.
+   */
   @SuppressWarnings("unchecked")
   @Override
   public <T> T deserialize(Message message, Class<T> clazz) {
     shouldBeTrue(InputStreamResource.class.isAssignableFrom(clazz));
     BytesMessage bmsg = shouldInstanceOf(message, BytesMessage.class);
     try {
-      byte[] data = new byte[(int) bmsg.getBodyLength()];
-      bmsg.readBytes(data);
       Map<String, Object> metas = new HashMap<>();
       for (Object n : iterableOf(bmsg.getPropertyNames())) {
         metas.put(n.toString(), bmsg.getObjectProperty(n.toString()));
       }
-      return (T) new InputStreamResource(metas, new ByteArrayInputStream(decompress(data)));
-    } catch (JMSException | IOException e) {
+      return (T) new InputStreamResource(metas, readBody(bmsg));
+    } catch (JMSException e) {
       throw new CorantRuntimeException(e);
     }
   }
@@ -80,13 +100,140 @@ public class ZipBinaryMessageMarshaller implements MessageMarshaller {
   }
 
   protected Message doSerialize(BytesMessage message, Object object) {
-    try (ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
-      copy(shouldInstanceOf(object, InputStream.class), buffer);
-      byte[] bytes = compress(buffer.toByteArray());
-      message.writeBytes(bytes);
+    try {
+      writeBody(message, shouldInstanceOf(object, InputStream.class));
       return resolveSchemaProperty(message, MSG_MARSHAL_SCHEMA_ZIP_BINARY);
     } catch (JMSException | IOException e) {
       throw new MessageFormatRuntimeException(e.getMessage());
     }
   }
+
+  /**
+   * Returns the lazily inflated input stream of the given message body, the inflater is released
+   * when the returned stream is closed.
+   *
+   * @param message the message to read
+   * @throws JMSException if the message body can't be reset
+   */
+  protected InputStream readBody(BytesMessage message) throws JMSException {
+    message.reset();
+    final Inflater inflater = new Inflater();
+    return new InflaterInputStream(new BytesMessageInputStream(message), inflater, BUFFER_SIZE) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          inflater.end();
+        }
+      }
+    };
+  }
+
+  /**
+   * Deflate the given input stream into the given message body chunk by chunk. Subclasses may
+   * override this method to use the provider specific large message streaming.
+   *
+   * @param message the message to write
+   * @param inputStream the payload input stream
+   * @throws JMSException if the message body can't be written
+   * @throws IOException if the payload input stream can't be read
+   */
+  protected void writeBody(BytesMessage message, InputStream inputStream)
+      throws JMSException, IOException {
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    try {
+      compress(inputStream, new BytesMessageOutputStream(message), deflater, BUFFER_SIZE, false);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * corant-modules-jms-api
+   *
+   * <p>
+   * An input stream that reads the body of the bytes message.
+   *
+   * @author bingo 上午11:36:52
+   *
+   */
+  protected static class BytesMessageInputStream extends InputStream {
+
+    protected final BytesMessage message;
+    protected byte[] buffer;
+
+    protected BytesMessageInputStream(BytesMessage message) {
+      this.message = message;
+    }
+
+    @Override
+    public int read() throws IOException {
+      try {
+        return message.readUnsignedByte();
+      } catch (MessageEOFException e) {
+        return -1;
+      } catch (JMSException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      try {
+        if (off == 0) {
+          return message.readBytes(b, len);
+        }
+        if (buffer == null || buffer.length < len) {
+          buffer = new byte[Math.max(len, BUFFER_SIZE)];
+        }
+        int read = message.readBytes(buffer, len);
+        if (read > 0) {
+          System.arraycopy(buffer, 0, b, off, read);
+        }
+        return read;
+      } catch (JMSException e) {
+        throw new IOException(e);
+      }
+    }
+  }
+
+  /**
+   * corant-modules-jms-api
+   *
+   * <p>
+   * An output stream that writes to the body of the bytes message.
+   *
+   * @author bingo 上午11:36:52
+   *
+   */
+  protected static class BytesMessageOutputStream extends OutputStream {
+
+    protected final BytesMessage message;
+
+    protected BytesMessageOutputStream(BytesMessage message) {
+      this.message = message;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      try {
+        message.writeBytes(b, off, len);
+      } catch (JMSException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      try {
+        message.writeByte((byte) b);
+      } catch (JMSException e) {
+        throw new IOException(e);
+      }
+    }
+  }
 }
@@ -26,10 +26,13 @@ import static org.corant.shared.util.Lists.newArrayList;
 import static org.corant.shared.util.Maps.immutableMapOf;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import javax.jms.Message;
 import org.corant.modules.jms.annotation.MessageDriven;
 import org.corant.shared.retry.BackoffStrategy.BackoffAlgorithm;
 
@@ -49,6 +52,10 @@ public class MessageDrivenMetaData {
 
   private final int acknowledge;
 
+  private final int batchSize;
+
+  private final long batchTimeout;
+
   private final BackoffAlgorithm brokenBackoffAlgo;
 
   private final double brokenBackoffFactor;
@@ -80,9 +87,9 @@ public class MessageDrivenMetaData {
   private final boolean xa;
 
   public MessageDrivenMetaData(Class<?> beanClass, Annotation[] beanQualifiers, Method beanMethod,
-      int acknowledge, BackoffAlgorithm brokenBackoffAlgo, double brokenBackoffFactor,
-      String brokenDuration, int cacheLevel, int failureThreshold, long loopIntervalMs,
-      String maxBrokenDuration, int receiveThreshold, long receiveTimeout,
+      int acknowledge, int batchSize, long batchTimeout, BackoffAlgorithm brokenBackoffAlgo,
+      double brokenBackoffFactor, String brokenDuration, int cacheLevel, int failureThreshold,
+      long loopIntervalMs, String maxBrokenDuration, int receiveThreshold, long receiveTimeout,
       Collection<MessageReplyMetaData> reply, String selector, String[] specifiedSelectors,
       int tryThreshold, int txTimeout, boolean xa) {
     this.beanClass = beanClass;
@@ -90,6 +97,8 @@ public class MessageDrivenMetaData {
         beanQualifiers == null ? EMPTY_ARRAY : Arrays.copyOf(beanQualifiers, beanQualifiers.length);
     this.beanMethod = beanMethod;
     this.acknowledge = acknowledge;
+    this.batchSize = batchSize;
+    this.batchTimeout = batchTimeout;
     this.brokenBackoffAlgo = brokenBackoffAlgo;
     this.brokenBackoffFactor = brokenBackoffFactor;
     this.brokenDuration = MetaDataPropertyResolver.get(brokenDuration, String.class);
@@ -115,7 +124,8 @@ public class MessageDrivenMetaData {
     Method beanMethod = shouldNotNull(method);
     MessageDriven annotation = shouldNotNull(method.getAnnotation(MessageDriven.class));
     return new MessageDrivenMetaData(beanMethod.getDeclaringClass(), qualifiers, beanMethod,
-        getInt(annotation.acknowledge()),
+        getInt(annotation.acknowledge()), getInt(annotation.batchSize()),
+        getLong(annotation.batchTimeout()),
         get(annotation.brokenBackoffAlgo(), BackoffAlgorithm.class),
         getDouble(annotation.brokenBackoffFactor()), getString(annotation.brokenDuration()),
         getInt(annotation.cacheLevel()), getInt(annotation.failureThreshold()),
@@ -126,10 +136,43 @@ public class MessageDrivenMetaData {
         getInt(annotation.txTimeout()), getBoolean(annotation.xa()));
   }
 
+  /**
+   * Returns the payload class of the given message driven method, in batch mode the payload class
+   * is the element type of the list parameter, if the element type can't be resolved returns
+   * {@link Message} class; otherwise the payload class is the first parameter type.
+   *
+   * @param method the message driven method
+   * @return the payload class
+   */
+  public static Class<?> resolvePayloadClass(Method method) {
+    MessageDriven annotation = method.getAnnotation(MessageDriven.class);
+    if (annotation != null && getInt(annotation.batchSize()) > 1) {
+      Type type = method.getGenericParameterTypes()[0];
+      if (type instanceof ParameterizedType) {
+        Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+        if (elementType instanceof Class) {
+          return (Class<?>) elementType;
+        } else if (elementType instanceof ParameterizedType) {
+          return (Class<?>) ((ParameterizedType) elementType).getRawType();
+        }
+      }
+      return Message.class;
+    }
+    return method.getParameterTypes()[0];
+  }
+
   public int getAcknowledge() {
     return acknowledge;
   }
 
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public long getBatchTimeout() {
+    return batchTimeout;
+  }
+
   public Class<?> getBeanClass() {
     return beanClass;
   }
@@ -198,6 +241,10 @@ public class MessageDrivenMetaData {
     return txTimeout;
   }
 
+  public boolean isBatch() {
+    return batchSize > 1;
+  }
+
   public boolean isXa() {
     return xa;
   }
@@ -13,6 +13,8 @@
  */
 package org.corant.modules.jms.receive;
 
+import java.util.ArrayList;
+import java.util.List;
 import javax.jms.Message;
 import javax.jms.Session;
 
@@ -30,4 +32,20 @@ public interface ManagedMessageReceivingHandler {
 
   Object onMessage(Message message, Session session);
 
+  /**
+   * Handle a batch of messages that received in one acknowledgement, default handles the messages
+   * one by one and returns the results list.
+   *
+   * @param messages the received messages
+   * @param session the session that receives the messages
+   * @return the handling result
+   */
+  default Object onMessages(List<Message> messages, Session session) {
+    List<Object> results = new ArrayList<>(messages.size());
+    for (Message message : messages) {
+      results.add(onMessage(message, session));
+    }
+    return results;
+  }
+
 }
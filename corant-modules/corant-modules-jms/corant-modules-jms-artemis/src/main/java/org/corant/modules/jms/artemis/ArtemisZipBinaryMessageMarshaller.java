@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2013-2021, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.jms.artemis;
+
+import static org.corant.modules.jms.JMSNames.MSG_MARSHAL_SCHEMA_ZIP_BINARY;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import javax.annotation.Priority;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
+import javax.inject.Named;
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import org.corant.modules.jms.marshaller.ZipBinaryMessageMarshaller;
+import org.corant.shared.normal.Priorities;
+import org.corant.shared.service.RequiredConfiguration;
+import org.corant.shared.service.RequiredConfiguration.ValuePredicate;
+
+/**
+ * corant-modules-jms-artemis
+ *
+ * <p>
+ * The zlib compressed binary message marshaller that uses the Artemis large message streaming, the
+ * payload input stream is deflated while the Artemis client sends the message body to the broker in
+ * chunks, so that the multi-hundred-MB payloads are never materialized on the client heap. The
+ * receiving side reads the large message body chunk by chunk through the lazily inflated stream of
+ * {@link ZipBinaryMessageMarshaller}. The message bodies are compatible with
+ * {@link ZipBinaryMessageMarshaller}.
+ *
+ * <p>
+ * The marshaller is opt-in, it replaces {@link ZipBinaryMessageMarshaller} only when the
+ * configuration property {@code corant.jms.artemis.zip-binary-streaming.enable} is true, since the
+ * payload is then read by the Artemis client instead of the marshaller.
+ *
+ * <p>
+ * Note: The payload input stream is read when the message is being sent, so it must not be closed
+ * before the message is sent, the caller owns the stream and should close it after the send
+ * returns.
+ *
+ * @author bingo 下午2:47:10
+ *
+ */
+@ApplicationScoped
+@RequiredConfiguration(key = "corant.jms.artemis.zip-binary-streaming.enable",
+    predicate = ValuePredicate.EQ, type = Boolean.class, value = "true")
+@Alternative
+@Priority(Priorities.MODULES_HIGHER)
+@Named(MSG_MARSHAL_SCHEMA_ZIP_BINARY)
+public class ArtemisZipBinaryMessageMarshaller extends ZipBinaryMessageMarshaller {
+
+  public static final String INPUT_STREAM_PROPERTY = "JMS_AMQ_InputStream";
+
+  @Override
+  protected void writeBody(BytesMessage message, InputStream inputStream)
+      throws JMSException, IOException {
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    message.setObjectProperty(INPUT_STREAM_PROPERTY,
+        new DeflaterInputStream(inputStream, deflater, BUFFER_SIZE) {
+          @Override
+          public void close() throws IOException {
+            try {
+              super.close();
+            } finally {
+              deflater.end();
+            }
+          }
+        });
+  }
+}
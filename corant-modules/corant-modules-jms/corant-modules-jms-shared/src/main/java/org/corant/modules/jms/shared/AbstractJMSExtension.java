@@ -46,6 +46,7 @@ import org.corant.modules.jms.annotation.MessageDriven;
 import org.corant.modules.jms.annotation.MessageReply;
 import org.corant.modules.jms.annotation.MessageSend;
 import org.corant.modules.jms.marshaller.MessageMarshaller;
+import org.corant.modules.jms.metadata.MessageDrivenMetaData;
 import org.corant.shared.exception.CorantRuntimeException;
 import org.corant.shared.normal.Priorities;
 import org.corant.shared.ubiquity.Tuple.Pair;
@@ -121,8 +122,8 @@ public abstract class AbstractJMSExtension implements Extension {
           }
           Set<MessageDestination> mds =
               setOf(method.getAnnotationsByType(MessageDestination.class));
-          Set<MessageDestination> pds =
-              setOf(method.getParameterTypes()[0].getAnnotationsByType(MessageDestination.class));
+          Set<MessageDestination> pds = setOf(MessageDrivenMetaData.resolvePayloadClass(method)
+              .getAnnotationsByType(MessageDestination.class));
           receiveMethods.put(cm, Pair.of(mds, pds));
         });
   }
@@ -16,6 +16,8 @@ package org.corant.modules.jms.shared.receive;
 import static org.corant.context.Beans.find;
 import static org.corant.shared.util.Assertions.shouldNotBlank;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.jms.JMSException;
@@ -25,6 +27,7 @@ import org.corant.context.proxy.ContextualMethodHandler;
 import org.corant.context.security.SecurityContext;
 import org.corant.context.security.SecurityContexts;
 import org.corant.modules.jms.JMSNames;
+import org.corant.modules.jms.metadata.MessageDrivenMetaData;
 import org.corant.modules.jms.receive.ManagedMessageReceivingHandler;
 import org.corant.modules.jms.shared.AbstractJMSExtension;
 import org.corant.modules.jms.shared.context.SecurityContextPropagator;
@@ -50,7 +53,7 @@ public class DefaultMessageHandler implements ManagedMessageReceivingHandler {
       MessageReceivingMediator mediator) {
     method = meta.getMethod();
     config = MessageReceivingExecutorConfig.getExecutorConfig(meta.getConnectionFactoryId());
-    messageClass = method.getMethod().getParameterTypes()[0];
+    messageClass = MessageDrivenMetaData.resolvePayloadClass(method.getMethod());
     propagateSecurityContext = AbstractJMSExtension.getConfig(config.getConnectionFactoryId())
         .isPropagateSecurityContext();
     this.mediator = mediator;
@@ -74,6 +77,34 @@ public class DefaultMessageHandler implements ManagedMessageReceivingHandler {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The payloads of the messages are resolved in order and passed to the message driven method as a
+   * list, the security context is resolved from the first message of the batch.
+   */
+  @SuppressWarnings("resource")
+  @Override
+  public Object onMessages(List<Message> messages, Session session) {
+    try {
+      resolveSecurityContext(messages.get(0));
+      List<Object> payloads = new ArrayList<>(messages.size());
+      for (Message message : messages) {
+        payloads.add(resolvePayload(message));
+      }
+      if (method.getMethod().getParameterCount() > 1) {
+        return method.invoke(payloads, new MessageReceivingSession(session, config));
+      } else {
+        return method.invoke(payloads);
+      }
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException
+        | JMSException e) {
+      throw new CorantRuntimeException(e);
+    } finally {
+      SecurityContexts.setCurrent(null);
+    }
+  }
+
   protected Object resolvePayload(Message message) throws JMSException {
     if (!Message.class.isAssignableFrom(messageClass)) {
       String marshallerName = shouldNotBlank(message.getStringProperty(JMSNames.MSG_MARSHAL_SCHEMA),
@@ -13,9 +13,11 @@
  */
 package org.corant.modules.jms.shared.receive;
 
-import static org.corant.context.Beans.resolve;
-import static org.corant.context.Beans.select;
+import static org.corant.context.BeanLookupCache.resolve;
+import static org.corant.context.BeanLookupCache.selectSorted;
 import static org.corant.shared.util.Strings.isNotBlank;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.jms.Connection;
@@ -35,7 +37,6 @@ import javax.transaction.xa.XAResource;
 import org.corant.modules.jms.receive.ManagedMessageReceiver;
 import org.corant.modules.jms.receive.ManagedMessageReceivingHandler;
 import org.corant.modules.jta.shared.TransactionService;
-import org.corant.shared.ubiquity.Sortable;
 
 /**
  * corant-modules-jms-shared
@@ -65,6 +66,8 @@ public class DefaultMessageReceiver implements ManagedMessageReceiver {
   protected final MessageReceivingMetaData meta;
   protected final int receiveThreshold;
   protected final long receiveTimeout;
+  protected final int batchSize;
+  protected final long batchTimeout;
 
   // workhorse
   protected final ManagedMessageReceivingHandler messageHandler;
@@ -80,7 +83,8 @@ public class DefaultMessageReceiver implements ManagedMessageReceiver {
     this.mediator = mediator;
     receiveThreshold = metaData.getReceiveThreshold();
     receiveTimeout = metaData.getReceiveTimeout();
-
+    batchSize = metaData.getBatchSize();
+    batchTimeout = metaData.getBatchTimeout();
   }
 
   @Override
@@ -110,7 +114,7 @@ public class DefaultMessageReceiver implements ManagedMessageReceiver {
       } else {
         session = this.connection.createSession(meta.getAcknowledge());
       }
-      select(MessageReceivingTaskConfigurator.class).stream().sorted(Sortable::compare)
+      selectSorted(MessageReceivingTaskConfigurator.class)
           .forEach(c -> c.configSession(session, meta));
     }
     // initialize message consumer
@@ -125,7 +129,7 @@ public class DefaultMessageReceiver implements ManagedMessageReceiver {
         } else {
           messageConsumer = session.createConsumer(destination);
         }
-        select(MessageReceivingTaskConfigurator.class).stream().sorted(Sortable::compare)
+        selectSorted(MessageReceivingTaskConfigurator.class)
             .forEach(c -> c.configMessageConsumer(messageConsumer, meta));
       } catch (JMSException je) {
         try {
@@ -151,7 +155,7 @@ public class DefaultMessageReceiver implements ManagedMessageReceiver {
         int rt = receiveThreshold;
         while (--rt >= 0) {
           preConsume();
-          Message message = consume();
+          Message message = batchSize > 1 ? consumeBatch() : consume();
           postConsume(message);
           if (message == null) {
             logger.log(Level.FINE, () -> String.format("No message for now, %s.", meta));
@@ -223,6 +227,52 @@ public class DefaultMessageReceiver implements ManagedMessageReceiver {
     return message;
   }
 
+  /**
+   * Receive a batch of messages and deliver them to the message handler together, the batch is
+   * delivered when it reaches the batch size or the batch time window is closed or no more message
+   * is immediately available if the batch time window is not set. Returns the last message of the
+   * batch which is used to acknowledge the whole batch, or null if no message was received.
+   *
+   * @throws JMSException if receiving or handling the messages occurred error
+   */
+  protected Message consumeBatch() throws JMSException {
+    final Message first;
+    if (receiveTimeout <= 0) {
+      first = messageConsumer.receiveNoWait();
+    } else {
+      first = messageConsumer.receive(receiveTimeout);
+    }
+    if (first == null) {
+      return null;
+    }
+    final List<Message> messages = new ArrayList<>(batchSize);
+    messages.add(first);
+    final long deadline = System.currentTimeMillis() + batchTimeout;
+    while (messages.size() < batchSize) {
+      final Message message;
+      if (batchTimeout <= 0) {
+        message = messageConsumer.receiveNoWait();
+      } else {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          break;
+        }
+        message = messageConsumer.receive(remaining);
+      }
+      if (message == null) {
+        break;
+      }
+      messages.add(message);
+    }
+    logger.log(Level.FINE, () -> String.format("Received %s messages start handling, [%s]",
+        messages.size(), meta));
+    Message last = messages.get(messages.size() - 1);
+    Object result = messageHandler.onMessages(messages, session);
+    mediator.onPostMessageHandled(last, session, result);
+    logger.log(Level.FINE, () -> String.format("Complete messages handling, [%s]", meta));
+    return last;
+  }
+
   protected JMSException generateJMSException(Exception t) {
     if (t instanceof JMSException) {
       return (JMSException) t;
@@ -24,6 +24,7 @@ import static org.corant.shared.util.Strings.isBlank;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -58,6 +59,8 @@ public class MessageReceivingMetaData {
   private final int cacheLevel;
   private final long receiveTimeout;
   private final int receiveThreshold;
+  private final int batchSize;
+  private final long batchTimeout;
   private final int failureThreshold;
   private final int tryThreshold;
   private final BackoffStrategy brokenBackoffStrategy;
@@ -80,6 +83,8 @@ public class MessageReceivingMetaData {
     cacheLevel = driven.getCacheLevel();
     receiveTimeout = driven.getReceiveTimeout();
     receiveThreshold = max(1, driven.getReceiveThreshold());
+    batchSize = max(1, driven.getBatchSize());
+    batchTimeout = driven.getBatchTimeout();
     failureThreshold = max(2, driven.getFailureThreshold());
     tryThreshold = max(1, driven.getTryThreshold());
     loopIntervalMs = max(500L, driven.getLoopIntervalMs());
@@ -103,6 +108,15 @@ public class MessageReceivingMetaData {
             r.getDestination());
       }
     }
+    if (batchSize > 1) {
+      Class<?> parameterType = method.getMethod().getParameterTypes()[0];
+      shouldBeTrue(parameterType.isAssignableFrom(List.class),
+          "The message receiving method %s must use a list as the first parameter in batch mode.",
+          method.getMethod());
+      shouldBeTrue(isEmpty(replies),
+          "The message receiving method %s doesn't support reply in batch mode.",
+          method.getMethod());
+    }
     if (isNotEmpty(replies)) {
       shouldBeFalse(method.getMethod().getReturnType().equals(Void.TYPE),
           "The message receiving method %s requires a return type because the method is configured with a reply.",
@@ -131,7 +145,8 @@ public class MessageReceivingMetaData {
         MessageDrivenMetaData.from(method.getMethod(), method.getQualifiers());
     Set<MessageDestinationMetaData> dests = MessageDestinationMetaData.from(method.getMethod());
     if (isEmpty(dests)) {
-      dests = MessageDestinationMetaData.from(method.getMethod().getParameterTypes()[0]);
+      dests = MessageDestinationMetaData
+          .from(MessageDrivenMetaData.resolvePayloadClass(method.getMethod()));
     }
     shouldNotEmpty(dests,
         "Can't find any message destination from the message receiving method %s.",
@@ -187,6 +202,14 @@ public class MessageReceivingMetaData {
     return acknowledge;
   }
 
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public long getBatchTimeout() {
+    return batchTimeout;
+  }
+
   public BackoffStrategy getBrokenBackoffStrategy() {
     return brokenBackoffStrategy;
   }
@@ -253,6 +276,10 @@ public class MessageReceivingMetaData {
     return prime * result + (selector == null ? 0 : selector.hashCode());
   }
 
+  public boolean isBatch() {
+    return batchSize > 1;
+  }
+
   public boolean isMulticast() {
     return multicast;
   }
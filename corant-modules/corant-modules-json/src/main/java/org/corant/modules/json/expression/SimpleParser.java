@@ -21,13 +21,16 @@ import static org.corant.shared.util.Primitives.isSimpleClass;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import org.corant.modules.json.Jsons;
 import org.corant.modules.json.expression.ast.ASTNode;
 import org.corant.modules.json.expression.ast.ASTNodeBuilder;
+import org.corant.modules.json.expression.ast.ASTNodeCompiler;
 import org.corant.modules.json.expression.ast.ASTNodeType;
 import org.corant.modules.json.expression.ast.ASTNodeVisitor;
 import org.corant.shared.exception.NotSupportedException;
+import org.corant.shared.ubiquity.Sortable;
 import org.corant.shared.util.Services;
 
 /**
@@ -38,6 +41,48 @@ import org.corant.shared.util.Services;
  */
 public class SimpleParser {
 
+  /**
+   * Bind the function with the given function name through the function resolvers loaded by the
+   * service loader, returns null if there is no function resolver supporting the function name.
+   *
+   * @param name the function name
+   */
+  public static Function<Object[], Object> bindFunction(String name) {
+    return resolveFunction().filter(fr -> fr.supports(name)).min(Sortable::compare)
+        .map(fr -> fr.resolve(name)).orElse(null);
+  }
+
+  /**
+   * Compile the given parsed node into a closure tree, the functions are bound with
+   * {@link #bindFunction(String)} at compile time.
+   *
+   * @param <T> the value type
+   * @param node the parsed node
+   * @return the compiled node
+   *
+   * @see ASTNodeCompiler
+   */
+  public static <T> Node<T> compile(Node<T> node) {
+    return compile(node, SimpleParser::bindFunction);
+  }
+
+  /**
+   * Compile the given parsed node into a closure tree, the functions are bound with the given
+   * function binder at compile time, the functions that can't be bound are resolved through the
+   * evaluation context in each evaluation.
+   *
+   * @param <T> the value type
+   * @param node the parsed node
+   * @param functionBinder the function binder, returns null if the function can't be bound
+   * @return the compiled node
+   *
+   * @see ASTNodeCompiler
+   */
+  public static <T> Node<T> compile(Node<T> node,
+      Function<String, Function<Object[], Object>> functionBinder) {
+    return new ASTNodeCompiler(functionBinder).compile(node);
+  }
+
   public static Node<?> parse(Map<String, Object> map, ASTNodeBuilder builder) {
     return parse(map, builder, resolveVisitor());
   }
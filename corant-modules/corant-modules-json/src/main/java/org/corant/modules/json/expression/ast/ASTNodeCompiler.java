@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2013-2021, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.json.expression.ast;
+
+import static org.corant.shared.util.Assertions.shouldNotNull;
+import static org.corant.shared.util.Objects.areEqual;
+import static org.corant.shared.util.Sets.setOf;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import java.util.regex.Pattern;
+import org.corant.modules.json.expression.EvaluationContext;
+import org.corant.modules.json.expression.Node;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.ASTBetweenNode;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.ASTEqualNode;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.ASTGreaterThanEqualNode;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.ASTGreaterThanNode;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.ASTInNode;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.ASTLessThanEqualNode;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.ASTLessThanNode;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.ASTNoEqualNode;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.ASTNoInNode;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.ASTRegexNode;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.AbstractASTComparisonNode;
+import org.corant.modules.json.expression.ast.ASTFunctionNode.ASTDefaultFunctionNode;
+import org.corant.modules.json.expression.ast.ASTLogicNode.AbstractASTLogicNode;
+import org.corant.modules.json.expression.ast.ASTLogicNode.ASTLogicAndNode;
+import org.corant.modules.json.expression.ast.ASTLogicNode.ASTLogicNorNode;
+import org.corant.modules.json.expression.ast.ASTLogicNode.ASTLogicNotNode;
+import org.corant.modules.json.expression.ast.ASTLogicNode.ASTLogicOrNode;
+import org.corant.modules.json.expression.ast.ASTLogicNode.ASTLogicXorNode;
+import org.corant.shared.exception.NotSupportedException;
+
+/**
+ * corant-modules-json
+ *
+ * <p>
+ * The AST compiler, used to compile the parsed AST into a closure tree that can be evaluated
+ * repeatedly without walking the AST. The functions are bound once at compile time through the
+ * function binder, if the binder can't bind a function, the function is still resolved through
+ * {@link EvaluationContext#resolveFunction(Node)} in each evaluation. The comparison and logic
+ * nodes whose operands are constants are folded, and the comparison with a constant integral
+ * number or string operand uses a specialized comparison for the operands of the same kind and
+ * falls back to the generic comparison of the node for the others.
+ *
+ * <p>
+ * Note: Only the nodes built by {@link ASTNodeType} are compiled, the other nodes (e.g. the
+ * variable nodes and the nodes built by a custom {@link ASTNodeBuilder}) are evaluated through
+ * their own {@link Node#getValue(EvaluationContext)}. The function nodes are never folded, since
+ * the functions may not be pure.
+ *
+ * @author bingo 下午4:52:38
+ *
+ */
+public class ASTNodeCompiler {
+
+  static final Set<Class<?>> compilableClasses = setOf(ASTValueNode.class,
+      ASTDefaultFunctionNode.class, ASTLogicAndNode.class, ASTLogicOrNode.class,
+      ASTLogicNorNode.class, ASTLogicNotNode.class, ASTLogicXorNode.class, ASTEqualNode.class,
+      ASTNoEqualNode.class, ASTGreaterThanNode.class, ASTGreaterThanEqualNode.class,
+      ASTLessThanNode.class, ASTLessThanEqualNode.class, ASTBetweenNode.class, ASTInNode.class,
+      ASTNoInNode.class, ASTRegexNode.class);
+
+  protected final Function<String, Function<Object[], Object>> functionBinder;
+
+  /**
+   * Create a compiler with the given function binder.
+   *
+   * @param functionBinder the function binder used to bind the function with the function name,
+   *        returns null if the function can't be bound at compile time
+   */
+  public ASTNodeCompiler(Function<String, Function<Object[], Object>> functionBinder) {
+    this.functionBinder = shouldNotNull(functionBinder);
+  }
+
+  static boolean isConstant(Function<EvaluationContext, Object> compiled) {
+    return compiled instanceof Constant;
+  }
+
+  static boolean isConstant(Function<EvaluationContext, Object> compiled, Object value) {
+    return compiled instanceof Constant && areEqual(((Constant) compiled).value, value);
+  }
+
+  static boolean isIntegral(Object object) {
+    return object instanceof Long || object instanceof Integer || object instanceof Short
+        || object instanceof Byte;
+  }
+
+  static boolean test(Function<EvaluationContext, Object> compiled, EvaluationContext ctx) {
+    return (Boolean) compiled.apply(ctx);
+  }
+
+  /**
+   * Compile the given node, returns a node that evaluates the closure tree.
+   *
+   * @param <T> the value type
+   * @param node the node to compile
+   */
+  public <T> Node<T> compile(Node<T> node) {
+    if (node instanceof ASTCompiledNode) {
+      return node;
+    }
+    return new ASTCompiledNode<>(node, compileNode(shouldNotNull(node)));
+  }
+
+  protected Function<EvaluationContext, Object> compileBetween(ASTBetweenNode node,
+      List<Function<EvaluationContext, Object>> operands) {
+    final Function<EvaluationContext, Object> mid = operands.get(0);
+    final Function<EvaluationContext, Object> min = operands.get(1);
+    final Function<EvaluationContext, Object> max = operands.get(2);
+    final ToIntBiFunction<Object, Object> cmp =
+        resolveComparator(node, isConstant(min) ? min : max);
+    return ctx -> {
+      Object minVal = min.apply(ctx);
+      Object midVal = mid.apply(ctx);
+      Object maxVal = max.apply(ctx);
+      return cmp.applyAsInt(minVal, midVal) <= 0 && cmp.applyAsInt(midVal, maxVal) <= 0;
+    };
+  }
+
+  protected List<Function<EvaluationContext, Object>> compileChildren(Node<?> node) {
+    List<Function<EvaluationContext, Object>> compiled = new ArrayList<>();
+    for (Node<?> child : node.getChildren()) {
+      compiled.add(compileNode(child));
+    }
+    return compiled;
+  }
+
+  protected Function<EvaluationContext, Object> compileComparison(AbstractASTComparisonNode node) {
+    final List<Function<EvaluationContext, Object>> operands = compileChildren(node);
+    final Function<EvaluationContext, Object> compiled;
+    if (node instanceof ASTBetweenNode) {
+      compiled = compileBetween((ASTBetweenNode) node, operands);
+    } else if (node instanceof ASTRegexNode) {
+      compiled = compileRegex((ASTRegexNode) node, operands);
+    } else {
+      final Function<EvaluationContext, Object> left = operands.get(0);
+      final Function<EvaluationContext, Object> right = operands.get(1);
+      final ToIntBiFunction<Object, Object> cmp =
+          resolveComparator(node, isConstant(right) ? right : left);
+      switch (node.getType()) {
+        case CP_EQ:
+          compiled = ctx -> isEqual(cmp, left.apply(ctx), right.apply(ctx));
+          break;
+        case CP_NE:
+          compiled = ctx -> !isEqual(cmp, left.apply(ctx), right.apply(ctx));
+          break;
+        case CP_GT:
+          compiled = ctx -> compareComparable(cmp, left.apply(ctx), right.apply(ctx)) > 0;
+          break;
+        case CP_GTE:
+          compiled = ctx -> compareComparable(cmp, left.apply(ctx), right.apply(ctx)) >= 0;
+          break;
+        case CP_LT:
+          compiled = ctx -> compareComparable(cmp, left.apply(ctx), right.apply(ctx)) < 0;
+          break;
+        case CP_LTE:
+          compiled = ctx -> compareComparable(cmp, left.apply(ctx), right.apply(ctx)) <= 0;
+          break;
+        case CP_IN:
+          compiled = compileContains(left, right, false);
+          break;
+        case CP_NIN:
+          compiled = compileContains(left, right, true);
+          break;
+        default:
+          compiled = node::getValue;
+          break;
+      }
+    }
+    return fold(compiled, operands);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  protected Function<EvaluationContext, Object> compileContains(
+      Function<EvaluationContext, Object> left, Function<EvaluationContext, Object> right,
+      boolean negated) {
+    if (isConstant(right) && ((Constant) right).value instanceof Collection) {
+      final Set<?> set = new HashSet<>((Collection) ((Constant) right).value);
+      return ctx -> set.contains(left.apply(ctx)) != negated;
+    }
+    return ctx -> {
+      Object leftVal = left.apply(ctx);
+      Object rightVal = right.apply(ctx);
+      if (!(rightVal instanceof Collection)) {
+        return negated;
+      }
+      return ((Collection) rightVal).contains(leftVal) != negated;
+    };
+  }
+
+  protected Function<EvaluationContext, Object> compileFunction(ASTFunctionNode node) {
+    final List<Function<EvaluationContext, Object>> children = compileChildren(node);
+    @SuppressWarnings("unchecked")
+    final Function<EvaluationContext, Object>[] params = children.toArray(new Function[0]);
+    final Function<Object[], Object> function = functionBinder.apply(node.getName());
+    if (function != null) {
+      return ctx -> function.apply(resolveParameters(params, ctx));
+    }
+    return ctx -> ctx.resolveFunction(node).apply(resolveParameters(params, ctx));
+  }
+
+  protected Function<EvaluationContext, Object> compileLogic(AbstractASTLogicNode node) {
+    final List<Function<EvaluationContext, Object>> operands = compileChildren(node);
+    switch (node.getType()) {
+      case LG_AND:
+        return compileShortCircuit(operands, Boolean.FALSE, false);
+      case LG_OR:
+        return compileShortCircuit(operands, Boolean.TRUE, false);
+      case LG_NOR:
+        return compileShortCircuit(operands, Boolean.TRUE, true);
+      case LG_NOT:
+        final Function<EvaluationContext, Object> operand = operands.get(0);
+        return fold(ctx -> !test(operand, ctx), operands);
+      case LG_XOR:
+        final Function<EvaluationContext, Object> left = operands.get(0);
+        final Function<EvaluationContext, Object> right = operands.get(1);
+        return fold(ctx -> Boolean.logicalXor(test(left, ctx), test(right, ctx)), operands);
+      default:
+        return node::getValue;
+    }
+  }
+
+  protected Function<EvaluationContext, Object> compileNode(Node<?> node) {
+    if (!compilableClasses.contains(node.getClass())) {
+      return node::getValue;
+    }
+    if (node instanceof ASTValueNode) {
+      return new Constant(node.getValue(null));
+    } else if (node instanceof ASTFunctionNode) {
+      return compileFunction((ASTFunctionNode) node);
+    } else if (node instanceof AbstractASTLogicNode) {
+      return compileLogic((AbstractASTLogicNode) node);
+    } else if (node instanceof AbstractASTComparisonNode) {
+      return compileComparison((AbstractASTComparisonNode) node);
+    }
+    return node::getValue;
+  }
+
+  protected Function<EvaluationContext, Object> compileRegex(ASTRegexNode node,
+      List<Function<EvaluationContext, Object>> operands) {
+    if (node.pattern == null) {
+      node.initialize();
+    }
+    final Pattern pattern = node.pattern;
+    final Function<EvaluationContext, Object> left = operands.get(0);
+    return ctx -> {
+      Object leftVal = left.apply(ctx);
+      return leftVal != null && pattern.matcher(leftVal.toString()).matches();
+    };
+  }
+
+  /**
+   * Compile the AND, OR and NOR operations, the constant operands that don't affect the result are
+   * removed, and the operands after the constant operand that short-circuits the evaluation are
+   * removed since they are never evaluated.
+   */
+  protected Function<EvaluationContext, Object> compileShortCircuit(
+      List<Function<EvaluationContext, Object>> operands, Boolean shortCircuit, boolean negated) {
+    final List<Function<EvaluationContext, Object>> useOperands = new ArrayList<>();
+    for (Function<EvaluationContext, Object> operand : operands) {
+      if (isConstant(operand, shortCircuit)) {
+        if (useOperands.isEmpty()) {
+          return new Constant(shortCircuit != negated);
+        }
+        useOperands.add(operand);
+        break;
+      } else if (!isConstant(operand, !shortCircuit)) {
+        useOperands.add(operand);
+      }
+    }
+    if (useOperands.isEmpty()) {
+      return new Constant(shortCircuit == negated);
+    }
+    @SuppressWarnings("unchecked")
+    final Function<EvaluationContext, Object>[] array = useOperands.toArray(new Function[0]);
+    final boolean breaker = shortCircuit;
+    return ctx -> {
+      for (Function<EvaluationContext, Object> operand : array) {
+        if (test(operand, ctx) == breaker) {
+          return breaker != negated;
+        }
+      }
+      return breaker == negated;
+    };
+  }
+
+  protected int compareComparable(ToIntBiFunction<Object, Object> cmp, Object left, Object right) {
+    if (left instanceof Comparable && right instanceof Comparable) {
+      return cmp.applyAsInt(left, right);
+    }
+    throw new NotSupportedException();
+  }
+
+  /**
+   * Fold the compiled node if all of its operands are constants, if the evaluation of the compiled
+   * node fails, the failure is deferred to the runtime evaluation.
+   */
+  protected Function<EvaluationContext, Object> fold(Function<EvaluationContext, Object> compiled,
+      List<Function<EvaluationContext, Object>> operands) {
+    if (operands.stream().allMatch(ASTNodeCompiler::isConstant)) {
+      try {
+        return new Constant(compiled.apply(null));
+      } catch (RuntimeException e) {
+        return compiled;
+      }
+    }
+    return compiled;
+  }
+
+  protected boolean isEqual(ToIntBiFunction<Object, Object> cmp, Object left, Object right) {
+    if (left instanceof Number && right instanceof Number) {
+      return cmp.applyAsInt(left, right) == 0;
+    }
+    return areEqual(left, right);
+  }
+
+  protected ToIntBiFunction<Object, Object> resolveComparator(AbstractASTComparisonNode node,
+      Function<EvaluationContext, Object> operand) {
+    if (isConstant(operand)) {
+      Object value = ((Constant) operand).value;
+      if (isIntegral(value)) {
+        return (l, r) -> isIntegral(l) && isIntegral(r)
+            ? Long.compare(((Number) l).longValue(), ((Number) r).longValue())
+            : node.compare(l, r);
+      } else if (value instanceof String) {
+        return (l, r) -> l instanceof String && r instanceof String
+            ? ((String) l).compareTo((String) r)
+            : node.compare(l, r);
+      }
+    }
+    return node::compare;
+  }
+
+  protected Object[] resolveParameters(Function<EvaluationContext, Object>[] params,
+      EvaluationContext ctx) {
+    final Object[] values = new Object[params.length];
+    for (int i = 0; i < params.length; i++) {
+      values[i] = params[i].apply(ctx);
+    }
+    return values;
+  }
+
+  /**
+   * corant-modules-json
+   *
+   * <p>
+   * The compiled node, evaluates the closure tree compiled from the source node.
+   *
+   * @author bingo 下午4:53:06
+   *
+   */
+  public static class ASTCompiledNode<T> implements Node<T> {
+
+    protected final Node<T> source;
+    protected final Function<EvaluationContext, Object> evaluator;
+
+    protected ASTCompiledNode(Node<T> source, Function<EvaluationContext, Object> evaluator) {
+      this.source = source;
+      this.evaluator = evaluator;
+    }
+
+    @Override
+    public boolean addChild(Node<?> child) {
+      throw new NotSupportedException();
+    }
+
+    @Override
+    public List<? extends Node<?>> getChildren() {
+      return Collections.emptyList();
+    }
+
+    public Node<T> getSource() {
+      return source;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T getValue(EvaluationContext ctx) {
+      return (T) evaluator.apply(ctx);
+    }
+
+  }
+
+  /**
+   * corant-modules-json
+   *
+   * @author bingo 下午4:53:12
+   *
+   */
+  static class Constant implements Function<EvaluationContext, Object> {
+
+    final Object value;
+
+    Constant(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public Object apply(EvaluationContext ctx) {
+      return value;
+    }
+  }
+}
@@ -36,6 +36,44 @@ import junit.framework.TestCase;
  */
 public class JsonExpressionTest extends TestCase {
 
+  @Test
+  public void testCompile() {
+    final Map<String, Object> r = mapOf("r.id", 123, "r.name", "bingo.chen", "r.a", 100L, "r.b",
+        "10", "r.c", 2.5);
+    final EvaluationContext ec = new EvaluationContext() {
+      @Override
+      public Function<Object[], Object> resolveFunction(Node<?> node) {
+        ASTFunctionNode fn = (ASTFunctionNode) node;
+        Optional<FunctionResolver> fr =
+            SimpleParser.resolveFunction().filter(p -> p.supports(fn.getName())).findFirst();
+        if (fr.isPresent()) {
+          return fr.get().resolve(fn.getName());
+        } else {
+          return p -> p[0] + ".chen";
+        }
+      }
+
+      @Override
+      public Object resolveVariableValue(Node<?> node) {
+        return r.get(((ASTVariableNode) node).getName());
+      }
+    };
+    String[] exps = new String[] {"{\"$gt\":[\"@r.a\",10]}", "{\"$lte\":[\"@r.c\",2]}",
+        "{\"$eq\":[\"@r.id\",123.0]}", "{\"$ne\":[\"@r.name\",\"bingo\"]}",
+        "{\"$lt\":[\"@r.b\",\"2\"]}", "{\"$btw\":[\"@r.a\",1,100]}",
+        "{\"$regex\":[\"@r.name\",\"bingo.*\"]}",
+        "{\"$and\":[{\"$eq\":[1,1]},{\"$gt\":[\"@r.a\",1]}]}",
+        "{\"$or\":[{\"$eq\":[1,2]},{\"$gt\":[\"@r.a\",1000]}]}",
+        "{\"$nor\":[{\"$eq\":[1,1]},{\"$gt\":[\"@r.a\",1000]}]}",
+        "{\"$not\":{\"$eq\":[{\"#xxx\":\"bingo\"},\"@r.name\"]}}",
+        "{\"$eq\":[{\"#add\":[\"@r.a\",{\"#convert\":[\"@r.b\",\"java.lang.Integer\"]},13]},123]}"};
+    for (String exp : exps) {
+      Node<?> node = SimpleParser.parse(exp);
+      Node<?> compiled = SimpleParser.compile(node);
+      assertEquals(exp, node.getValue(ec), compiled.getValue(ec));
+    }
+  }
+
   @Test
   public void testFunc() {
     final Map<String, Object> r = mapOf("r.id", 123, "r.name", "bingo.chen", "r.a", 100, "r.b",
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow.Publisher;
+import org.corant.modules.query.QueryService.Forwarding;
+import org.corant.modules.query.QueryService.Paging;
+
+/**
+ * corant-modules-query-api
+ *
+ * <p>
+ * The asynchronous view of the {@link NamedQueryService}, the queries are executed without blocking
+ * the caller thread, the results are completed through the returned {@link CompletionStage}, and
+ * the streaming query results are published to the subscribers of the returned {@link Publisher}
+ * on demand.
+ *
+ * @author bingo 下午4:12:37
+ *
+ * @see NamedQueryService#async()
+ */
+public interface AsyncNamedQueryService {
+
+  /**
+   * Asynchronous step forward query.
+   *
+   * @param <T> The expected query result set record type.
+   * @param q The name of query.
+   * @param p The query parameter, include query criteria and context.
+   * @return The completion stage of the forward result.
+   *
+   * @see QueryService#forward(Object, Object)
+   */
+  <T> CompletionStage<Forwarding<T>> forward(String q, Object p);
+
+  /**
+   * Asynchronous single result query.
+   *
+   * @param <T> The expected query result object type.
+   * @param q The name of query.
+   * @param p The query parameter, include query criteria and context.
+   * @return The completion stage of the single result, the result may be null.
+   *
+   * @see QueryService#get(Object, Object)
+   */
+  <T> CompletionStage<T> get(String q, Object p);
+
+  /**
+   * Asynchronous paging query.
+   *
+   * @param <T> The expected query result object type.
+   * @param q The name of query.
+   * @param p The query parameter, include query criteria and context.
+   * @return The completion stage of the paging result.
+   *
+   * @see QueryService#page(Object, Object)
+   */
+  <T> CompletionStage<Paging<T>> page(String q, Object p);
+
+  /**
+   * Asynchronous list query.
+   *
+   * @param <T> The expected query result object type.
+   * @param q The name of query.
+   * @param p The query parameter, include query criteria and context.
+   * @return The completion stage of the result list.
+   *
+   * @see QueryService#select(Object, Object)
+   */
+  <T> CompletionStage<List<T>> select(String q, Object p);
+
+  /**
+   * Asynchronous stream query, the query is executed when the first element is requested, the
+   * results are emitted according to the subscriber demand, and the underlying resources are
+   * released when the stream is completed, failed or the subscription is cancelled. Each
+   * subscription executes the query independently.
+   *
+   * @param <T> The expected query result object type.
+   * @param q The name of query.
+   * @param p The query parameter, include query criteria and context.
+   * @return A publisher of the results.
+   *
+   * @see QueryService#stream(Object, Object)
+   */
+  <T> Publisher<T> stream(String q, Object p);
+}
@@ -16,6 +16,7 @@ package org.corant.modules.query;
 import java.util.List;
 import java.util.Map;
 import org.corant.modules.query.mapping.FetchQuery;
+import org.corant.shared.exception.NotSupportedException;
 
 /**
  * corant-modules-query-api
@@ -25,6 +26,16 @@ import org.corant.modules.query.mapping.FetchQuery;
  */
 public interface NamedQueryService extends QueryService<String, Object> {
 
+  /**
+   * Returns the asynchronous view of this named query service.
+   *
+   * @return the asynchronous named query service
+   */
+  default AsyncNamedQueryService async() {
+    throw new NotSupportedException(
+        "The named query service %s doesn't support asynchronous query.", getClass().getName());
+  }
+
   FetchResult fetch(Object result, FetchQuery fetchQuery, Querier parentQuerier);
 
   class FetchResult {
@@ -25,12 +25,32 @@ public interface QuerierConfig {
 
   // Use to cover the global 'corant.query.querier' configuration, they may be assigned in query xml
   String CTX_KEY_PARALLEL_FETCH = ".parallel-fetch";
+  String PRO_KEY_PARALLEL_FETCH_TIMEOUT = ".parallel-fetch-timeout";
   int UN_LIMIT_SELECT_SIZE = Integer.MAX_VALUE - 16;
   String PRO_KEY_MAX_SELECT_SIZE = ".max-select-size";
   String PRO_KEY_THROWN_ON_MAX_LIMIT_SIZE = ".thrown-on-max-select-size";
   String PRO_KEY_LIMIT = ".limit";
   String PRO_KEY_STREAM_LIMIT = ".stream-limit";
+  String PRO_KEY_STREAM_READ_AHEAD = ".stream-read-ahead";
   String PRO_KEY_TIMEOUT = ".timeout";
+  String PRO_KEY_RESULT_CACHE = ".result-cache";
+  String PRO_KEY_RESULT_CACHE_TTL = ".result-cache-ttl";
+  String PRO_KEY_RESULT_CACHE_MAX_ENTRIES = ".result-cache-max-entries";
+  String PRO_KEY_RESULT_CACHE_TAGS = ".result-cache-tags";
+  String PRO_KEY_SLOW_QUERY_THRESHOLD = ".slow-query-threshold";
+  String PRO_KEY_KEYSET_COLUMNS = ".keyset-columns";
+
+  /**
+   * Returns the name of the managed executor service used to execute the asynchronous queries,
+   * null means the default managed executor service. If the name is the same as
+   * {@link #getExecutorName()}, the fetch queries, the count queries and the stream prefetches of
+   * the asynchronous queries are executed in the asynchronous query threads rather than in
+   * parallel, to avoid the asynchronous queries waiting for the subtasks queued behind them in the
+   * same executor service.
+   */
+  default String getAsyncExecutorName() {
+    return null;
+  }
 
   int getDefaultLimit();
 
@@ -38,11 +58,38 @@ public interface QuerierConfig {
 
   int getDefaultStreamLimit();
 
+  /**
+   * Returns the name of the managed executor service used to execute the fetch queries and the
+   * count queries in parallel and to prefetch the stream query batches, null means the default
+   * managed executor service. The subtasks submitted from the threads that are executing these
+   * tasks are executed in the current thread.
+   */
+  default String getExecutorName() {
+    return null;
+  }
+
   int getMaxLimit();
 
   int getMaxSelectSize();
 
+  /**
+   * Returns the execution time threshold of the slow query log, the query executions that exceed
+   * the threshold are logged with the rendered script, null means the slow query log is disabled.
+   * Only takes effect when {@link #isEnableMetrics()} is true.
+   */
+  default Duration getSlowQueryThreshold() {
+    return null;
+  }
+
   Duration getTimeout();
 
+  /**
+   * Returns whether to report the query execution metrics (execution time, result size, render time
+   * and fetch query fan-out) to the query metrics, default is false.
+   */
+  default boolean isEnableMetrics() {
+    return false;
+  }
+
   boolean isThrownOnMaxSelectSize();
 }
@@ -45,6 +45,8 @@ public interface QueryParameter extends Serializable {
   String CTX_QHH_EXCLUDE_FETCH_QUERY = "__QHH_EXCLUDE_FETCH_QUERY";
   String CTX_QHH_EXCLUDE_RESULTHINT = "__QHH_EXCLUDE_RESULT_HINT";
   String CTX_QHH_DONT_CONVERT_RESULT = "__QHH_DONT_CONVERT_RESULT";
+  // The key values of the last row of the keyset pagination, can be set in the context
+  String CTX_KEYSET_SEEK = "__KEYSET_SEEK";
 
   /**
    * Returns the query context that may be contain current caller context, the context information
@@ -270,6 +272,8 @@ public interface QueryParameter extends Serializable {
 
     protected boolean autoClose = false;
 
+    protected int readAhead = 0;
+
     public StreamQueryParameter() {}
 
     public StreamQueryParameter(QueryParameter other) {
@@ -279,7 +283,7 @@ public interface QueryParameter extends Serializable {
     public StreamQueryParameter(StreamQueryParameter other) {
       super(other);
       enhancer(other.enhancer).retryBackoffStrategy(other.retryBackoffStrategy)
-          .retryTimes(other.retryTimes).terminater(other.terminater);
+          .retryTimes(other.retryTimes).terminater(other.terminater).readAhead(other.readAhead);
     }
 
     public StreamQueryParameter autoClose(boolean autoClose) {
@@ -328,6 +332,15 @@ public interface QueryParameter extends Serializable {
       return defaultObject(super.getLimit(), 1);
     }
 
+    /**
+     * @see #readAhead(int)
+     *
+     * @return getReadAhead
+     */
+    public int getReadAhead() {
+      return readAhead;
+    }
+
     /**
      * @see #retryBackoffStrategy(BackoffStrategy)
      */
@@ -383,6 +396,20 @@ public interface QueryParameter extends Serializable {
       return this;
     }
 
+    /**
+     * The stream query may be use {@link QueryService#forward(Object, Object)} to fetch data in
+     * batches, this method use to set the number of batches that can be prefetched in background
+     * while the current batch is being consumed. The underly query service implementation may not
+     * support read-ahead.
+     *
+     * @param readAhead the read-ahead depth, if given is less than or equal to 0, it means no
+     *        read-ahead.
+     */
+    public StreamQueryParameter readAhead(int readAhead) {
+      this.readAhead = max(readAhead, 0);
+      return this;
+    }
+
     /**
      * The stream query may be use {@link QueryService#forward(Object, Object)} to fetch data in
      * batches, in this process the exception may be occurred, the query may retry after exception
@@ -14,6 +14,7 @@
 package org.corant.modules.query;
 
 import static org.corant.shared.util.Empties.isNotEmpty;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -104,7 +105,9 @@ public interface QueryService<Q, P> {
    * @author bingo 下午5:51:56
    *
    */
-  class Forwarding<T> {
+  class Forwarding<T> implements Serializable {
+
+    private static final long serialVersionUID = -4402591305283541527L;
 
     private boolean hasNext;
     private final List<T> results = new ArrayList<>();
@@ -181,7 +184,9 @@ public interface QueryService<Q, P> {
    * @author bingo 下午6:11:55
    *
    */
-  class Paging<T> {
+  class Paging<T> implements Serializable {
+
+    private static final long serialVersionUID = 2861395735618962306L;
 
     private int total;
     private int pageSize;
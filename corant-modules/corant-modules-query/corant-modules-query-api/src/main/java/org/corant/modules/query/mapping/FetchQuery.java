@@ -44,6 +44,7 @@ public class FetchQuery implements Serializable {
   private Script predicateScript = new Script();
   private Script injectionScript = new Script();
   private boolean eagerInject = true;
+  private int batchSize = 0;
   private final String id = UUID.randomUUID().toString();
 
   public FetchQuery() {}
@@ -98,6 +99,17 @@ public class FetchQuery implements Serializable {
     }
   }
 
+  /**
+   * Returns the number of parent query result records of each batch in batch fetch mode, less than
+   * 1 means that the batch fetch mode is not enabled.
+   *
+   * @return the batchSize
+   * @see #isBatchFetch()
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
   /**
    *
    * @return the id
@@ -168,6 +180,20 @@ public class FetchQuery implements Serializable {
     return prime * result + (id == null ? 0 : id.hashCode());
   }
 
+  /**
+   * Returns whether the fetch query is in batch fetch mode. In batch fetch mode, the fetch query
+   * parameter values of all parent query result records are collected and the fetch query is
+   * executed once per batch ({@link #getBatchSize()}), the fetched results are joined back onto
+   * each parent query result record by the fetch query parameters which source is
+   * {@link FetchQueryParameterSource#R} and target name is set.
+   *
+   * @return isBatchFetch
+   * @see FetchQueryParameter#getTargetNamePath()
+   */
+  public boolean isBatchFetch() {
+    return batchSize > 0;
+  }
+
   /**
    *
    * @return the eagerInject
@@ -196,6 +222,10 @@ public class FetchQuery implements Serializable {
         parameters == null ? Collections.emptyList() : Collections.unmodifiableList(parameters);
   }
 
+  protected void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
   /**
    *
    * @param eagerInject the eagerInject to set
@@ -268,6 +298,8 @@ public class FetchQuery implements Serializable {
     private String name;
     private String sourceName;
     private String[] sourceNamePath = Strings.EMPTY_ARRAY;
+    private String targetName;
+    private String[] targetNamePath = Strings.EMPTY_ARRAY;
     private FetchQueryParameterSource source;
     private String value;
     private Class<?> type;
@@ -332,6 +364,26 @@ public class FetchQuery implements Serializable {
       return sourceNamePath;
     }
 
+    /**
+     * Returns the property name of the fetch query result record which value is equal to the
+     * parameter value extracted from the parent query result record, used to join the fetched
+     * results back onto the parent query result records in batch fetch mode.
+     *
+     * @return the targetName
+     * @see FetchQuery#isBatchFetch()
+     */
+    public String getTargetName() {
+      return targetName;
+    }
+
+    /**
+     *
+     * @return the targetNamePath
+     */
+    public String[] getTargetNamePath() {
+      return targetNamePath;
+    }
+
     /**
      *
      * @return the type
@@ -381,6 +433,11 @@ public class FetchQuery implements Serializable {
       sourceNamePath = split(sourceName, Names.NAME_SPACE_SEPARATORS, true, false);
     }
 
+    protected void setTargetName(String targetName) {
+      this.targetName = targetName;
+      targetNamePath = split(targetName, Names.NAME_SPACE_SEPARATORS, true, false);
+    }
+
     protected void setType(Class<?> type) {
       this.type = type;
     }
@@ -145,6 +145,14 @@ public class QueryMapping {
               fq.getInjectionScript().getType().name(), fq.getReferenceQuery(), q.getName(),
               getUrl()));
         }
+        if (fq.isBatchFetch() && !fq.getInjectionScript().isValid()
+            && fq.getParameters().stream().noneMatch(
+                fqp -> fqp.getSource() == FetchQueryParameterSource.R
+                    && isNotBlank(fqp.getTargetName()))) {
+          brokens.add(String.format(
+              "The batch 'fetch-query' [%s] must contain either 'injection-script' element or 'parameter' element with source 'R' and 'target-name' attribute in query element [%s] in query file [%s].",
+              fq.getReferenceQuery(), q.getName(), getUrl()));
+        }
 
         // if (isBlank(fq.getInjectPropertyName())) {
         // brokens.add(String.format(
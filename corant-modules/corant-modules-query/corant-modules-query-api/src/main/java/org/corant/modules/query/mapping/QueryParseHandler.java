@@ -212,6 +212,8 @@ public class QueryParseHandler extends DefaultHandler {
             fq.setResultClass(isBlank(atv) ? java.util.Map.class : asClass(atv));
           } else if (SchemaNames.FQE_ATT_MULT_RECORDS.equalsIgnoreCase(aqn)) {
             fq.setMultiRecords(isBlank(atv) ? true : toBoolean(atv));
+          } else if (SchemaNames.FQE_ATT_BATCH_SIZE.equalsIgnoreCase(aqn)) {
+            fq.setBatchSize(isBlank(atv) ? 0 : toInteger(atv));
           }
         }
       }
@@ -242,6 +244,8 @@ public class QueryParseHandler extends DefaultHandler {
             fqp.setSource(toEnum(atv, FetchQueryParameterSource.class));
           } else if (SchemaNames.FQE_ELE_PARAM_ATT_SRC_NME.equalsIgnoreCase(aqn)) {
             fqp.setSourceName(atv);
+          } else if (SchemaNames.FQE_ELE_PARAM_ATT_TGT_NME.equalsIgnoreCase(aqn)) {
+            fqp.setTargetName(atv);
           } else if (SchemaNames.X_VALUE.equalsIgnoreCase(aqn)) {
             fqp.setValue(atv);
           } else if (SchemaNames.X_DISTINCT.equalsIgnoreCase(aqn)) {
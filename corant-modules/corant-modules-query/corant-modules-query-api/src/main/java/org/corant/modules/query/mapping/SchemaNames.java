@@ -51,6 +51,7 @@ public class SchemaNames {
 
   public static final String FQE_ELE_PARAM_ATT_SRC = "source";
   public static final String FQE_ELE_PARAM_ATT_SRC_NME = "source-name";
+  public static final String FQE_ELE_PARAM_ATT_TGT_NME = "target-name";
   public static final String FQE_ELE_PREDICATE_SCRIPT = "predicate-script";
   public static final String FQE_ELE_INJECTION_SCRIPT = "injection-script";
   public static final String FQE_ATT_REF_QUE = "reference-query";
@@ -61,6 +62,7 @@ public class SchemaNames {
   public static final String FQE_ATT_MAX_SIZE = "max-fetch-size";
   public static final String FQE_ATT_VER = "reference-query-version";
   public static final String FQE_ATT_MULT_RECORDS = "multi-records";
+  public static final String FQE_ATT_BATCH_SIZE = "batch-size";
 
   private SchemaNames() {}
 
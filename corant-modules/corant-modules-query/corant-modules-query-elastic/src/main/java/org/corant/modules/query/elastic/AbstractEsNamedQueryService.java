@@ -78,12 +78,18 @@ public abstract class AbstractEsNamedQueryService extends AbstractNamedQueryServ
   @Override
   public <T> Stream<T> scrolledSearch(String q, Object param, TimeValue scrollKeepAlive,
       int batchSize) {
+    return scrolledSearch(q, param, scrollKeepAlive, batchSize, 1);
+  }
+
+  @Override
+  public <T> Stream<T> scrolledSearch(String q, Object param, TimeValue scrollKeepAlive,
+      int batchSize, int slices) {
     try {
       EsNamedQuerier querier = getQuerierResolver().resolve(q, param);
       String script = resolveScript(querier.getScript(), null, null);
       log("scrolled search-> " + q, querier.getQueryParameter(), script);
       return getExecutor()
-          .scrolledSearch(resolveIndexName(querier), script, scrollKeepAlive, batchSize)
+          .scrolledSearch(resolveIndexName(querier), script, scrollKeepAlive, batchSize, slices)
           .map(result -> {
             this.fetch(result, querier);
             return querier.handleResult(result);
@@ -52,8 +52,15 @@ public class DefaultEsQueryExecutor implements EsQueryExecutor {
   @Override
   public Stream<Map<String, Object>> scrolledSearch(String indexName, String script,
       TimeValue scrollKeepAlive, int batchSize) throws Exception {
-    return StreamSupport.stream(new EsScrollableSpliterator(transportClient, indexName, script,
-        scrollKeepAlive, batchSize, Functions.emptyConsumer()), false);
+    return scrolledSearch(indexName, script, scrollKeepAlive, batchSize, 1);
+  }
+
+  @Override
+  public Stream<Map<String, Object>> scrolledSearch(String indexName, String script,
+      TimeValue scrollKeepAlive, int batchSize, int slices) throws Exception {
+    EsSlicedScrollSpliterator spliterator = new EsSlicedScrollSpliterator(transportClient,
+        indexName, script, scrollKeepAlive, batchSize, slices, Functions.emptyConsumer());
+    return StreamSupport.stream(spliterator, slices > 1).onClose(spliterator::close);
   }
 
 }
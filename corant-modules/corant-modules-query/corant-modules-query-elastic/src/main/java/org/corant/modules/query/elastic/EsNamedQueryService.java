@@ -34,6 +34,26 @@ public interface EsNamedQueryService extends NamedQueryService {
 
   <T> Stream<T> scrolledSearch(String q, Object param, TimeValue scrollKeepAlive, int batchSize);
 
+  /**
+   * Scrolled search with the given number of scroll slices, if the slices is greater than 1, the
+   * returned stream is parallel and the slices are scrolled concurrently, it is generally used to
+   * export the whole index. The returned stream should be closed after use to clear the scroll
+   * contexts that are not exhausted. The default implementation ignores the slices and delegates to
+   * {@link #scrolledSearch(String, Object, TimeValue, int)}.
+   *
+   * @param <T> the result type
+   * @param q the query name
+   * @param param the query parameter
+   * @param scrollKeepAlive the scroll context keep alive time
+   * @param batchSize the size of each scroll batch
+   * @param slices the number of the scroll slices
+   * @return a stream of results
+   */
+  default <T> Stream<T> scrolledSearch(String q, Object param, TimeValue scrollKeepAlive,
+      int batchSize, int slices) {
+    return scrolledSearch(q, param, scrollKeepAlive, batchSize);
+  }
+
   Map<String, Object> search(String q, Object param);
 
 }
@@ -105,6 +105,26 @@ public interface EsQueryExecutor {
   Stream<Map<String, Object>> scrolledSearch(String indexName, String script,
       TimeValue scrollKeepAlive, int batchSize) throws Exception;
 
+  /**
+   * Returns a stream of the hits that the scroll is divided into the given number of slices, if the
+   * slices is greater than 1, the stream is parallel and the slices are scrolled concurrently. The
+   * returned stream should be closed after use to clear the scroll contexts that are not
+   * exhausted. The default implementation ignores the slices and delegates to
+   * {@link #scrolledSearch(String, String, TimeValue, int)}.
+   *
+   * @param indexName the index name
+   * @param script the query script
+   * @param scrollKeepAlive the scroll context keep alive time
+   * @param batchSize the size of each scroll batch
+   * @param slices the number of the scroll slices
+   * @return a stream of hits
+   * @throws Exception if error occurred
+   */
+  default Stream<Map<String, Object>> scrolledSearch(String indexName, String script,
+      TimeValue scrollKeepAlive, int batchSize, int slices) throws Exception {
+    return scrolledSearch(indexName, script, scrollKeepAlive, batchSize);
+  }
+
   default Map<String, Object> search(String indexName, String script,
       Map<String, String> properties) throws Exception {
     SearchResponse searchResponse = execute(indexName, script, properties);
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2013-2021, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.elastic;
+
+import static org.corant.shared.util.Assertions.shouldBeTrue;
+import static org.corant.shared.util.Objects.defaultObject;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.corant.modules.query.QueryRuntimeException;
+import org.corant.shared.util.Streams.AbstractBatchHandlerSpliterator;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.transport.TransportClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.slice.SliceBuilder;
+
+/**
+ * corant-modules-query-elastic
+ *
+ * <p>
+ * A sliced scroll spliterator, the scroll is divided into the given number of slices, and the
+ * spliterator can be split by the slices for parallel streams, each split spliterator scrolls its
+ * slices in turn. The next batch of the current scroll is fetched asynchronously while the current
+ * batch is being consumed, and the scroll context is cleared when the slice is exhausted or the
+ * spliterator is closed.
+ *
+ * <p>
+ * Note: The spliterator can't be split after it starts to fetch the hits, and the close method
+ * closes the spliterator and all the spliterators split from it, so generally the stream built
+ * with the spliterator should register the close method as its close handler and be closed after
+ * use.
+ *
+ * @author bingo 下午5:26:09
+ *
+ */
+public class EsSlicedScrollSpliterator extends AbstractBatchHandlerSpliterator<Map<String, Object>>
+    implements AutoCloseable {
+
+  static final Logger logger = Logger.getLogger(EsSlicedScrollSpliterator.class.getName());
+  static final SearchHit[] EMPTY_HITS = {};
+
+  protected final TransportClient client;
+  protected final String indexName;
+  protected final TimeValue scrollKeepAlive;
+  protected final int slices;
+  protected final Consumer<SearchRequestBuilder> callback;
+  protected final Queue<EsSlicedScrollSpliterator> spliterators;
+
+  protected int fromSlice;
+  protected int toSlice;
+  protected boolean started;
+  protected volatile boolean closed;
+  protected String scrollId;
+  protected SearchHit[] hits = EMPTY_HITS;
+  protected int cursor;
+  protected CompletableFuture<SearchResponse> prefetch;
+
+  public EsSlicedScrollSpliterator(TransportClient client, String indexName, String script,
+      TimeValue scrollKeepAlive, int batchSize, int slices, Consumer<Long> fn) {
+    this(client, indexName, scrollKeepAlive, batchSize, slices, fn,
+        request -> request.setSource(EsQueryExecutor.buildSearchSourceBuilder(script)));
+  }
+
+  public EsSlicedScrollSpliterator(TransportClient client, String indexName,
+      TimeValue scrollKeepAlive, int batchSize, int slices, Consumer<Long> fn,
+      Consumer<SearchRequestBuilder> callback) {
+    super(Long.MAX_VALUE, Spliterator.IMMUTABLE, batchSize, fn);
+    shouldBeTrue(slices > 0, "The scroll slices must greater than 0!");
+    this.client = client;
+    this.indexName = indexName;
+    this.scrollKeepAlive = defaultObject(scrollKeepAlive, () -> TimeValue.timeValueMinutes(1));
+    this.slices = slices;
+    this.callback = callback;
+    spliterators = new ConcurrentLinkedQueue<>();
+    spliterators.add(this);
+    fromSlice = 0;
+    toSlice = slices;
+  }
+
+  protected EsSlicedScrollSpliterator(EsSlicedScrollSpliterator parent, int fromSlice,
+      int toSlice) {
+    super(Long.MAX_VALUE, Spliterator.IMMUTABLE, parent.getBatchSize(), parent.getHandler());
+    client = parent.client;
+    indexName = parent.indexName;
+    scrollKeepAlive = parent.scrollKeepAlive;
+    slices = parent.slices;
+    callback = parent.callback;
+    spliterators = parent.spliterators;
+    spliterators.add(this);
+    this.fromSlice = fromSlice;
+    this.toSlice = toSlice;
+  }
+
+  /**
+   * Close this spliterator and all the spliterators split from it, the scroll contexts that are not
+   * exhausted are cleared.
+   */
+  @Override
+  public void close() {
+    for (EsSlicedScrollSpliterator spliterator : spliterators) {
+      spliterator.release();
+    }
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super Map<String, Object>> action) {
+    if (cursor < hits.length || nextBatch()) {
+      action.accept(hits[cursor++].getSourceAsMap());
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public Spliterator<Map<String, Object>> trySplit() {
+    if (started || closed || toSlice - fromSlice < 2) {
+      return null;
+    }
+    final int mid = (fromSlice + toSlice) >>> 1;
+    EsSlicedScrollSpliterator split = new EsSlicedScrollSpliterator(this, fromSlice, mid);
+    fromSlice = mid;
+    return split;
+  }
+
+  protected SearchResponse await(CompletableFuture<SearchResponse> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryRuntimeException(e);
+    } catch (ExecutionException e) {
+      throw new QueryRuntimeException(e.getCause());
+    }
+  }
+
+  protected void clearScroll(String scrollId) {
+    if (scrollId != null) {
+      client.prepareClearScroll().addScrollId(scrollId)
+          .execute(ActionListener.wrap(r -> logger.finer(() -> "Cleared the scroll context."),
+              e -> logger.log(Level.WARNING, e, () -> "Clear the scroll context occurred error!")));
+    }
+  }
+
+  /**
+   * Fetch the next batch of the hits, if the current scroll is exhausted, its scroll context is
+   * cleared and the next slice is opened.
+   *
+   * @return true if there are more hits
+   */
+  protected boolean nextBatch() {
+    started = true;
+    while (!closed) {
+      SearchResponse response;
+      if (prefetch != null) {
+        response = await(prefetch);
+        prefetch = null;
+      } else if (fromSlice < toSlice) {
+        response = open(fromSlice++);
+      } else {
+        return false;
+      }
+      scrollId = response.getScrollId();
+      hits = response.getHits().getHits();
+      cursor = 0;
+      if (hits.length > 0) {
+        prefetch = scroll(scrollId);
+        return true;
+      }
+      clearScroll(scrollId);
+      scrollId = null;
+    }
+    return false;
+  }
+
+  protected SearchResponse open(int slice) {
+    SearchRequestBuilder request = client.prepareSearch(indexName);
+    if (callback != null) {
+      callback.accept(request);
+    }
+    if (slices > 1) {
+      request.slice(new SliceBuilder(slice, slices));
+    }
+    return request.setScroll(scrollKeepAlive).setSize(getBatchSize()).get();
+  }
+
+  protected void release() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    hits = EMPTY_HITS;
+    final String id = scrollId;
+    final CompletableFuture<SearchResponse> pending = prefetch;
+    scrollId = null;
+    prefetch = null;
+    if (pending != null) {
+      pending.whenComplete((r, e) -> clearScroll(r != null ? r.getScrollId() : id));
+    } else {
+      clearScroll(id);
+    }
+  }
+
+  protected CompletableFuture<SearchResponse> scroll(String scrollId) {
+    final CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+    client.prepareSearchScroll(scrollId).setScroll(scrollKeepAlive)
+        .execute(ActionListener.wrap(future::complete, future::completeExceptionally));
+    return future;
+  }
+}
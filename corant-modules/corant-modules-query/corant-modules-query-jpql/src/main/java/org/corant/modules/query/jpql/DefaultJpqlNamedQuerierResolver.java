@@ -58,7 +58,7 @@ public class DefaultJpqlNamedQuerierResolver
       Query query = resolveQuery(name);
       builder = builders.computeIfAbsent(name, k -> createBuilder(query));
     }
-    return forceCast(builder.build(param));
+    return forceCast(buildQuerier(name, builder, param));
   }
 
   protected DynamicQuerierBuilder createBuilder(Query query) {
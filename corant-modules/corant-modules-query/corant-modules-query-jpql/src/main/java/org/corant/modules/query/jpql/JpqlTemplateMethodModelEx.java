@@ -61,6 +61,11 @@ public class JpqlTemplateMethodModelEx extends AbstractTemplateMethodModelEx<Obj
     return parameters.toArray(new Object[parameters.size()]);
   }
 
+  @Override
+  public boolean isParameterized() {
+    return true;
+  }
+
   String getPlaceHolder() {
     String pl = SQL_PS_PLACE_HOLDER + seq;
     seq++;
@@ -286,6 +286,7 @@ public abstract class AbstractMgNamedQueryService extends AbstractNamedQueryServ
     final boolean autoClose = parameter.isAutoClose();
     final Iterator<T> iterator = new Iterator<>() {
       int counter = 0;
+      int position = 0;
       Forwarding<T> buffer = null;
       T next = null;
 
@@ -294,9 +295,10 @@ public abstract class AbstractMgNamedQueryService extends AbstractNamedQueryServ
         initialize();
         boolean more = false;
         if (!parameter.terminateIf(counter, next)) {
-          if (!buffer.hasResults()) {
+          if (position >= buffer.getResults().size()) {
             if (buffer.hasNext()) {
               buffer.with(doForward(cursor));
+              position = 0;
               more = buffer.hasResults();
             }
           } else {
@@ -312,11 +314,11 @@ public abstract class AbstractMgNamedQueryService extends AbstractNamedQueryServ
       @Override
       public T next() {
         initialize();
-        if (!buffer.hasResults()) {
+        if (position >= buffer.getResults().size()) {
           throw new NoSuchElementException();
         }
         counter++;
-        next = buffer.getResults().remove(0);
+        next = buffer.getResults().get(position++);
         return next;
       }
 
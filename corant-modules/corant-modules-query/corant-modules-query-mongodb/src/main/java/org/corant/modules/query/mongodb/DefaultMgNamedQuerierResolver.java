@@ -54,7 +54,7 @@ public class DefaultMgNamedQuerierResolver extends AbstractNamedQuerierResolver<
       Query query = resolveQuery(name);
       builder = builders.computeIfAbsent(name, k -> createBuilder(query));
     }
-    return forceCast(builder.build(param));
+    return forceCast(buildQuerier(name, builder, param));
   }
 
   protected FreemarkerMgQuerierBuilder createBuilder(Query query) {
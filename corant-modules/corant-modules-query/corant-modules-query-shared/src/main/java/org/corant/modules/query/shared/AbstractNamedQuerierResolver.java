@@ -13,6 +13,7 @@
  */
 package org.corant.modules.query.shared;
 
+import static org.corant.shared.util.Objects.forceCast;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import org.corant.modules.query.FetchQueryHandler;
@@ -21,6 +22,8 @@ import org.corant.modules.query.QueryRuntimeException;
 import org.corant.modules.query.mapping.Query;
 import org.corant.modules.query.shared.QueryMappingService.BeforeQueryMappingInitializeHandler;
 import org.corant.modules.query.shared.dynamic.DynamicQuerier;
+import org.corant.modules.query.shared.dynamic.DynamicQuerierBuilder;
+import org.corant.modules.query.shared.metrics.QueryExecutionSample;
 import net.jcip.annotations.GuardedBy;
 
 /**
@@ -57,6 +60,28 @@ public abstract class AbstractNamedQuerierResolver<Q extends DynamicQuerier<?, ?
     return queryHandler;
   }
 
+  /**
+   * Build the querier with the given builder and parameter, if the query execution is being
+   * sampled, the render time and the rendered querier are reported to the sample.
+   *
+   * @param name the query name that use to resolve the querier
+   * @param builder the querier builder
+   * @param param the query parameter
+   * @return the querier
+   *
+   * @see QueryExecutionSample
+   */
+  protected Q buildQuerier(String name, DynamicQuerierBuilder<?, ?, ?> builder, Object param) {
+    QueryExecutionSample sample = QueryExecutionSample.current();
+    if (sample == null) {
+      return forceCast(builder.build(param));
+    }
+    long start = System.nanoTime();
+    DynamicQuerier<?, ?> querier = builder.build(param);
+    sample.rendered(name, querier, System.nanoTime() - start);
+    return forceCast(querier);
+  }
+
   @GuardedBy("QueryMappingService.rwl.readLock")
   protected Query resolveQuery(String name) {
     Query query = getMappingService().getQuery(name);
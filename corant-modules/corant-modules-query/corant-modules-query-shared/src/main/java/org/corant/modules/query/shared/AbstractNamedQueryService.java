@@ -14,40 +14,63 @@
 package org.corant.modules.query.shared;
 
 import static java.util.stream.Collectors.toList;
-import static org.corant.context.Beans.resolve;
+import static org.corant.context.BeanLookupCache.find;
+import static org.corant.context.BeanLookupCache.findNamed;
+import static org.corant.context.BeanLookupCache.resolve;
 import static org.corant.shared.util.Assertions.shouldNotNull;
 import static org.corant.shared.util.Empties.isEmpty;
 import static org.corant.shared.util.Empties.isNotEmpty;
+import static org.corant.shared.util.Empties.sizeOf;
+import static org.corant.shared.util.Lists.split;
 import static org.corant.shared.util.Objects.areEqual;
 import static org.corant.shared.util.Objects.asStrings;
 import static org.corant.shared.util.Objects.defaultObject;
 import static org.corant.shared.util.Objects.max;
 import static org.corant.shared.util.Streams.streamOf;
 import static org.corant.shared.util.Strings.isBlank;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToIntFunction;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 import javax.annotation.PreDestroy;
 import org.corant.Corant;
+import org.corant.modules.query.AsyncNamedQueryService;
 import org.corant.modules.query.NamedQuerier;
 import org.corant.modules.query.NamedQueryService;
 import org.corant.modules.query.Querier;
+import org.corant.modules.query.QuerierConfig;
 import org.corant.modules.query.QueryObjectMapper;
 import org.corant.modules.query.QueryParameter;
 import org.corant.modules.query.QueryParameter.StreamQueryParameter;
 import org.corant.modules.query.QueryRuntimeException;
 import org.corant.modules.query.mapping.FetchQuery;
 import org.corant.modules.query.mapping.FetchQuery.FetchQueryParameterSource;
+import org.corant.modules.query.mapping.Query;
 import org.corant.modules.query.mapping.Query.QueryType;
+import org.corant.modules.query.shared.cache.QueryResultCache;
 import org.corant.modules.query.shared.dynamic.DynamicQuerier;
+import org.corant.modules.query.shared.metrics.QueryExecutionSample;
+import org.corant.modules.query.shared.metrics.QueryMetrics;
 import org.corant.shared.retry.RetryStrategy.MaxAttemptsRetryStrategy;
+import org.corant.shared.ubiquity.Throwing.ThrowingSupplier;
 import org.corant.shared.ubiquity.Tuple.Pair;
 import org.corant.shared.util.Retry;
 
@@ -62,12 +85,71 @@ public abstract class AbstractNamedQueryService implements NamedQueryService {
   protected static final Map<String, NamedQueryService> fetchQueryServices =
       new ConcurrentHashMap<>();// static?
 
+  /**
+   * Marks the threads that are executing the query tasks on the query executors, the subtasks (the
+   * parallel fetch queries, the parallel count queries and the stream prefetches) required by these
+   * threads are executed in the current threads instead of being submitted to the executors, so
+   * that the tasks never wait for the subtasks queued behind them in a bounded executor.
+   */
+  protected static final ThreadLocal<Boolean> queryWorkers = new ThreadLocal<>();
+
   protected Logger logger = Logger.getLogger(getClass().getName());
 
+  /**
+   * Returns an executor that executes the tasks on the given executor and marks the executing
+   * threads as the query workers, returns null if the given executor is null.
+   *
+   * @param executor the executor to execute the tasks
+   */
+  protected static Executor asQueryWorkers(Executor executor) {
+    if (executor == null) {
+      return null;
+    }
+    return command -> executor.execute(() -> {
+      if (queryWorkers.get() != null) {
+        command.run();
+        return;
+      }
+      queryWorkers.set(Boolean.TRUE);
+      try {
+        command.run();
+      } finally {
+        queryWorkers.remove();
+      }
+    });
+  }
+
+  /**
+   * Returns whether the current thread is executing a query task on a query executor, if true the
+   * subtasks should be executed in the current thread.
+   */
+  protected static boolean isQueryWorker() {
+    return queryWorkers.get() != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The returned service executes the queries of this service on the executor that returned by
+   * {@link #getAsyncExecutor()}, if the executor is shared with the subtasks, the subtasks of the
+   * asynchronous queries are executed in the asynchronous query threads.
+   *
+   * @see DefaultAsyncNamedQueryService
+   * @see #isAsyncExecutorShared()
+   */
+  @Override
+  public AsyncNamedQueryService async() {
+    return new DefaultAsyncNamedQueryService(this, () -> {
+      ExecutorService executor = getAsyncExecutor();
+      return executor != null && isAsyncExecutorShared() ? asQueryWorkers(executor) : executor;
+    });
+  }
+
   @Override
   public <T> Forwarding<T> forward(String q, Object p) {
     try {
-      return doForward(q, p);
+      return monitor(q, p, "forward", () -> doForward(q, p),
+          (Forwarding<T> r) -> r == null ? 0 : sizeOf(r.getResults()));
     } catch (Exception e) {
       throw new QueryRuntimeException(e,
           "An error occurred while executing the forward query [%s]!", q);
@@ -77,7 +159,8 @@ public abstract class AbstractNamedQueryService implements NamedQueryService {
   @Override
   public <T> T get(String q, Object p) {
     try {
-      return doGet(q, p);
+      return monitor(q, p, "get", () -> cacheable(q, p, "get", () -> doGet(q, p)),
+          (T r) -> r == null ? 0 : 1);
     } catch (Exception e) {
       throw new QueryRuntimeException(e, "An error occurred while executing the get query [%s]!",
           q);
@@ -100,7 +183,8 @@ public abstract class AbstractNamedQueryService implements NamedQueryService {
   @Override
   public <T> Paging<T> page(String q, Object p) {
     try {
-      return doPage(q, p);
+      return monitor(q, p, "page", () -> cacheable(q, p, "page", () -> doPage(q, p)),
+          (Paging<T> r) -> r == null ? 0 : sizeOf(r.getResults()));
     } catch (Exception e) {
       throw new QueryRuntimeException(e, "An error occurred while executing the page query [%s]!",
           q);
@@ -110,7 +194,8 @@ public abstract class AbstractNamedQueryService implements NamedQueryService {
   @Override
   public <T> List<T> select(String q, Object p) {
     try {
-      return doSelect(q, p);
+      return monitor(q, p, "select", () -> cacheable(q, p, "select", () -> doSelect(q, p)),
+          (List<T> r) -> sizeOf(r));
     } catch (Exception e) {
       throw new QueryRuntimeException(e, "An error occurred while executing the select query [%s]",
           q);
@@ -136,11 +221,88 @@ public abstract class AbstractNamedQueryService implements NamedQueryService {
       useQueryParam = new StreamQueryParameter(queryParam);
     }
     useQueryParam.limit(max(querier.resolveStreamLimit(), 1));
+    if (useQueryParam.getReadAhead() <= 0) {
+      useQueryParam.readAhead(
+          querier.resolveProperty(QuerierConfig.PRO_KEY_STREAM_READ_AHEAD, Integer.class, 0));
+    }
     return doStream(queryName, useQueryParam);
   }
 
+  /**
+   * Execute the given query executor, if the query enables the
+   * {@link QuerierConfig#PRO_KEY_RESULT_CACHE} property and the result cache is available, the
+   * result is cached by the query result cache.
+   *
+   * @param <T> the result type
+   * @param q the query name
+   * @param p the query parameter
+   * @param kind the query kind, e.g. get/select/page
+   * @param executor the query executor
+   * @return the query result
+   * @throws Exception if the query fails
+   *
+   * @see QueryResultCache
+   */
+  protected <T> T cacheable(String q, Object p, String kind,
+      ThrowingSupplier<T, Exception> executor) throws Exception {
+    Query query = getQuerierResolver().getMappingService().getQuery(q);
+    if (query != null
+        && query.getProperty(QuerierConfig.PRO_KEY_RESULT_CACHE, Boolean.class, Boolean.FALSE)) {
+      QueryResultCache cache = getResultCache();
+      if (cache != null) {
+        return cache.computeIfAbsent(query, kind,
+            getQuerierResolver().getQueryHandler().resolveParameter(query, p), executor);
+      }
+    }
+    return executor.get();
+  }
+
   protected abstract <T> Forwarding<T> doForward(String q, Object p) throws Exception;
 
+  /**
+   * Execute the given query executor, if the querier config enables metrics, the execution time,
+   * the result size, the script render time and the fetch query fan-out are reported to the query
+   * metrics, and the slow execution is logged.
+   *
+   * @param <R> the result type
+   * @param q the query name
+   * @param p the query parameter
+   * @param kind the query kind, e.g. get/select/page/forward
+   * @param executor the query executor
+   * @param sizer the result size function
+   * @return the query result
+   * @throws Exception if the query fails
+   *
+   * @see QueryMetrics
+   * @see QuerierConfig#isEnableMetrics()
+   */
+  protected <R> R monitor(String q, Object p, String kind, ThrowingSupplier<R, Exception> executor,
+      ToIntFunction<R> sizer) throws Exception {
+    final QuerierConfig config = getQuerierResolver().getQueryHandler().getQuerierConfig();
+    final QueryMetrics metrics;
+    if (!config.isEnableMetrics() || (metrics = getMetrics()) == null) {
+      return executor.get();
+    }
+    final QueryExecutionSample sample = QueryExecutionSample.begin(q);
+    R result = null;
+    boolean failed = true;
+    try {
+      result = executor.get();
+      failed = false;
+      return result;
+    } finally {
+      long elapsed = sample.end();
+      metrics.recordExecution(q, kind, elapsed, failed ? 0 : sizer.applyAsInt(result), failed);
+      if (sample.getRenderNanos() > 0) {
+        metrics.recordRender(q, sample.getRenderNanos());
+      }
+      if (sample.getFetchFanOut() > 0) {
+        metrics.recordFetch(q, sample.getFetchFanOut());
+      }
+      logSlowQuery(q, p, kind, elapsed, sample, config);
+    }
+  }
+
   protected abstract <T> T doGet(String q, Object p) throws Exception;
 
   protected abstract <T> Paging<T> doPage(String q, Object p) throws Exception;
@@ -154,60 +316,74 @@ public abstract class AbstractNamedQueryService implements NamedQueryService {
    * @param queryName the query name
    * @param param the query parameter
    * @return stream the query result stream
+   *
+   * @see ForwardingIterator
    */
   protected <T> Stream<T> doStream(String queryName, StreamQueryParameter param) {
-    return streamOf(new Iterator<T>() {
-      Forwarding<T> buffer = null;
-      int counter = 0;
-      T next = null;
-
-      @Override
-      public boolean hasNext() {
-        initialize();
-        if (!param.terminateIf(counter, next)) {
-          if (!buffer.hasResults()) {
-            if (buffer.hasNext()) {
-              buffer.with(doForward(queryName, param.forward(next)));
-              return buffer.hasResults();
-            }
-          } else {
-            return true;
-          }
-        }
-        return false;
-      }
-
-      @Override
-      public T next() {
-        initialize();
-        if (!buffer.hasResults()) {
-          throw new NoSuchElementException();
-        }
-        counter++;
-        next = buffer.getResults().remove(0);
-        return next;
-      }
+    final ForwardingIterator<T> iterator = new ForwardingIterator<>(queryName, param);
+    return streamOf(iterator).onClose(iterator::close);
+  }
 
-      private Forwarding<T> doForward(String queryName, StreamQueryParameter parameter) {
-        if (parameter.needRetry()) {
-          return Retry.synchronousRetryer()
-              .retryStrategy(
-                  new MaxAttemptsRetryStrategy(parameter.getRetryTimes() + 1))
-              .backoffStrategy(parameter.getRetryBackoffStrategy())
-              .retryPrecondition(c -> Corant.current() != null && Corant.current().isRunning())
-              .execute(() -> forward(queryName, parameter));
-        } else {
-          return forward(queryName, parameter);
-        }
-      }
+  /**
+   * Execute the fetch query in batch fetch mode, the parent results that decided to fetch are
+   * split into batches according to the fetch query batch size, and the fetch query is executed
+   * once per batch, returns the fetch result and the parent results batch pairs.
+   *
+   * @param <T> the parent result type
+   * @param results the parent results
+   * @param fetchQuery the fetch query
+   * @param fetchQueryService the fetch query service
+   * @param parentQuerier the parent querier
+   *
+   * @see FetchQuery#isBatchFetch()
+   */
+  protected <T> List<Pair<FetchResult, Object>> batchFetch(List<T> results, FetchQuery fetchQuery,
+      NamedQueryService fetchQueryService, Querier parentQuerier) {
+    List<T> decideResults = results.stream()
+        .filter(r -> parentQuerier.decideFetch(r, fetchQuery)).collect(toList());
+    List<Pair<FetchResult, Object>> fetchResults = new ArrayList<>();
+    for (List<T> batch : split(fetchQuery.getBatchSize(), decideResults)) {
+      fetchResults.add(Pair.of(fetchQueryService.fetch(batch, fetchQuery, parentQuerier), batch));
+    }
+    return fetchResults;
+  }
 
-      private void initialize() {
-        if (buffer == null) {
-          buffer = defaultObject(doForward(queryName, param), Forwarding::inst);
-          counter = buffer.hasResults() ? 1 : 0;
-        }
+  /**
+   * Wait for the fetch result of the given slot until the given deadline, if an error occurs or the
+   * deadline passes, all slots will be cancelled with interruption and a
+   * {@link QueryRuntimeException} will be thrown.
+   *
+   * @param <R> the fetch result type
+   * @param slots the fetch result slots
+   * @param index the slot index to wait
+   * @param fetchQuery the fetch query of the slot
+   * @param timeout the parallel fetch timeout, null means wait without timeout
+   * @param deadline the {@link System#nanoTime()} deadline of all slots, only takes effect when the
+   *        timeout is not null
+   */
+  protected <R> R awaitFetch(List<? extends Future<R>> slots, int index, FetchQuery fetchQuery,
+      Duration timeout, long deadline) {
+    try {
+      Future<R> slot = slots.get(index);
+      return timeout == null ? slot.get()
+          : slot.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      slots.forEach(f -> f.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new QueryRuntimeException(e);
+    } catch (ExecutionException e) {
+      slots.forEach(f -> f.cancel(true));
+      if (e.getCause() instanceof QueryRuntimeException) {
+        throw (QueryRuntimeException) e.getCause();
       }
-    });
+      throw new QueryRuntimeException(e.getCause(),
+          "An error occurred while executing the fetch query [%s]!",
+          fetchQuery.getReferenceQuery().getVersionedName());
+    } catch (TimeoutException e) {
+      slots.forEach(f -> f.cancel(true));
+      throw new QueryRuntimeException(e, "The fetch query [%s] execution timed out [%s]!",
+          fetchQuery.getReferenceQuery().getVersionedName(), timeout);
+    }
   }
 
   protected <T> void fetch(List<T> results, Querier parentQuerier) {
@@ -235,6 +411,101 @@ public abstract class AbstractNamedQueryService implements NamedQueryService {
 
   protected abstract AbstractNamedQuerierResolver<? extends NamedQuerier> getQuerierResolver();
 
+  /**
+   * Returns the executor service used to execute the asynchronous queries, if returns null the
+   * asynchronous queries are executed in the caller thread. Default, returns the managed executor
+   * service named {@link QuerierConfig#getAsyncExecutorName()}.
+   *
+   * @see #async()
+   */
+  protected ExecutorService getAsyncExecutor() {
+    return findNamed(ExecutorService.class,
+        getQuerierResolver().getQueryHandler().getQuerierConfig().getAsyncExecutorName())
+            .orElse(null);
+  }
+
+  /**
+   * Returns the executor service used to execute the fetch queries in parallel, if returns null
+   * the fetch queries are executed serially. Default, returns the managed executor service named
+   * {@link QuerierConfig#getExecutorName()}. The fetch queries required by the query workers are
+   * always executed serially.
+   *
+   * @see #isQueryWorker()
+   */
+  protected ExecutorService getFetchExecutor() {
+    return findNamed(ExecutorService.class,
+        getQuerierResolver().getQueryHandler().getQuerierConfig().getExecutorName()).orElse(null);
+  }
+
+  /**
+   * Returns whether the asynchronous query executor is shared with the subtasks (the parallel fetch
+   * queries, the parallel count queries and the stream prefetches), if true the subtasks of the
+   * asynchronous queries are executed in the asynchronous query threads. Default, returns true if
+   * {@link QuerierConfig#getAsyncExecutorName()} equals {@link QuerierConfig#getExecutorName()}.
+   */
+  protected boolean isAsyncExecutorShared() {
+    QuerierConfig config = getQuerierResolver().getQueryHandler().getQuerierConfig();
+    return areEqual(config.getAsyncExecutorName(), config.getExecutorName());
+  }
+
+  /**
+   * Returns the query metrics, if returns null the query executions are not monitored. Default,
+   * returns the {@link QueryMetrics} bean if it is available.
+   */
+  protected QueryMetrics getMetrics() {
+    return find(QueryMetrics.class).orElse(null);
+  }
+
+  /**
+   * Returns the query result cache, if returns null the query results are not cached. Default,
+   * returns the {@link QueryResultCache} bean if it is available.
+   */
+  protected QueryResultCache getResultCache() {
+    return find(QueryResultCache.class).orElse(null);
+  }
+
+  /**
+   * Returns the executor service used to prefetch the subsequent batches of the stream query, if
+   * returns null the read-ahead is disabled and the batches are fetched synchronously. Default,
+   * returns the managed executor service named {@link QuerierConfig#getExecutorName()}. The
+   * read-ahead of the stream queries that are opened by the query workers is always disabled.
+   *
+   * @see #isQueryWorker()
+   */
+  protected ExecutorService getStreamExecutor() {
+    return findNamed(ExecutorService.class,
+        getQuerierResolver().getQueryHandler().getQuerierConfig().getExecutorName()).orElse(null);
+  }
+
+  /**
+   * Log the slow query execution with the rendered script if the execution time exceeds the slow
+   * query threshold, the threshold can be specified by the query property
+   * {@link QuerierConfig#PRO_KEY_SLOW_QUERY_THRESHOLD} or the querier config.
+   *
+   * @param q the query name
+   * @param p the query parameter
+   * @param kind the query kind
+   * @param elapsedNanos the execution time in nanoseconds
+   * @param sample the execution sample
+   * @param config the querier config
+   */
+  protected void logSlowQuery(String q, Object p, String kind, long elapsedNanos,
+      QueryExecutionSample sample, QuerierConfig config) {
+    Query query = getQuerierResolver().getMappingService().getQuery(q);
+    Duration threshold = defaultObject(
+        query == null ? null
+            : query.getProperty(QuerierConfig.PRO_KEY_SLOW_QUERY_THRESHOLD, Duration.class),
+        config::getSlowQueryThreshold);
+    if (threshold != null && elapsedNanos > threshold.toNanos()) {
+      DynamicQuerier<?, ?> querier = sample.getQuerier();
+      logger.warning(() -> String.format(
+          "%n[Slow query name]: %s; %n[Slow query kind]: %s; %n[Slow query elapsed]: %s ms; %n[Slow query parameters]: %s; %n[Slow query script]: %s.",
+          q, kind, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+          getQuerierResolver().getQueryHandler().getObjectMapper().toJsonString(p, false, true),
+          querier == null ? null : querier.getScript()));
+    }
+  }
+
   protected void log(String name, Object param, String... script) {
     logger.fine(() -> String.format(
         "%n[QueryService name]: %s; %n[QueryService parameters]: %s; %n[QueryService script]: %s.",
@@ -249,72 +520,97 @@ public abstract class AbstractNamedQueryService implements NamedQueryService {
         name, String.join(",", asStrings(param)), String.join(";\n", script)));
   }
 
+  /**
+   * Execute the fetch queries of the parent querier concurrently on the fetch executor, each fetch
+   * query has its own result slot, the fetched results are injected into the parent results in the
+   * order of the fetch queries. If the fetch executor is unavailable, the fetch queries are
+   * executed serially. The parallel fetch timeout limits the total wait time of all the fetch
+   * queries since they are submitted, the running fetch queries are interrupted when it expires.
+   *
+   * @param <T> the parent result type
+   * @param results the parent results
+   * @param parentQuerier the parent querier
+   *
+   * @see #getFetchExecutor()
+   * @see QuerierConfig#PRO_KEY_PARALLEL_FETCH_TIMEOUT
+   */
   protected <T> void parallelFetch(List<T> results, Querier parentQuerier) {
-    // parallel fetch, experimental features for proof of concept.
-    List<FetchQuery> fetchQueries = new ArrayList<>(parentQuerier.getQuery().getFetchQueries());
-    final Collection<Pair<FetchResult, Object>> workResults = new LinkedBlockingQueue<>();
-    fetchQueries.parallelStream().forEach(fq -> {
-      final NamedQueryService fqs = resolveFetchQueryService(fq);
-      if (fq.isEagerInject()) {
-        for (T result : results) {
-          if (parentQuerier.decideFetch(result, fq)) {
-            FetchResult fr = fqs.fetch(result, fq, parentQuerier);
-            workResults.add(Pair.of(fr, result));
-          }
-        }
-      } else {
-        List<T> decideResults =
-            results.stream().filter(r -> parentQuerier.decideFetch(r, fq)).collect(toList());
-        boolean fetch = true;
-        if (isEmpty(decideResults) && isNotEmpty(fq.getParameters())
-            && fq.getParameters().stream()
-                .noneMatch(fp -> fp.getSource() == FetchQueryParameterSource.C
-                    || fp.getSource() == FetchQueryParameterSource.P)) {
-          fetch = false;
-        }
-        if (fetch) {
-          FetchResult fr = fqs.fetch(decideResults, fq, parentQuerier);
-          workResults.add(Pair.of(fr, decideResults));
-        }
+    final Executor executor = isQueryWorker() ? null : asQueryWorkers(getFetchExecutor());
+    if (executor == null) {
+      serialFetch(results, parentQuerier);
+      return;
+    }
+    final List<FetchQuery> fetchQueries = parentQuerier.getQuery().getFetchQueries();
+    final Duration timeout = resolveParallelFetchTimeout(parentQuerier);
+    final long deadline = timeout == null ? 0L : System.nanoTime() + timeout.toNanos();
+    final List<FutureTask<List<Pair<FetchResult, Object>>>> slots =
+        new ArrayList<>(fetchQueries.size());
+    for (FetchQuery fq : fetchQueries) {
+      slots.add(submitFetch(executor, () -> parallelFetch(results, fq, parentQuerier)));
+    }
+    for (int i = 0; i < slots.size(); i++) {
+      for (Pair<FetchResult, Object> pair : awaitFetch(slots, i, fetchQueries.get(i), timeout,
+          deadline)) {
+        postFetch(pair.key(), parentQuerier, pair.value());
       }
-    });
+    }
+  }
 
-    for (FetchQuery fq : fetchQueries) {
-      Iterator<Pair<FetchResult, Object>> it = workResults.iterator();
-      while (it.hasNext()) {
-        Pair<FetchResult, Object> pair = it.next();
-        if (areEqual(pair.key().fetchQuery, fq)) {
-          postFetch(pair.key(), parentQuerier, pair.value());
-          it.remove();
+  protected <T> List<Pair<FetchResult, Object>> parallelFetch(List<T> results, FetchQuery fq,
+      Querier parentQuerier) {
+    final NamedQueryService fqs = resolveFetchQueryService(fq);
+    final List<Pair<FetchResult, Object>> fetchResults = new ArrayList<>();
+    if (fq.isBatchFetch()) {
+      fetchResults.addAll(batchFetch(results, fq, fqs, parentQuerier));
+    } else if (fq.isEagerInject()) {
+      for (T result : results) {
+        if (parentQuerier.decideFetch(result, fq)) {
+          fetchResults.add(Pair.of(fqs.fetch(result, fq, parentQuerier), result));
         }
       }
+    } else {
+      List<T> decideResults =
+          results.stream().filter(r -> parentQuerier.decideFetch(r, fq)).collect(toList());
+      boolean fetch = true;
+      if (isEmpty(decideResults) && isNotEmpty(fq.getParameters())
+          && fq.getParameters().stream()
+              .noneMatch(fp -> fp.getSource() == FetchQueryParameterSource.C
+                  || fp.getSource() == FetchQueryParameterSource.P)) {
+        fetch = false;
+      }
+      if (fetch) {
+        fetchResults.add(Pair.of(fqs.fetch(decideResults, fq, parentQuerier), decideResults));
+      }
     }
+    return fetchResults;
   }
 
   protected <T> void parallelFetch(T result, Querier parentQuerier) {
-    // parallel fetch, experimental functions for proof of concept.
-    List<FetchQuery> fetchQueries = new ArrayList<>(parentQuerier.getQuery().getFetchQueries());
-    Collection<FetchResult> workResults = new LinkedBlockingQueue<>();
-    fetchQueries.parallelStream().forEach(fq -> {
-      NamedQueryService fetchQueryService = resolveFetchQueryService(fq);
-      if (parentQuerier.decideFetch(result, fq)) {
-        FetchResult fr = fetchQueryService.fetch(result, fq, parentQuerier);
-        workResults.add(fr);
-      }
-    });
+    final Executor executor = isQueryWorker() ? null : asQueryWorkers(getFetchExecutor());
+    if (executor == null) {
+      serialFetch(result, parentQuerier);
+      return;
+    }
+    final List<FetchQuery> fetchQueries = parentQuerier.getQuery().getFetchQueries();
+    final Duration timeout = resolveParallelFetchTimeout(parentQuerier);
+    final long deadline = timeout == null ? 0L : System.nanoTime() + timeout.toNanos();
+    final List<FutureTask<FetchResult>> slots = new ArrayList<>(fetchQueries.size());
     for (FetchQuery fq : fetchQueries) {
-      Iterator<FetchResult> it = workResults.iterator();
-      while (it.hasNext()) {
-        FetchResult fr = it.next();
-        if (areEqual(fr.fetchQuery, fq)) {
-          postFetch(fr, parentQuerier, result);
-          it.remove();
-        }
-      }
+      slots.add(submitFetch(executor, () -> parentQuerier.decideFetch(result, fq)
+          ? resolveFetchQueryService(fq).fetch(result, fq, parentQuerier)
+          : null));
+    }
+    for (int i = 0; i < slots.size(); i++) {
+      postFetch(awaitFetch(slots, i, fetchQueries.get(i), timeout, deadline), parentQuerier,
+          result);
     }
   }
 
   protected void postFetch(FetchResult fetchResult, Querier parentQuerier, Object result) {
+    QueryExecutionSample sample;
+    if (fetchResult != null && (sample = QueryExecutionSample.current()) != null) {
+      sample.fetched();
+    }
     if (fetchResult != null && isNotEmpty(fetchResult.fetchedList)) {
       fetch(fetchResult.fetchedList, fetchResult.fetchQuerier);// Next fetch
       fetchResult.fetchQuerier.handleResultHints(fetchResult.fetchedList);
@@ -340,10 +636,41 @@ public abstract class AbstractNamedQueryService implements NamedQueryService {
     });
   }
 
+  protected Duration resolveParallelFetchTimeout(Querier parentQuerier) {
+    if (parentQuerier instanceof DynamicQuerier) {
+      return ((DynamicQuerier<?, ?>) parentQuerier)
+          .resolveProperty(QuerierConfig.PRO_KEY_PARALLEL_FETCH_TIMEOUT, Duration.class, null);
+    }
+    return null;
+  }
+
+  /**
+   * Submit the given fetch task to the given executor, the returned slot can be cancelled with
+   * interruption. If the executor rejects the task, the task is executed in the current thread.
+   *
+   * @param <R> the fetch result type
+   * @param executor the fetch executor
+   * @param task the fetch task
+   */
+  protected <R> FutureTask<R> submitFetch(Executor executor, Callable<R> task) {
+    FutureTask<R> slot = new FutureTask<>(task);
+    try {
+      executor.execute(slot);
+    } catch (RejectedExecutionException e) {
+      slot.run();
+    }
+    return slot;
+  }
+
   protected <T> void serialFetch(List<T> results, Querier parentQuerier) {
     for (FetchQuery fq : parentQuerier.getQuery().getFetchQueries()) {
       NamedQueryService fetchQueryService = resolveFetchQueryService(fq);
-      if (fq.isEagerInject()) {
+      if (fq.isBatchFetch()) {
+        for (Pair<FetchResult, Object> batch : batchFetch(results, fq, fetchQueryService,
+            parentQuerier)) {
+          postFetch(batch.key(), parentQuerier, batch.value());
+        }
+      } else if (fq.isEagerInject()) {
         for (T result : results) {
           if (parentQuerier.decideFetch(result, fq)) {
             FetchResult fr = fetchQueryService.fetch(result, fq, parentQuerier);
@@ -375,6 +702,145 @@ public abstract class AbstractNamedQueryService implements NamedQueryService {
     }
   }
 
+  /**
+   * corant-modules-query-shared
+   *
+   * <p>
+   * The stream query iterator, use {@link AbstractNamedQueryService#forward(String, Object)} to
+   * fetch data records in batches and consume each batch through an index cursor. If the read-ahead
+   * depth of the stream query parameter is greater than 0, the subsequent batches are prefetched in
+   * background while the current batch is being consumed.
+   *
+   * @author bingo 下午3:26:15
+   *
+   */
+  protected class ForwardingIterator<T> implements Iterator<T> {
+
+    protected final String queryName;
+    protected final StreamQueryParameter param;
+    protected final Deque<CompletableFuture<Forwarding<T>>> prefetches = new ArrayDeque<>();
+    protected final Executor executor;
+    protected final int readAhead;
+    protected Forwarding<T> buffer = null;
+    protected List<T> results = null;
+    protected int cursor = 0;
+    protected int counter = 0;
+    protected T next = null;
+    protected volatile boolean closed = false;
+
+    protected ForwardingIterator(String queryName, StreamQueryParameter param) {
+      this.queryName = queryName;
+      this.param = param;
+      executor = param.getReadAhead() > 0 && !isQueryWorker()
+          ? asQueryWorkers(getStreamExecutor())
+          : null;
+      readAhead = executor != null ? param.getReadAhead() : 0;
+    }
+
+    /**
+     * Cancel all pending prefetches.
+     */
+    public void close() {
+      closed = true;
+      CompletableFuture<Forwarding<T>> prefetch;
+      while ((prefetch = prefetches.poll()) != null) {
+        prefetch.cancel(false);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      initialize();
+      if (!param.terminateIf(counter, next)) {
+        if (cursor >= results.size()) {
+          if (buffer.hasNext()) {
+            install(forwardNext());
+            return cursor < results.size();
+          }
+        } else {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public T next() {
+      initialize();
+      if (cursor >= results.size()) {
+        throw new NoSuchElementException();
+      }
+      counter++;
+      next = results.get(cursor++);
+      return next;
+    }
+
+    protected Forwarding<T> await(CompletableFuture<Forwarding<T>> prefetch) {
+      try {
+        return prefetch.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new QueryRuntimeException(e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof QueryRuntimeException) {
+          throw (QueryRuntimeException) e.getCause();
+        }
+        throw new QueryRuntimeException(e.getCause(),
+            "An error occurred while prefetching the stream query [%s]!", queryName);
+      }
+    }
+
+    protected Forwarding<T> doForward(StreamQueryParameter parameter) {
+      if (parameter.needRetry()) {
+        return Retry.synchronousRetryer()
+            .retryStrategy(new MaxAttemptsRetryStrategy(parameter.getRetryTimes() + 1))
+            .backoffStrategy(parameter.getRetryBackoffStrategy())
+            .retryPrecondition(c -> Corant.current() != null && Corant.current().isRunning())
+            .execute(() -> forward(queryName, parameter));
+      } else {
+        return forward(queryName, parameter);
+      }
+    }
+
+    protected Forwarding<T> forwardAfter(Forwarding<T> previous) {
+      if (closed || !previous.hasNext() || !previous.hasResults()) {
+        return Forwarding.inst();
+      }
+      List<T> previousResults = previous.getResults();
+      T last = previousResults.get(previousResults.size() - 1);
+      return defaultObject(doForward(param.forward(last)), Forwarding::inst);
+    }
+
+    protected Forwarding<T> forwardNext() {
+      CompletableFuture<Forwarding<T>> prefetch = prefetches.poll();
+      if (prefetch != null) {
+        return await(prefetch);
+      }
+      return doForward(param.forward(next));
+    }
+
+    protected void initialize() {
+      if (buffer == null) {
+        install(doForward(param));
+        counter = buffer.hasResults() ? 1 : 0;
+      }
+    }
+
+    protected void install(Forwarding<T> forwarding) {
+      buffer = defaultObject(forwarding, Forwarding::inst);
+      results = buffer.getResults();
+      cursor = 0;
+      if (readAhead > 0 && !closed && buffer.hasNext() && buffer.hasResults()) {
+        // chain the prefetches, since each forward depends on the last record of the previous
+        while (prefetches.size() < readAhead) {
+          CompletableFuture<Forwarding<T>> previous =
+              defaultObject(prefetches.peekLast(), () -> CompletableFuture.completedFuture(buffer));
+          prefetches.offer(previous.thenApplyAsync(this::forwardAfter, executor));
+        }
+      }
+    }
+  }
+
   @PreDestroy
   synchronized void onPreDestroy() {
     fetchQueryServices.clear();
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared;
+
+import static org.corant.shared.util.Assertions.shouldNotNull;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.corant.modules.query.AsyncNamedQueryService;
+import org.corant.modules.query.NamedQueryService;
+import org.corant.modules.query.QueryService.Forwarding;
+import org.corant.modules.query.QueryService.Paging;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * The default asynchronous named query service, the queries are delegated to the blocking named
+ * query service and executed on the given executor, so that the result caching, the metrics and the
+ * fetch queries of the delegated service still take effect. If the executor supplier returns null,
+ * the queries are executed in the caller thread and the returned stages are already completed.
+ *
+ * @author bingo 下午4:12:37
+ *
+ */
+public class DefaultAsyncNamedQueryService implements AsyncNamedQueryService {
+
+  protected final NamedQueryService delegate;
+  protected final Supplier<? extends Executor> executor;
+
+  public DefaultAsyncNamedQueryService(NamedQueryService delegate,
+      Supplier<? extends Executor> executor) {
+    this.delegate = shouldNotNull(delegate);
+    this.executor = shouldNotNull(executor);
+  }
+
+  @Override
+  public <T> CompletionStage<Forwarding<T>> forward(String q, Object p) {
+    return supply(() -> delegate.forward(q, p));
+  }
+
+  @Override
+  public <T> CompletionStage<T> get(String q, Object p) {
+    return supply(() -> delegate.get(q, p));
+  }
+
+  @Override
+  public <T> CompletionStage<Paging<T>> page(String q, Object p) {
+    return supply(() -> delegate.page(q, p));
+  }
+
+  @Override
+  public <T> CompletionStage<List<T>> select(String q, Object p) {
+    return supply(() -> delegate.select(q, p));
+  }
+
+  @Override
+  public <T> Publisher<T> stream(String q, Object p) {
+    return new StreamPublisher<>(() -> delegate.stream(q, p), resolveExecutor());
+  }
+
+  protected Executor resolveExecutor() {
+    Executor resolved = executor.get();
+    return resolved != null ? resolved : Runnable::run;
+  }
+
+  protected <R> CompletableFuture<R> supply(Supplier<R> supplier) {
+    try {
+      return CompletableFuture.supplyAsync(supplier, resolveExecutor());
+    } catch (RejectedExecutionException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * corant-modules-query-shared
+   *
+   * <p>
+   * A publisher that emits the elements of the stream query to a single subscriber per
+   * subscription. The stream is opened lazily on the executor when the first demand arrives, the
+   * elements are emitted only as far as the subscriber requested, and the emission is serialized
+   * by a work-in-progress counter so that at most one drain task runs at a time.
+   *
+   * @author bingo 下午4:12:37
+   *
+   */
+  protected static class StreamPublisher<T> implements Publisher<T> {
+
+    protected final Supplier<Stream<T>> streamSupplier;
+    protected final Executor executor;
+
+    protected StreamPublisher(Supplier<Stream<T>> streamSupplier, Executor executor) {
+      this.streamSupplier = streamSupplier;
+      this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+      shouldNotNull(subscriber);
+      StreamSubscription<T> subscription =
+          new StreamSubscription<>(streamSupplier, executor, subscriber);
+      subscriber.onSubscribe(subscription);
+    }
+  }
+
+  /**
+   * corant-modules-query-shared
+   *
+   * @author bingo 下午4:12:37
+   *
+   */
+  protected static class StreamSubscription<T> implements Subscription {
+
+    protected final Supplier<Stream<T>> streamSupplier;
+    protected final Executor executor;
+    protected final Subscriber<? super T> subscriber;
+    protected final AtomicLong demand = new AtomicLong();
+    protected final AtomicInteger wip = new AtomicInteger();
+    protected final AtomicBoolean terminated = new AtomicBoolean();
+    protected volatile boolean cancelled;
+    protected volatile Throwable invalidRequest;
+    protected Stream<T> stream;
+    protected Iterator<T> iterator;
+
+    protected StreamSubscription(Supplier<Stream<T>> streamSupplier, Executor executor,
+        Subscriber<? super T> subscriber) {
+      this.streamSupplier = streamSupplier;
+      this.executor = executor;
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException(
+            "The number of requested elements must be positive, but was " + n);
+      } else {
+        demand.accumulateAndGet(n, (c, r) -> c + r < 0 ? Long.MAX_VALUE : c + r);
+      }
+      schedule();
+    }
+
+    protected void close() {
+      if (stream != null) {
+        try {
+          stream.close();
+        } finally {
+          stream = null;
+          iterator = null;
+        }
+      }
+    }
+
+    protected void complete(Throwable error) {
+      if (terminated.compareAndSet(false, true)) {
+        try {
+          close();
+        } finally {
+          if (error != null) {
+            subscriber.onError(error);
+          } else if (!cancelled) {
+            subscriber.onComplete();
+          }
+        }
+      }
+    }
+
+    protected void drain() {
+      int missed = 1;
+      do {
+        if (terminated.get()) {
+          return;
+        }
+        if (cancelled) {
+          complete(null);
+          return;
+        }
+        if (invalidRequest != null) {
+          complete(invalidRequest);
+          return;
+        }
+        try {
+          long emitted = 0;
+          long requested = demand.get();
+          if (requested > 0 && iterator == null) {
+            stream = streamSupplier.get();
+            iterator = stream.iterator();
+          }
+          while (emitted < requested && !cancelled && invalidRequest == null) {
+            if (!iterator.hasNext()) {
+              complete(null);
+              return;
+            }
+            subscriber.onNext(iterator.next());
+            emitted++;
+          }
+          if (emitted > 0) {
+            demand.addAndGet(-emitted);
+          }
+        } catch (Throwable t) {
+          complete(t);
+          return;
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    protected void schedule() {
+      if (wip.getAndIncrement() == 0) {
+        try {
+          executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          complete(e);
+        }
+      }
+    }
+  }
+}
@@ -13,13 +13,14 @@
  */
 package org.corant.modules.query.shared;
 
-import static org.corant.context.Beans.select;
+import static org.corant.context.BeanLookupCache.selectSorted;
 import static org.corant.modules.query.QueryParameter.CTX_QHH_EXCLUDE_FETCH_QUERY;
 import static org.corant.shared.util.Assertions.shouldNotEmpty;
 import static org.corant.shared.util.Conversions.toBoolean;
 import static org.corant.shared.util.Conversions.toList;
 import static org.corant.shared.util.Conversions.toObject;
 import static org.corant.shared.util.Empties.isEmpty;
+import static org.corant.shared.util.Empties.isNotEmpty;
 import static org.corant.shared.util.Lists.listOf;
 import static org.corant.shared.util.Maps.getMapString;
 import static org.corant.shared.util.Objects.areEqual;
@@ -29,8 +30,12 @@ import static org.corant.shared.util.Strings.asDefaultString;
 import static org.corant.shared.util.Strings.isNotBlank;
 import static org.corant.shared.util.Strings.matchWildcard;
 import static org.corant.shared.util.Strings.split;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -38,6 +43,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -54,7 +60,6 @@ import org.corant.modules.query.shared.ScriptProcessor.ParameterAndResult;
 import org.corant.modules.query.shared.ScriptProcessor.ParameterAndResultPair;
 import org.corant.modules.query.spi.QueryParameterReviser;
 import org.corant.shared.ubiquity.Mutable.MutableObject;
-import org.corant.shared.ubiquity.Sortable;
 import org.corant.shared.util.Strings.WildcardMatcher;
 
 /**
@@ -79,6 +84,11 @@ public class DefaultFetchQueryHandler implements FetchQueryHandler {
   @Inject
   protected Logger logger;
 
+  static boolean isBatchJoinParameter(FetchQueryParameter parameter) {
+    return parameter.getSource() == FetchQueryParameterSource.R
+        && isNotEmpty(parameter.getTargetNamePath());
+  }
+
   @Override
   public boolean canFetch(Object result, QueryParameter queryParameter, FetchQuery fetchQuery) {
     String exs = getMapString(queryParameter.getContext(), CTX_QHH_EXCLUDE_FETCH_QUERY);
@@ -137,6 +147,15 @@ public class DefaultFetchQueryHandler implements FetchQueryHandler {
         for (Object result : results) {
           objectMapper.putMappedValue(result, injectProNamePath, null);
         }
+      } else if (fetchQuery.isBatchFetch()) {
+        if (fetchQuery.getParameters().stream()
+            .noneMatch(DefaultFetchQueryHandler::isBatchJoinParameter)) {
+          throw new QueryRuntimeException(
+              "The batch fetch query [%s] must have an injection script or a parameter with source "
+                  + "'R' and target name to join the fetched results!",
+              fetchQuery.getReferenceQuery());
+        }
+        handleBatchFetchedResults(results, fetchedResults, fetchQuery, injectProNamePath);
       } else {
         for (Object result : results) {
           if (fetchQuery.isMultiRecords()) {
@@ -155,8 +174,8 @@ public class DefaultFetchQueryHandler implements FetchQueryHandler {
     MutableObject<QueryParameter> resolved =
         new MutableObject<>(new DefaultQueryParameter().context(parentQueryParameter.getContext())
             .criteria(resolveFetchQueryCriteria(result, query, parentQueryParameter)));
-    select(QueryParameterReviser.class).stream().filter(r -> r.supports(query))
-        .sorted(Sortable::compare).forEach(resolved::apply);
+    selectSorted(QueryParameterReviser.class).stream().filter(r -> r.supports(query))
+        .forEach(resolved::apply);
     return resolved.get();
   }
 
@@ -168,6 +187,67 @@ public class DefaultFetchQueryHandler implements FetchQueryHandler {
     }
   }
 
+  /**
+   * Join the fetched results back onto the parent results in batch fetch mode. Build a hash index
+   * over the fetched results once with the values of the join parameter target names, then probe
+   * it with the values of the join parameter source names of each parent result. If there is only
+   * one join parameter and the value extracted from the parent result is a collection, each
+   * element of the collection is used to probe the index.
+   *
+   * @param results the parent results
+   * @param fetchedResults the fetched results
+   * @param fetchQuery the fetch query
+   * @param injectProNamePath the inject property name path
+   *
+   * @see FetchQuery#isBatchFetch()
+   */
+  protected void handleBatchFetchedResults(List<?> results, List<?> fetchedResults,
+      FetchQuery fetchQuery, String[] injectProNamePath) {
+    final List<FetchQueryParameter> joinParameters = fetchQuery.getParameters().stream()
+        .filter(DefaultFetchQueryHandler::isBatchJoinParameter).collect(Collectors.toList());
+    final int joinSize = joinParameters.size();
+    final Map<Object, List<Object>> index = new HashMap<>();
+    for (Object fetchedResult : fetchedResults) {
+      Object[] keys = new Object[joinSize];
+      for (int i = 0; i < joinSize; i++) {
+        FetchQueryParameter parameter = joinParameters.get(i);
+        keys[i] = resolveBatchJoinKeyValue(convertCriteriaValue(
+            objectMapper.getMappedValue(fetchedResult, parameter.getTargetNamePath()),
+            parameter.getType()));
+      }
+      index.computeIfAbsent(resolveBatchJoinKey(keys), k -> new ArrayList<>()).add(fetchedResult);
+    }
+    for (Object result : results) {
+      final List<Object> matched = new ArrayList<>();
+      Object[] keys = new Object[joinSize];
+      for (int i = 0; i < joinSize; i++) {
+        FetchQueryParameter parameter = joinParameters.get(i);
+        Object key = convertCriteriaValue(
+            objectMapper.getMappedValue(result, parameter.getSourceNamePath()),
+            parameter.getType());
+        keys[i] = key instanceof Collection ? key : resolveBatchJoinKeyValue(key);
+      }
+      if (joinSize == 1 && keys[0] instanceof Collection) {
+        Set<Object> elementKeys = new LinkedHashSet<>();
+        for (Object element : (Collection<?>) keys[0]) {
+          elementKeys.add(resolveBatchJoinKeyValue(element));
+        }
+        for (Object key : elementKeys) {
+          matched.addAll(index.getOrDefault(key, Collections.emptyList()));
+        }
+      } else {
+        matched.addAll(index.getOrDefault(resolveBatchJoinKey(keys), Collections.emptyList()));
+      }
+      if (matched.isEmpty()) {
+        objectMapper.putMappedValue(result, injectProNamePath, null);
+      } else if (fetchQuery.isMultiRecords()) {
+        objectMapper.putMappedValue(result, injectProNamePath, matched);
+      } else {
+        objectMapper.putMappedValue(result, injectProNamePath, matched.get(0));
+      }
+    }
+  }
+
   protected Map<String, Object> extractCriteria(QueryParameter parameter) {
     Map<String, Object> map = new HashMap<>();
     if (parameter != null) {
@@ -239,6 +319,43 @@ public class DefaultFetchQueryHandler implements FetchQueryHandler {
     return fetchCriteria;
   }
 
+  protected Object resolveBatchJoinKey(Object[] keys) {
+    return keys.length == 1 ? keys[0] : Arrays.asList(keys);
+  }
+
+  /**
+   * Returns the hash key of the given join value, the numeric values that are numerically equal
+   * have the same key regardless of their types, e.g. an Integer parent key matches a Long child
+   * key when the fetch query parameter has no type.
+   *
+   * @param value the join value
+   */
+  protected Object resolveBatchJoinKeyValue(Object value) {
+    if (value instanceof Long || value instanceof Integer || value instanceof Short
+        || value instanceof Byte) {
+      return ((Number) value).longValue();
+    } else if (value instanceof BigInteger) {
+      BigInteger bi = (BigInteger) value;
+      return bi.bitLength() < Long.SIZE ? (Object) bi.longValue() : bi;
+    } else if (value instanceof BigDecimal) {
+      BigDecimal bd = (BigDecimal) value;
+      if (bd.signum() == 0) {
+        return 0L;
+      }
+      BigDecimal stripped = bd.stripTrailingZeros();
+      return stripped.scale() <= 0 ? resolveBatchJoinKeyValue(stripped.toBigIntegerExact())
+          : stripped;
+    } else if (value instanceof Double || value instanceof Float) {
+      double d = ((Number) value).doubleValue();
+      if (Double.isNaN(d) || Double.isInfinite(d)) {
+        return value;
+      }
+      return resolveBatchJoinKeyValue(
+          value instanceof Float ? new BigDecimal(value.toString()) : BigDecimal.valueOf(d));
+    }
+    return value;
+  }
+
   protected Object resolveFetchQueryCriteriaValueResult(Object resultValue, boolean distinct,
       boolean singleAsList) {
     Object theValue = resultValue;
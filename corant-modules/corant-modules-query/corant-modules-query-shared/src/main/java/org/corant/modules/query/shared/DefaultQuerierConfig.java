@@ -57,6 +57,15 @@ public class DefaultQuerierConfig implements QuerierConfig, DeclarativeConfig {
 
   protected Duration timeout;
 
+  protected String executorName;
+
+  protected String asyncExecutorName;
+
+  @ConfigKeyItem(defaultValue = "false")
+  protected boolean enableMetrics;
+
+  protected Duration slowQueryThreshold;
+
   public DefaultQuerierConfig() {}
 
   protected DefaultQuerierConfig(int maxSelectSize, int defaultSelectSize, int maxLimit,
@@ -70,6 +79,11 @@ public class DefaultQuerierConfig implements QuerierConfig, DeclarativeConfig {
     this.timeout = timeout;
   }
 
+  @Override
+  public String getAsyncExecutorName() {
+    return asyncExecutorName;
+  }
+
   @Override
   public int getDefaultLimit() {
     return defaultLimit;
@@ -85,6 +99,11 @@ public class DefaultQuerierConfig implements QuerierConfig, DeclarativeConfig {
     return defaultStreamLimit;
   }
 
+  @Override
+  public String getExecutorName() {
+    return executorName;
+  }
+
   @Override
   public int getMaxLimit() {
     return maxLimit;
@@ -95,11 +114,21 @@ public class DefaultQuerierConfig implements QuerierConfig, DeclarativeConfig {
     return maxSelectSize;
   }
 
+  @Override
+  public Duration getSlowQueryThreshold() {
+    return slowQueryThreshold;
+  }
+
   @Override
   public Duration getTimeout() {
     return timeout;
   }
 
+  @Override
+  public boolean isEnableMetrics() {
+    return enableMetrics;
+  }
+
   @Override
   public boolean isThrownOnMaxSelectSize() {
     return thrownOnMaxSelectSize;
@@ -150,6 +179,10 @@ public class DefaultQuerierConfig implements QuerierConfig, DeclarativeConfig {
     }
   }
 
+  public void setAsyncExecutorName(String asyncExecutorName) {
+    this.asyncExecutorName = asyncExecutorName;
+  }
+
   public void setDefaultLimit(int defaultLimit) {
     this.defaultLimit = defaultLimit;
   }
@@ -162,6 +195,14 @@ public class DefaultQuerierConfig implements QuerierConfig, DeclarativeConfig {
     this.defaultStreamLimit = defaultStreamLimit;
   }
 
+  public void setEnableMetrics(boolean enableMetrics) {
+    this.enableMetrics = enableMetrics;
+  }
+
+  public void setExecutorName(String executorName) {
+    this.executorName = executorName;
+  }
+
   public void setMaxLimit(int maxLimit) {
     this.maxLimit = maxLimit;
   }
@@ -170,6 +211,10 @@ public class DefaultQuerierConfig implements QuerierConfig, DeclarativeConfig {
     this.maxSelectSize = maxSelectSize;
   }
 
+  public void setSlowQueryThreshold(Duration slowQueryThreshold) {
+    this.slowQueryThreshold = slowQueryThreshold;
+  }
+
   public void setThrownOnMaxSelectSize(boolean thrownOnMaxSelectSize) {
     this.thrownOnMaxSelectSize = thrownOnMaxSelectSize;
   }
@@ -13,7 +13,7 @@
  */
 package org.corant.modules.query.shared;
 
-import static org.corant.context.Beans.select;
+import static org.corant.context.BeanLookupCache.selectSorted;
 import static org.corant.modules.query.QueryParameter.CONTEXT_NME;
 import static org.corant.modules.query.QueryParameter.CTX_QHH_DONT_CONVERT_RESULT;
 import static org.corant.modules.query.QueryParameter.CTX_QHH_EXCLUDE_RESULTHINT;
@@ -56,7 +56,6 @@ import org.corant.modules.query.spi.QueryParameterReviser;
 import org.corant.modules.query.spi.ResultHintHandler;
 import org.corant.shared.exception.CorantRuntimeException;
 import org.corant.shared.ubiquity.Mutable.MutableObject;
-import org.corant.shared.ubiquity.Sortable;
 import org.corant.shared.util.Conversions;
 import org.corant.shared.util.Functions;
 import org.corant.shared.util.Strings.WildcardMatcher;
@@ -174,8 +173,8 @@ public class DefaultQueryHandler implements QueryHandler {
     } else {
       resolved.set(new DefaultQueryParameter());
     }
-    select(QueryParameterReviser.class).stream().filter(r -> r.supports(query))
-        .sorted(Sortable::compare).forEach(resolved::apply);
+    selectSorted(QueryParameterReviser.class).stream().filter(r -> r.supports(query))
+        .forEach(resolved::apply);
     return resolved.get();
   }
 
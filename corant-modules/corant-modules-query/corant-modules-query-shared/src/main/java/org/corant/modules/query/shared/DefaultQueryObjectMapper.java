@@ -17,14 +17,26 @@ import static org.corant.shared.util.Maps.getMapKeyPathValues;
 import static org.corant.shared.util.Maps.putMapKeyPathValue;
 import static org.corant.shared.util.Objects.forceCast;
 import static org.corant.shared.util.Primitives.isSimpleClass;
+import static org.corant.shared.util.Primitives.wrap;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.enterprise.context.ApplicationScoped;
 import org.apache.commons.beanutils.BeanUtils;
+import org.apache.commons.beanutils.BeanUtilsBean;
 import org.corant.modules.json.Jsons;
 import org.corant.modules.query.QueryObjectMapper;
 import org.corant.modules.query.QueryRuntimeException;
@@ -56,6 +68,12 @@ public class DefaultQueryObjectMapper implements QueryObjectMapper {
       ppObjectWriter.with(JsonpCharacterEscapes.instance());
   protected JavaType mapType = objectMapper.constructType(Map.class);
   protected ObjectReader mapReader = objectMapper.readerFor(mapType);
+  protected ClassValue<Map<String, BeanProperty>> beanProperties = new ClassValue<>() {
+    @Override
+    protected Map<String, BeanProperty> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
 
   @SuppressWarnings("unchecked")
   @Override
@@ -94,11 +112,25 @@ public class DefaultQueryObjectMapper implements QueryObjectMapper {
         return ((Map) object).get(keyPath[0]);
       }
     } else {
-      try {
-        return BeanUtils.getProperty(object, String.join(".", keyPath));
-      } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-        throw new QueryRuntimeException(e);
+      Object current = object;
+      for (String name : keyPath) {
+        BeanProperty property;
+        if (current instanceof Map) {
+          current = ((Map) current).get(name);
+        } else if (current != null
+            && (property = resolveBeanProperty(current.getClass(), name)).getter != null) {
+          current = property.get(current);
+        } else {
+          try {
+            // use bean utils to resolve the indexed or mapped property and report the errors
+            return BeanUtils.getProperty(object, String.join(".", keyPath));
+          } catch (IllegalAccessException | InvocationTargetException
+              | NoSuchMethodException e) {
+            throw new QueryRuntimeException(e);
+          }
+        }
       }
+      return BeanUtilsBean.getInstance().getConvertUtils().convert(current);
     }
   }
 
@@ -125,7 +157,31 @@ public class DefaultQueryObjectMapper implements QueryObjectMapper {
     if (object instanceof Map) {
       putMapKeyPathValue((Map) object, keyPath, value);
     } else if (object != null) {
+      Object current = object;
+      int last = keyPath.length - 1;
+      for (int i = 0; i < last && current != null; i++) {
+        BeanProperty property;
+        if (current instanceof Map) {
+          current = ((Map) current).get(keyPath[i]);
+        } else if ((property =
+            resolveBeanProperty(current.getClass(), keyPath[i])).getter != null) {
+          current = property.get(current);
+        } else {
+          current = null;
+        }
+      }
+      if (current instanceof Map) {
+        ((Map) current).put(keyPath[last], value);
+        return;
+      }
+      BeanProperty property;
+      if (current != null && (property = resolveBeanProperty(current.getClass(), keyPath[last]))
+          .isAssignable(value)) {
+        property.set(current, value);
+        return;
+      }
       try {
+        // use bean utils to convert the value or resolve the indexed or mapped property
         BeanUtils.setProperty(object, String.join(Names.NAME_SPACE_SEPARATORS, keyPath), value);
       } catch (IllegalAccessException | InvocationTargetException e) {
         throw new QueryRuntimeException(e, "Inject fetched result occurred error %s.",
@@ -134,6 +190,18 @@ public class DefaultQueryObjectMapper implements QueryObjectMapper {
     }
   }
 
+  /**
+   * Returns the cached property accessor of the given bean class and property name, the accessor
+   * is resolved once per class and property.
+   *
+   * @param beanClass the bean class
+   * @param name the property name
+   */
+  protected BeanProperty resolveBeanProperty(Class<?> beanClass, String name) {
+    return beanProperties.get(beanClass).computeIfAbsent(name,
+        n -> BeanProperty.of(beanClass, n));
+  }
+
   @Override
   public String toJsonString(Object object, boolean escape, boolean pretty) {
     if (object == null) {
@@ -192,4 +260,80 @@ public class DefaultQueryObjectMapper implements QueryObjectMapper {
     }
     return forceCast(from);
   }
+
+  /**
+   * corant-modules-query-shared
+   *
+   * <p>
+   * The bean property accessor that uses the method handles of the public getter and setter, the
+   * getter or setter is null if it is not public accessible or the property name is an indexed or
+   * mapped expression, in which case the bean utils is used.
+   *
+   * @author bingo 下午3:06:52
+   *
+   */
+  protected static class BeanProperty {
+
+    static final BeanProperty EMPTY = new BeanProperty(null, null, null);
+
+    protected final MethodHandle getter;
+    protected final MethodHandle setter;
+    protected final Class<?> type;
+
+    protected BeanProperty(MethodHandle getter, MethodHandle setter, Class<?> type) {
+      this.getter = getter;
+      this.setter = setter;
+      this.type = type;
+    }
+
+    static BeanProperty of(Class<?> beanClass, String name) {
+      if (name.indexOf('[') != -1 || name.indexOf('(') != -1
+          || !Modifier.isPublic(beanClass.getModifiers())) {
+        return EMPTY;
+      }
+      try {
+        for (PropertyDescriptor pd : Introspector.getBeanInfo(beanClass)
+            .getPropertyDescriptors()) {
+          if (pd.getName().equals(name)) {
+            Lookup lookup = MethodHandles.publicLookup();
+            Method read = pd.getReadMethod();
+            Method write = pd.getWriteMethod();
+            return new BeanProperty(
+                read == null ? null
+                    : lookup.unreflect(read).asType(MethodType.methodType(Object.class,
+                        Object.class)),
+                write == null ? null
+                    : lookup.unreflect(write).asType(MethodType.methodType(void.class,
+                        Object.class, Object.class)),
+                pd.getPropertyType());
+          }
+        }
+      } catch (IntrospectionException | IllegalAccessException e) {
+        // fall back to the bean utils
+      }
+      return EMPTY;
+    }
+
+    protected Object get(Object bean) {
+      try {
+        return getter.invokeExact(bean);
+      } catch (Throwable e) {
+        throw new QueryRuntimeException(e);
+      }
+    }
+
+    protected boolean isAssignable(Object value) {
+      return setter != null && (value == null ? !type.isPrimitive()
+          : wrap(type).isInstance(value));
+    }
+
+    protected void set(Object bean, Object value) {
+      try {
+        setter.invokeExact(bean, value);
+      } catch (Throwable e) {
+        throw new QueryRuntimeException(e, "Inject fetched result occurred error %s.",
+            e.getMessage());
+      }
+    }
+  }
 }
@@ -21,6 +21,8 @@ import static org.corant.shared.util.Objects.defaultObject;
 import java.lang.annotation.Annotation;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow.Publisher;
 import java.util.stream.Stream;
 import org.corant.modules.query.NamedQueryService;
 import org.corant.modules.query.QueryObjectMapper;
@@ -133,10 +135,18 @@ public class NamedQueryServices {
     return resolveQueryService().forward(queryName, parameter);
   }
 
+  public <T> CompletionStage<Forwarding<T>> forwardAsync() {
+    return resolveQueryService().async().forward(queryName, parameter);
+  }
+
   public <T> T get() {
     return resolveQueryService().get(queryName, parameter);
   }
 
+  public <T> CompletionStage<T> getAsync() {
+    return resolveQueryService().async().get(queryName, parameter);
+  }
+
   public NamedQueryServices limit(Integer limit) {
     parameter.limit(limit);
     return this;
@@ -151,14 +161,26 @@ public class NamedQueryServices {
     return resolveQueryService().page(queryName, parameter);
   }
 
+  public <T> CompletionStage<Paging<T>> pageAsync() {
+    return resolveQueryService().async().page(queryName, parameter);
+  }
+
   public <T> List<T> select() {
     return resolveQueryService().select(queryName, parameter);
   }
 
+  public <T> CompletionStage<List<T>> selectAsync() {
+    return resolveQueryService().async().select(queryName, parameter);
+  }
+
   public <T> Stream<T> stream() {
     return resolveQueryService().stream(queryName, parameter);
   }
 
+  public <T> Publisher<T> streamAsync() {
+    return resolveQueryService().async().stream(queryName, parameter);
+  }
+
   public <T> Stream<T> streamAs(Class<T> cls) {
     final QueryObjectMapper objectMapper = resolve(QueryObjectMapper.class);
     return resolveQueryService().stream(queryName, parameter)
@@ -182,6 +182,18 @@ public class StreamNamedQueryServices {
     return this;
   }
 
+  /**
+   * The number of batches that can be prefetched in background while the current batch is being
+   * consumed, default is 0 means no read-ahead.
+   *
+   * @param readAhead the read-ahead depth
+   * @return readAhead
+   */
+  public StreamNamedQueryServices readAhead(int readAhead) {
+    parameter.readAhead(readAhead);
+    return this;
+  }
+
   public StreamNamedQueryServices retryBackoffStrategy(BackoffStrategy backoffStrategy) {
     parameter.retryBackoffStrategy(backoffStrategy);
     return this;
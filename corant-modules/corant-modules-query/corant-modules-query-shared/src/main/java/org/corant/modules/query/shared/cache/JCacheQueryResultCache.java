@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.cache;
+
+import static org.corant.shared.util.Strings.split;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.EternalExpiryPolicy;
+import javax.cache.spi.CachingProvider;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import org.corant.modules.query.QuerierConfig;
+import org.corant.modules.query.QueryObjectMapper;
+import org.corant.modules.query.QueryParameter;
+import org.corant.modules.query.mapping.Query;
+import org.corant.modules.query.shared.QueryMappingService.BeforeQueryMappingInitializeHandler;
+import org.corant.shared.service.RequiredClassPresent;
+import org.corant.shared.ubiquity.Throwing.ThrowingSupplier;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * The JCache based query result cache, each query has its own cache named
+ * {@link #CACHE_NAME_PREFIX} + query name, the cache is configured by the query properties:
+ * <ul>
+ * <li>{@link QuerierConfig#PRO_KEY_RESULT_CACHE_TTL} the time to live of the cached results since
+ * they were created, default is eternal.</li>
+ * <li>{@link QuerierConfig#PRO_KEY_RESULT_CACHE_MAX_ENTRIES} the maximum number of the cached
+ * results, the eldest results are evicted first, default is {@link #DEFAULT_MAX_ENTRIES}, if the
+ * value is less than or equal to 0 the number of the cached results is unbounded.</li>
+ * <li>{@link QuerierConfig#PRO_KEY_RESULT_CACHE_TAGS} the comma separated tags that use to
+ * invalidate the cached results of a group of queries.</li>
+ * </ul>
+ * The cache key is derived from the query kind and the criteria, context, limit and offset of the
+ * resolved query parameter. If the query parameter can't be serialized to a key, the query is
+ * executed without caching. All cached results are invalidated when the query mappings are
+ * re-initialized.
+ *
+ * <p>
+ * Note: The caches store the results by value, each caller gets its own copy of the cached results
+ * and may modify it freely, the results that can't be stored by value (e.g. not serializable) are
+ * not cached, a warning is logged the first time that happens for a query.
+ *
+ * @author bingo 上午10:21:37
+ *
+ */
+@ApplicationScoped
+@RequiredClassPresent("javax.cache.Cache")
+public class JCacheQueryResultCache
+    implements QueryResultCache, BeforeQueryMappingInitializeHandler {
+
+  public static final String CACHE_NAME_PREFIX = "corant.query.result.";
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+  protected final Map<String, Region> regions = new ConcurrentHashMap<>();
+  protected final Map<String, Set<String>> taggedQueries = new ConcurrentHashMap<>();
+
+  @Inject
+  protected Logger logger;
+
+  @Inject
+  protected QueryObjectMapper objectMapper;
+
+  @Inject
+  protected Instance<CachingProvider> cachingProviders;
+
+  protected volatile CacheManager cacheManager;
+
+  @Override
+  public void beforeQueryMappingInitialize(Collection<Query> queries, long initializedVersion) {
+    invalidateAll();
+    regions.clear();
+    taggedQueries.clear();
+  }
+
+  @Override
+  public <T> T computeIfAbsent(Query query, String kind, QueryParameter parameter,
+      ThrowingSupplier<T, Exception> loader) throws Exception {
+    String key = cacheManager == null ? null : resolveKey(query, kind, parameter);
+    if (key == null) {
+      return loader.get();
+    }
+    Region region = regions.computeIfAbsent(query.getName(), n -> createRegion(query));
+    @SuppressWarnings("unchecked")
+    T result = (T) region.cache.get(key);
+    if (result == null) {
+      long version = region.version.get();
+      result = loader.get();
+      if (result != null) {
+        try {
+          region.put(key, result, version);
+        } catch (RuntimeException e) {
+          if (region.putSkipped.compareAndSet(false, true)) {
+            logger.log(Level.WARNING, e, () -> String.format(
+                "Can't store the result of query [%s] by value, skip caching.",
+                query.getName()));
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void invalidateAll() {
+    regions.values().forEach(Region::clear);
+  }
+
+  @Override
+  public void invalidateQuery(String... queryNames) {
+    for (String queryName : queryNames) {
+      Region region = regions.get(queryName);
+      if (region != null) {
+        region.clear();
+      }
+    }
+  }
+
+  @Override
+  public void invalidateTag(String... tags) {
+    for (String tag : tags) {
+      Set<String> queryNames = taggedQueries.get(tag);
+      if (queryNames != null) {
+        invalidateQuery(queryNames.toArray(new String[queryNames.size()]));
+      }
+    }
+  }
+
+  protected Region createRegion(Query query) {
+    String name = CACHE_NAME_PREFIX + query.getName();
+    Duration ttl = query.getProperty(QuerierConfig.PRO_KEY_RESULT_CACHE_TTL, Duration.class);
+    int maxEntries =
+        query.getProperty(QuerierConfig.PRO_KEY_RESULT_CACHE_MAX_ENTRIES, Integer.class,
+            DEFAULT_MAX_ENTRIES);
+    Cache<String, Object> cache = cacheManager.getCache(name);
+    if (cache == null) {
+      MutableConfiguration<String, Object> config =
+          new MutableConfiguration<String, Object>().setStoreByValue(true)
+              .setExpiryPolicyFactory(ttl == null || ttl.isZero() || ttl.isNegative()
+                  ? EternalExpiryPolicy.factoryOf()
+                  : CreatedExpiryPolicy.factoryOf(
+                      new javax.cache.expiry.Duration(TimeUnit.MILLISECONDS, ttl.toMillis())));
+      try {
+        cache = cacheManager.createCache(name, config);
+      } catch (CacheException e) {
+        // created by others concurrently
+        cache = cacheManager.getCache(name);
+      }
+    }
+    String tags = query.getProperty(QuerierConfig.PRO_KEY_RESULT_CACHE_TAGS, String.class);
+    for (String tag : split(tags, ",", true, true)) {
+      taggedQueries.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(query.getName());
+    }
+    return new Region(cache, maxEntries);
+  }
+
+  @PostConstruct
+  protected void onPostConstruct() {
+    try {
+      CachingProvider provider = cachingProviders.isResolvable() ? cachingProviders.get()
+          : Caching.getCachingProvider();
+      cacheManager = provider.getCacheManager();
+    } catch (Exception e) {
+      logger.log(Level.WARNING, e,
+          () -> "Can't resolve the JCache cache manager, the query result cache is disabled.");
+    }
+  }
+
+  protected String resolveKey(Query query, String kind, QueryParameter parameter) {
+    Map<String, Object> key = new LinkedHashMap<>();
+    key.put("kind", kind);
+    key.put("criteria", parameter.getCriteria());
+    key.put("context", parameter.getContext());
+    key.put("limit", parameter.getLimit());
+    key.put("offset", parameter.getOffset());
+    try {
+      return objectMapper.toJsonString(key, false, false);
+    } catch (Exception e) {
+      logger.log(Level.FINE, e, () -> String.format(
+          "Can't resolve the result cache key of query [%s], skip caching.", query.getName()));
+      return null;
+    }
+  }
+
+  /**
+   * corant-modules-query-shared
+   *
+   * <p>
+   * The cache of a query, the keys are tracked in insertion order when the max entries is set to
+   * evict the eldest results. The version is increased on each invalidation, the results loaded
+   * before the invalidation are discarded, if an invalidation happens while a result is being put,
+   * the result is removed after it is put.
+   *
+   * @author bingo 上午10:21:37
+   *
+   */
+  protected static class Region {
+
+    protected final Cache<String, Object> cache;
+    protected final int maxEntries;
+    protected final Set<String> keys = ConcurrentHashMap.newKeySet();
+    protected final Queue<String> order = new ConcurrentLinkedQueue<>();
+    protected final AtomicLong version = new AtomicLong();
+    protected final AtomicBoolean putSkipped = new AtomicBoolean();
+
+    protected Region(Cache<String, Object> cache, int maxEntries) {
+      this.cache = cache;
+      this.maxEntries = maxEntries;
+    }
+
+    protected void clear() {
+      version.incrementAndGet();
+      cache.clear();
+      keys.clear();
+      order.clear();
+    }
+
+    protected void put(String key, Object value, long loadedVersion) {
+      if (version.get() != loadedVersion) {
+        return;
+      }
+      cache.put(key, value);
+      if (version.get() != loadedVersion) {
+        cache.remove(key);
+        return;
+      }
+      if (maxEntries > 0 && keys.add(key)) {
+        order.offer(key);
+        String eldest;
+        while (keys.size() > maxEntries && (eldest = order.poll()) != null) {
+          keys.remove(eldest);
+          cache.remove(eldest);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.cache;
+
+import org.corant.modules.query.QuerierConfig;
+import org.corant.modules.query.QueryParameter;
+import org.corant.modules.query.mapping.Query;
+import org.corant.shared.ubiquity.Throwing.ThrowingSupplier;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * The query result cache, use to cache the results of the queries that enable the
+ * {@link QuerierConfig#PRO_KEY_RESULT_CACHE} property. The implementations should not hand the
+ * same result instance to different callers, e.g. store the results by value, so that the callers
+ * may modify the returned results freely. The results that can't be isolated are not cached.
+ *
+ * <p>
+ * The cached results can be invalidated by query name or by tag (see
+ * {@link QuerierConfig#PRO_KEY_RESULT_CACHE_TAGS}), for example when the domain layer commits the
+ * aggregates that the queries read.
+ *
+ * @author bingo 上午10:21:37
+ *
+ */
+public interface QueryResultCache {
+
+  /**
+   * Returns the cached result of the given query, query kind and resolved query parameter, if not
+   * found then use the loader to load the result and cache it.
+   *
+   * @param <T> the result type
+   * @param query the query
+   * @param kind the query kind, e.g. get/select/page
+   * @param parameter the resolved query parameter
+   * @param loader the result loader
+   * @return the cached or loaded result
+   * @throws Exception if the loader fails
+   */
+  <T> T computeIfAbsent(Query query, String kind, QueryParameter parameter,
+      ThrowingSupplier<T, Exception> loader) throws Exception;
+
+  /**
+   * Invalidate all cached results
+   */
+  void invalidateAll();
+
+  /**
+   * Invalidate the cached results of the given query names
+   *
+   * @param queryNames the query names
+   */
+  void invalidateQuery(String... queryNames);
+
+  /**
+   * Invalidate the cached results of the queries that tagged with the given tags
+   *
+   * @param tags the query result cache tags
+   */
+  void invalidateTag(String... tags);
+}
@@ -59,6 +59,18 @@ public interface DynamicTemplateMethodModelEx<P> extends TemplateMethodModelEx {
     return TM;
   }
 
+  /**
+   * Returns whether the template method only emits value-independent placeholders into the script
+   * and collects the actual values as parameters, the rendered script of such template method can
+   * be reused for the same parameter shape.
+   *
+   * @return isParameterized
+   * @see FreemarkerScriptCache
+   */
+  default boolean isParameterized() {
+    return false;
+  }
+
   /**
    * corant-modules-query-shared
    *
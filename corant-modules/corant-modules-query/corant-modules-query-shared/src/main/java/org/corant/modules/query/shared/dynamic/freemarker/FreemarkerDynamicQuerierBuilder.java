@@ -14,11 +14,18 @@
 package org.corant.modules.query.shared.dynamic.freemarker;
 
 import static org.corant.context.Beans.select;
+import static org.corant.shared.normal.Names.applicationName;
 import static org.corant.shared.util.Empties.isNotEmpty;
+import static org.corant.shared.util.MBeans.registerToMBean;
 import java.io.StringWriter;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.ObjectName;
+import org.corant.config.Configs;
 import org.corant.modules.query.FetchQueryHandler;
 import org.corant.modules.query.QueryHandler;
 import org.corant.modules.query.QueryParameter;
@@ -47,6 +54,17 @@ import freemarker.template.TemplateModelException;
 public abstract class FreemarkerDynamicQuerierBuilder<P, S, Q extends DynamicQuerier<P, S>>
     extends AbstractDynamicQuerierBuilder<P, S, Q> {
 
+  /**
+   * The query property key use to enable the rendered script cache, the cache is keyed by the
+   * parameter shape and only rebinds the parameter values on a hit, see
+   * {@link FreemarkerScriptCache}. The cache counters are registered to the JMX MBean server with
+   * the name '{application name}:type=query-script-cache,name={query versioned name}' unless the
+   * config property 'corant.query.metrics.jmx-enabled' is false.
+   */
+  public static final String PRO_KEY_SCRIPT_CACHE = ".script-cache";
+  public static final String PRO_KEY_SCRIPT_CACHE_SIZE = ".script-cache-size";
+  public static final int DEFAULT_SCRIPT_CACHE_SIZE = 128;
+
   protected static final FreemarkerDynamicQueryScriptResolver scriptResolver =
       Services.findRequired(FreemarkerDynamicQueryScriptResolver.class)
           .orElse(FreemarkerDynamicQueryScriptResolver.DEFAULT_INST);
@@ -55,6 +73,8 @@ public abstract class FreemarkerDynamicQuerierBuilder<P, S, Q extends DynamicQue
 
   protected final Logger logger = Logger.getLogger(this.getClass().getName());
 
+  protected final FreemarkerScriptCache scriptCache;
+
   /**
    * Create a free marker dynamic querier builder
    *
@@ -66,6 +86,13 @@ public abstract class FreemarkerDynamicQuerierBuilder<P, S, Q extends DynamicQue
       FetchQueryHandler fetchQueryHandler) {
     super(query, queryHandler, fetchQueryHandler);
     execution = FreemarkerExecutions.resolveExecution(query);
+    if (query.getProperty(PRO_KEY_SCRIPT_CACHE, Boolean.class, Boolean.FALSE)) {
+      scriptCache = new FreemarkerScriptCache(
+          query.getProperty(PRO_KEY_SCRIPT_CACHE_SIZE, Integer.class, DEFAULT_SCRIPT_CACHE_SIZE));
+      registerScriptCache();
+    } else {
+      scriptCache = null;
+    }
     // try {
     // String scriptSource = scriptResolver.resolve(query);
     // execution = new Template(query.getName(), scriptSource, FreemarkerExecutions.FM_CFG);
@@ -80,24 +107,63 @@ public abstract class FreemarkerDynamicQuerierBuilder<P, S, Q extends DynamicQue
     return build(execute(resolveParameter(param)));
   }
 
+  /**
+   * Returns the rendered script cache or null if the query doesn't enable it.
+   */
+  public FreemarkerScriptCache getScriptCache() {
+    return scriptCache;
+  }
+
   protected abstract Q build(Triple<QueryParameter, P, String> processed);
 
   protected Triple<QueryParameter, P, String> execute(QueryParameter param) {
+    DynamicTemplateMethodModelEx<P> tmm = getTemplateMethodModelEx();
+    String shape = scriptCache != null && tmm.isParameterized()
+        ? scriptCache.resolveShape(param) : null;
+    if (shape == null) {
+      return execute(param, tmm, null);
+    }
+    FreemarkerScriptCache.Entry entry = scriptCache.get(shape);
+    if (entry == null) {
+      FreemarkerScriptCache.Tracer tracer = scriptCache.tracer();
+      Triple<QueryParameter, P, String> processed = execute(param, tmm, tracer);
+      scriptCache.put(shape, tracer.complete(processed.getRight()));
+      return processed;
+    } else if (!entry.isCacheable()) {
+      return execute(param, tmm, null);
+    }
+    try {
+      entry.replay(tmm, param.getCriteria(), resolveVariables(param),
+          execution.getObjectWrapper());
+      return Triple.of(param, tmm.getParameters(), entry.script);
+    } catch (Exception e) {
+      throw new QueryRuntimeException(e,
+          "Freemarker dynamic querier builder [%s] replay occurred error!", getQuery().getName());
+    }
+  }
+
+  protected Triple<QueryParameter, P, String> execute(QueryParameter param,
+      DynamicTemplateMethodModelEx<P> tmm, FreemarkerScriptCache.Tracer tracer) {
     try (StringWriter sw = new StringWriter()) {
       // Inject query criteria
-      Environment e = execution.createProcessingEnvironment(param.getCriteria(), sw);
+      ObjectWrapper ow = execution.getObjectWrapper();
+      Object criteria = param.getCriteria();
+      Environment e = execution.createProcessingEnvironment(
+          tracer == null ? criteria : tracer.traceCriteria(ow.wrap(criteria), criteria), sw);
+      Set<String> knownVarNames = e.getKnownVariableNames();
 
       // Inject default template method model
-      DynamicTemplateMethodModelEx<P> tmm = getTemplateMethodModelEx();
       String tmmTyp = tmm.getType();
-      checkVarNames(e, tmmTyp);
-      e.setVariable(tmmTyp, tmm);
+      checkVarNames(knownVarNames, tmmTyp);
+      e.setVariable(tmmTyp, tracer == null ? tmm : tracer.record(tmm));
+      knownVarNames.add(tmmTyp);
 
       // Inject configuration retrieve template method model
       DynamicTemplateMethodModelEx<Object> cmm = DynamicTemplateMethodModelEx.CONFIG_TMM_INST;
       String cmmTyp = cmm.getType();
-      checkVarNames(e, cmmTyp);
+      checkVarNames(knownVarNames, cmmTyp);
       e.setVariable(cmmTyp, cmm);
+      knownVarNames.add(cmmTyp);
 
       // Inject query limit & offset
 
@@ -106,10 +172,11 @@ public abstract class FreemarkerDynamicQuerierBuilder<P, S, Q extends DynamicQue
       // e.setVariable(QueryParameter.LIMIT_PARAM_NME, new SimpleNumber(param.getLimit()));
       // }
 
-      if (param.getLimit() != null
-          && !e.getKnownVariableNames().contains(QueryParameter.LIMIT_PARAM_NME)) {
+      if (param.getLimit() != null && knownVarNames.add(QueryParameter.LIMIT_PARAM_NME)) {
         // For compatibility issues, temporarily use this
-        e.setVariable(QueryParameter.LIMIT_PARAM_NME, new SimpleNumber(param.getLimit()));
+        e.setVariable(QueryParameter.LIMIT_PARAM_NME,
+            traceVariable(tracer, QueryParameter.LIMIT_PARAM_NME,
+                new SimpleNumber(param.getLimit()), param.getLimit()));
       }
 
       // if (param.getOffset() != null) {
@@ -117,19 +184,20 @@ public abstract class FreemarkerDynamicQuerierBuilder<P, S, Q extends DynamicQue
       // e.setVariable(QueryParameter.OFFSET_PARAM_NME, new SimpleNumber(param.getOffset()));
       // }
 
-      if (param.getOffset() != null
-          && !e.getKnownVariableNames().contains(QueryParameter.OFFSET_PARAM_NME)) {
+      if (param.getOffset() != null && knownVarNames.add(QueryParameter.OFFSET_PARAM_NME)) {
         // For compatibility issues, temporarily use this
-        e.setVariable(QueryParameter.OFFSET_PARAM_NME, new SimpleNumber(param.getOffset()));
+        e.setVariable(QueryParameter.OFFSET_PARAM_NME,
+            traceVariable(tracer, QueryParameter.OFFSET_PARAM_NME,
+                new SimpleNumber(param.getOffset()), param.getOffset()));
       }
 
       // Inject query context
-      ObjectWrapper ow = execution.getObjectWrapper();
       if (isNotEmpty(param.getContext())) {
         for (Entry<String, Object> ctx : param.getContext().entrySet()) {
-          checkVarNames(e, ctx.getKey());
+          checkVarNames(knownVarNames, ctx.getKey());
           TemplateModel val = ctx.getValue() == null ? new SimpleHash(ow) : ow.wrap(ctx.getValue());
-          e.setVariable(ctx.getKey(), val);
+          e.setVariable(ctx.getKey(), traceVariable(tracer, ctx.getKey(), val, ctx.getValue()));
+          knownVarNames.add(ctx.getKey());
         }
       }
 
@@ -143,6 +211,24 @@ public abstract class FreemarkerDynamicQuerierBuilder<P, S, Q extends DynamicQue
     }
   }
 
+  /**
+   * Register the rendered script cache to the JMX MBean server, the cache of the previous builder
+   * of the same query is replaced when the query mappings are reloaded.
+   */
+  protected void registerScriptCache() {
+    if (!Configs.getValue("corant.query.metrics.jmx-enabled", Boolean.class, Boolean.TRUE)) {
+      return;
+    }
+    String queryName = getQuery().getVersionedName();
+    try {
+      registerToMBean(applicationName().concat(":type=query-script-cache,name=")
+          .concat(ObjectName.quote(queryName)), scriptCache);
+    } catch (Exception e) {
+      logger.log(Level.WARNING, e,
+          () -> String.format("Can't register query [%s] script cache to jmx.", queryName));
+    }
+  }
+
   /**
    * Returns a template method model use for variables handling. The "extended method" template
    * language data type: Objects that act like functions.
@@ -178,9 +264,9 @@ public abstract class FreemarkerDynamicQuerierBuilder<P, S, Q extends DynamicQue
         });
   }
 
-  void checkVarNames(Environment e, String... varNames) throws TemplateModelException {
+  void checkVarNames(Set<String> knownVarNames, String... varNames) {
     for (String varName : varNames) {
-      if (e.getKnownVariableNames().contains(varName)) {
+      if (knownVarNames.contains(varName)) {
         throw new QueryRuntimeException(
             "Freemarker dynamic querier buildr [%s] error, the key [%s] name conflict.",
             query.getName(), varName);
@@ -188,4 +274,27 @@ public abstract class FreemarkerDynamicQuerierBuilder<P, S, Q extends DynamicQue
     }
   }
 
+  /**
+   * Returns the variables that injected into the template environment except the template method
+   * models, use for replaying the cached script.
+   */
+  Map<String, Object> resolveVariables(QueryParameter param) {
+    Map<String, Object> variables = new HashMap<>();
+    if (isNotEmpty(param.getContext())) {
+      variables.putAll(param.getContext());
+    }
+    if (param.getLimit() != null) {
+      variables.putIfAbsent(QueryParameter.LIMIT_PARAM_NME, param.getLimit());
+    }
+    if (param.getOffset() != null) {
+      variables.putIfAbsent(QueryParameter.OFFSET_PARAM_NME, param.getOffset());
+    }
+    return variables;
+  }
+
+  TemplateModel traceVariable(FreemarkerScriptCache.Tracer tracer, String name,
+      TemplateModel model, Object value) {
+    return tracer == null ? model : tracer.traceVariable(name, model, value);
+  }
+
 }
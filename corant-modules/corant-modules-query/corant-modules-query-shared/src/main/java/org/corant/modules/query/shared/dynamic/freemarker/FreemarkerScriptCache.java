@@ -0,0 +1,536 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.dynamic.freemarker;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.corant.modules.query.QueryParameter;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateModelIterator;
+import freemarker.template.TemplateNumberModel;
+import freemarker.template.TemplateScalarModel;
+import freemarker.template.TemplateSequenceModel;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * An opt-in rendered script cache of the free marker dynamic querier builder, only the template
+ * method models that emit value-independent placeholders (see
+ * {@link DynamicTemplateMethodModelEx#isParameterized()}) can use it.
+ *
+ * <p>
+ * The cache entries are keyed by the parameter shape, the shape consists of the criteria and
+ * context key sets, the null-ness, the value classes, the collection sizes, the boolean values and
+ * the presence of limit and offset. On a miss, the template is rendered over traced template models
+ * that record which criteria or context path feeds each template method invocation, if the template
+ * reads any other value (comparison, interpolation, built-ins, etc.) the shape is marked as
+ * uncacheable and will always be rendered. On a hit, the cached script is reused and only the
+ * recorded template method invocations are replayed against the new parameter values.
+ *
+ * <p>
+ * The cache is cleared when it is full and a new shape arrives, the counters are exposed through
+ * {@link FreemarkerScriptCacheMBean}.
+ *
+ * @author bingo 下午3:12:47
+ *
+ */
+public class FreemarkerScriptCache implements FreemarkerScriptCacheMBean {
+
+  static final Entry UNCACHEABLE = new Entry(null, null);
+  static final Map<Class<?>, Class<?>[]> tracedInterfaces = new ConcurrentHashMap<>();
+
+  protected final int maxSize;
+  protected final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  protected final LongAdder hits = new LongAdder();
+  protected final LongAdder misses = new LongAdder();
+  protected final LongAdder bypasses = new LongAdder();
+  protected final LongAdder evictions = new LongAdder();
+
+  public FreemarkerScriptCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  static void appendShape(StringBuilder sb, Object value) {
+    if (value == null) {
+      sb.append('~');
+    } else if (value instanceof Map) {
+      List<Map.Entry<?, ?>> entries = new ArrayList<>(((Map<?, ?>) value).entrySet());
+      entries.sort(Comparator.comparing(e -> String.valueOf(e.getKey())));
+      sb.append('{');
+      for (Map.Entry<?, ?> entry : entries) {
+        String key = String.valueOf(entry.getKey());
+        sb.append(key.length()).append(':').append(key).append('=');
+        appendShape(sb, entry.getValue());
+        sb.append(',');
+      }
+      sb.append('}');
+    } else if (value instanceof Collection || value.getClass().isArray()) {
+      Class<?> last = null;
+      sb.append('[').append(sizeOf(value)).append(':');
+      for (Iterator<?> it = iteratorOf(value); it.hasNext();) {
+        Object element = it.next();
+        if (element != null && element.getClass() == last) {
+          sb.append('*');
+        } else {
+          appendShape(sb, element);
+          last = element != null && isLeaf(element) ? element.getClass() : null;
+        }
+      }
+      sb.append(']');
+    } else if (value instanceof Boolean) {
+      sb.append(value);
+    } else {
+      sb.append(value.getClass().getName());
+    }
+  }
+
+  static Object elementAt(Object value, int index) {
+    if (value instanceof List) {
+      return ((List<?>) value).get(index);
+    } else if (value != null && value.getClass().isArray()) {
+      return Array.get(value, index);
+    } else if (value instanceof Iterable) {
+      Iterator<?> it = ((Iterable<?>) value).iterator();
+      for (int i = 0; i < index; i++) {
+        it.next();
+      }
+      return it.next();
+    }
+    return null;
+  }
+
+  static boolean isLeaf(Object value) {
+    return !(value instanceof Map) && !(value instanceof Collection)
+        && !value.getClass().isArray() && !(value instanceof Boolean);
+  }
+
+  static Iterator<?> iteratorOf(Object value) {
+    if (value instanceof Collection) {
+      return ((Collection<?>) value).iterator();
+    }
+    int length = Array.getLength(value);
+    List<Object> list = new ArrayList<>(length);
+    for (int i = 0; i < length; i++) {
+      list.add(Array.get(value, i));
+    }
+    return list.iterator();
+  }
+
+  static Object resolve(Object root, Object[] path) {
+    Object current = root;
+    for (Object segment : path) {
+      if (current == null) {
+        return null;
+      } else if (segment instanceof Integer) {
+        current = elementAt(current, (Integer) segment);
+      } else {
+        current = current instanceof Map ? ((Map<?, ?>) current).get(segment) : null;
+      }
+    }
+    return current;
+  }
+
+  static int sizeOf(Object value) {
+    return value instanceof Collection ? ((Collection<?>) value).size() : Array.getLength(value);
+  }
+
+  static Class<?>[] tracedInterfacesOf(Class<?> modelClass) {
+    return tracedInterfaces.computeIfAbsent(modelClass, c -> {
+      Set<Class<?>> interfaces = new LinkedHashSet<>();
+      interfaces.add(Traced.class);
+      for (Class<?> cls = c; cls != null; cls = cls.getSuperclass()) {
+        for (Class<?> itf : cls.getInterfaces()) {
+          if (Modifier.isPublic(itf.getModifiers())) {
+            interfaces.add(itf);
+          }
+        }
+      }
+      return interfaces.toArray(new Class<?>[interfaces.size()]);
+    });
+  }
+
+  @Override
+  public void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Returns the number of executions that were rendered without using the cache because their
+   * parameter shape is uncacheable.
+   */
+  @Override
+  public long getBypasses() {
+    return bypasses.sum();
+  }
+
+  /**
+   * Returns the number of entries that were dropped because the cache was full.
+   */
+  @Override
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * Returns the number of executions that reused a cached script.
+   */
+  @Override
+  public long getHits() {
+    return hits.sum();
+  }
+
+  @Override
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Returns the number of executions that were rendered with tracing to populate the cache.
+   */
+  @Override
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  @Override
+  public int getSize() {
+    return entries.size();
+  }
+
+  /**
+   * Reset the counters, the cached entries are kept.
+   */
+  @Override
+  public void reset() {
+    hits.reset();
+    misses.reset();
+    bypasses.reset();
+    evictions.reset();
+  }
+
+  Entry get(String shape) {
+    Entry entry = entries.get(shape);
+    if (entry == null) {
+      misses.increment();
+    } else if (entry.isCacheable()) {
+      hits.increment();
+    } else {
+      bypasses.increment();
+    }
+    return entry;
+  }
+
+  void put(String shape, Entry entry) {
+    if (maxSize <= 0) {
+      return;
+    }
+    if (entries.size() >= maxSize && !entries.containsKey(shape)) {
+      int size = entries.size();
+      entries.clear();
+      evictions.add(size);
+    }
+    entries.putIfAbsent(shape, entry);
+  }
+
+  /**
+   * Returns the parameter shape key or null if the given query parameter can not be traced, e.g.
+   * the criteria is a POJO.
+   */
+  String resolveShape(QueryParameter param) {
+    Object criteria = param.getCriteria();
+    if (criteria != null && !(criteria instanceof Map)) {
+      bypasses.increment();
+      return null;
+    }
+    StringBuilder sb = new StringBuilder(128);
+    appendShape(sb, criteria);
+    sb.append('|');
+    appendShape(sb, param.getContext());
+    sb.append('|').append(param.getLimit() != null).append('|').append(param.getOffset() != null);
+    return sb.toString();
+  }
+
+  Tracer tracer() {
+    return new Tracer();
+  }
+
+  /**
+   * corant-modules-query-shared
+   *
+   * <p>
+   * The path of the value that is passed to the template method, the path starts with the criteria
+   * or the variables (context, limit and offset) and each segment is a map key or an element index.
+   *
+   * @author bingo 下午3:12:47
+   *
+   */
+  static final class Binding {
+
+    final boolean variable;
+    final Object[] path;
+
+    Binding(boolean variable, Object[] path) {
+      this.variable = variable;
+      this.path = path;
+    }
+
+    Binding child(Object segment) {
+      Object[] childPath = Arrays.copyOf(path, path.length + 1);
+      childPath[path.length] = segment;
+      return new Binding(variable, childPath);
+    }
+  }
+
+  /**
+   * corant-modules-query-shared
+   *
+   * @author bingo 下午3:12:47
+   *
+   */
+  static final class Entry {
+
+    final String script;
+    final Object[][] invocations;
+
+    Entry(String script, Object[][] invocations) {
+      this.script = script;
+      this.invocations = invocations;
+    }
+
+    boolean isCacheable() {
+      return script != null;
+    }
+
+    /**
+     * Replay the recorded template method invocations with the values of the given criteria and
+     * variables, the passed template method model collects the parameters.
+     */
+    void replay(TemplateMethodModelEx tmm, Object criteria, Map<String, Object> variables,
+        ObjectWrapper ow) throws TemplateModelException {
+      for (Object[] invocation : invocations) {
+        List<Object> arguments = new ArrayList<>(invocation.length);
+        for (Object argument : invocation) {
+          if (argument instanceof Binding) {
+            Binding binding = (Binding) argument;
+            Object value = resolve(binding.variable ? variables : criteria, binding.path);
+            arguments.add(value == null ? null : ow.wrap(value));
+          } else {
+            arguments.add(argument);
+          }
+        }
+        tmm.exec(arguments);
+      }
+    }
+  }
+
+  /**
+   * corant-modules-query-shared
+   *
+   * @author bingo 下午3:12:47
+   *
+   */
+  interface Traced {
+
+    Binding getTracedBinding();
+
+    TemplateModel getTracedModel();
+  }
+
+  /**
+   * corant-modules-query-shared
+   *
+   * <p>
+   * Traces a single rendering, wraps the criteria and the variables into traced template models and
+   * records the template method invocations.
+   *
+   * @author bingo 下午3:12:47
+   *
+   */
+  static final class Tracer {
+
+    final List<Object[]> invocations = new ArrayList<>();
+    boolean valueDependent;
+
+    Entry complete(String script) {
+      return valueDependent ? UNCACHEABLE
+          : new Entry(script, invocations.toArray(new Object[invocations.size()][]));
+    }
+
+    TemplateMethodModelEx record(TemplateMethodModelEx tmm) {
+      return arguments -> {
+        Object[] invocation = new Object[arguments.size()];
+        List<Object> actuals = new ArrayList<>(invocation.length);
+        for (int i = 0; i < invocation.length; i++) {
+          Object argument = arguments.get(i);
+          if (argument instanceof Traced) {
+            invocation[i] = ((Traced) argument).getTracedBinding();
+            actuals.add(((Traced) argument).getTracedModel());
+          } else {
+            if (!isReplayable(argument)) {
+              // the constant may be a container that holds the traced values or a date such as
+              // '.now', those can't be replayed.
+              valueDependent = true;
+            }
+            invocation[i] = argument;
+            actuals.add(argument);
+          }
+        }
+        invocations.add(invocation);
+        return tmm.exec(actuals);
+      };
+    }
+
+    boolean isReplayable(Object argument) {
+      return argument == null || (argument instanceof TemplateScalarModel
+          || argument instanceof TemplateNumberModel || argument instanceof TemplateBooleanModel)
+          && !(argument instanceof TemplateHashModel)
+          && !(argument instanceof TemplateSequenceModel)
+          && !(argument instanceof TemplateCollectionModel);
+    }
+
+    TemplateModel trace(TemplateModel model, Object value, Binding binding) {
+      if (model == null || value == null) {
+        return model;
+      }
+      return (TemplateModel) Proxy.newProxyInstance(FreemarkerScriptCache.class.getClassLoader(),
+          tracedInterfacesOf(model.getClass()), new TracedHandler(model, value, binding));
+    }
+
+    TemplateModel traceCriteria(TemplateModel model, Object criteria) {
+      return trace(model, criteria, new Binding(false, new Object[0]));
+    }
+
+    TemplateModel traceVariable(String name, TemplateModel model, Object value) {
+      return trace(model, value, new Binding(true, new Object[] {name}));
+    }
+
+    /**
+     * corant-modules-query-shared
+     *
+     * <p>
+     * Delegates to the real template model, the structural accesses (hash keys, sequence elements,
+     * sizes and boolean values) are part of the parameter shape and are traced, any other value
+     * access makes the rendering value dependent.
+     *
+     * @author bingo 下午3:12:47
+     *
+     */
+    final class TracedHandler implements InvocationHandler {
+
+      final TemplateModel model;
+      final Object value;
+      final Binding binding;
+
+      TracedHandler(TemplateModel model, Object value, Binding binding) {
+        this.model = model;
+        this.value = value;
+        this.binding = binding;
+      }
+
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        int argc = args == null ? 0 : args.length;
+        if (method.getDeclaringClass() == Traced.class) {
+          return "getTracedModel".equals(name) ? model : binding;
+        } else if ("hashCode".equals(name) && argc == 0) {
+          return System.identityHashCode(proxy);
+        } else if ("equals".equals(name) && argc == 1) {
+          return proxy == args[0];
+        } else if (method.getDeclaringClass() == TemplateHashModel.class && "get".equals(name)
+            && value instanceof Map) {
+          String key = (String) args[0];
+          return trace((TemplateModel) delegate(method, args), ((Map<?, ?>) value).get(key),
+              binding.child(key));
+        } else if (method.getDeclaringClass() == TemplateSequenceModel.class
+            && "get".equals(name)) {
+          int index = (Integer) args[0];
+          TemplateModel element = (TemplateModel) delegate(method, args);
+          return trace(element, element == null ? null : elementAt(value, index),
+              binding.child(index));
+        } else if (method.getDeclaringClass() == TemplateCollectionModel.class
+            && "iterator".equals(name)
+            && (value instanceof Collection || value.getClass().isArray())) {
+          return new TracedIterator((TemplateModelIterator) delegate(method, args),
+              iteratorOf(value), binding);
+        } else if (argc == 0 && ("size".equals(name) || "isEmpty".equals(name)
+            || "keys".equals(name) || "getAsBoolean".equals(name))) {
+          return delegate(method, args);
+        }
+        valueDependent = true;
+        return delegate(method, args);
+      }
+
+      Object delegate(Method method, Object[] args) throws Throwable {
+        try {
+          return method.invoke(model, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      }
+    }
+
+    /**
+     * corant-modules-query-shared
+     *
+     * @author bingo 下午3:12:47
+     *
+     */
+    final class TracedIterator implements TemplateModelIterator {
+
+      final TemplateModelIterator iterator;
+      final Iterator<?> values;
+      final Binding binding;
+      int index;
+
+      TracedIterator(TemplateModelIterator iterator, Iterator<?> values, Binding binding) {
+        this.iterator = iterator;
+        this.values = values;
+        this.binding = binding;
+      }
+
+      @Override
+      public boolean hasNext() throws TemplateModelException {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public TemplateModel next() throws TemplateModelException {
+        return trace(iterator.next(), values.next(), binding.child(index++));
+      }
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.dynamic.freemarker;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * The JMX management interface of the rendered script cache of a free marker dynamic query.
+ *
+ * @author bingo 下午3:12:47
+ *
+ */
+public interface FreemarkerScriptCacheMBean {
+
+  void clear();
+
+  long getBypasses();
+
+  long getEvictions();
+
+  long getHits();
+
+  int getMaxSize();
+
+  long getMisses();
+
+  int getSize();
+
+  void reset();
+}
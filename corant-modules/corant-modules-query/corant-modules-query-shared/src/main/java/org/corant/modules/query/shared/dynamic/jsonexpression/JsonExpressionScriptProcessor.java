@@ -24,9 +24,13 @@ import static org.corant.shared.util.Maps.getMapMap;
 import static org.corant.shared.util.Maps.getMapString;
 import static org.corant.shared.util.Objects.forceCast;
 import static org.corant.shared.util.Strings.split;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -44,7 +48,9 @@ import org.corant.modules.json.expression.EvaluationContext;
 import org.corant.modules.json.expression.FunctionResolver;
 import org.corant.modules.json.expression.Node;
 import org.corant.modules.json.expression.SimpleParser;
+import org.corant.modules.json.expression.ast.ASTComparisonNode.ASTEqualNode;
 import org.corant.modules.json.expression.ast.ASTFunctionNode;
+import org.corant.modules.json.expression.ast.ASTLogicNode.ASTLogicAndNode;
 import org.corant.modules.json.expression.ast.ASTNode;
 import org.corant.modules.json.expression.ast.ASTNodeBuilder;
 import org.corant.modules.json.expression.ast.ASTVariableNode;
@@ -138,16 +144,33 @@ public class JsonExpressionScriptProcessor extends AbstractScriptProcessor {
     return script != null && script.getType() == ScriptType.JSE;
   }
 
+  /**
+   * Compile the given parsed node, the functions are bound once with the function resolvers.
+   *
+   * @param node the parsed node
+   * @return the compiled node
+   */
+  protected Node<Boolean> compile(Node<Boolean> node) {
+    return SimpleParser.compile(node, name -> functionResolvers.stream()
+        .filter(fr -> fr.supports(name)).min(Sortable::compare).map(fr -> fr.resolve(name))
+        .orElse(null));
+  }
+
   protected Function<ParameterAndResultPair, Object> createInjectFuns(FetchQuery fetchQuery,
       Script script) {
     final String code = script.getCode();
     final Pair<Node<Boolean>, Projector> eval = resolveInjectScript(code);
     final Node<Boolean> filter = eval.left();
     final Projector projector = eval.right();
+    final JoinKeys joinKeys = filter == null ? null : JoinKeys.resolve(filter);
+    final Node<Boolean> evaluator = filter == null ? null : compile(filter);
     return p -> {
       List<Map<Object, Object>> parentResults = forceCast(p.parentResult);
       List<Map<Object, Object>> fetchResults = forceCast(p.fetchedResult);
       MyEvaluationContext evalCtx = new MyEvaluationContext(mapper, p.parameter, functionResolvers);
+      JoinIndex joinIndex = joinKeys != null && parentResults.size() > 1
+          ? new JoinIndex(joinKeys, fetchResults, mapper)
+          : null;
       for (Map<Object, Object> r : parentResults) {
         List<Object> injectResults = new ArrayList<>();
         if (filter == null) {
@@ -157,8 +180,10 @@ public class JsonExpressionScriptProcessor extends AbstractScriptProcessor {
             injectResults.addAll(fetchResults);
           }
         } else {
-          for (Map<Object, Object> fr : fetchResults) {
-            if (filter.getValue(evalCtx.link(r, fr))) {
+          List<Map<Object, Object>> candidates =
+              joinIndex == null ? fetchResults : joinIndex.probe(r, mapper);
+          for (Map<Object, Object> fr : candidates) {
+            if (evaluator.getValue(evalCtx.link(r, fr))) {
               injectResults.add(fr);
               if (!fetchQuery.isMultiRecords()) {
                 break;
@@ -196,7 +221,8 @@ public class JsonExpressionScriptProcessor extends AbstractScriptProcessor {
   protected Function<ParameterAndResult, Object> createPreFetchFuns(FetchQuery fetchQuery,
       Script script) {
     final String code = script.getCode();
-    final Node<Boolean> ast = (Node<Boolean>) SimpleParser.parse(code, MyASTNodeBuilder.INST);
+    final Node<Boolean> ast =
+        compile((Node<Boolean>) SimpleParser.parse(code, MyASTNodeBuilder.INST));
     return p -> {
       Map<Object, Object> r = (Map<Object, Object>) p.result;
       MyEvaluationContext evalCtx = new MyEvaluationContext(mapper, p.parameter, functionResolvers);
@@ -251,6 +277,153 @@ public class JsonExpressionScriptProcessor extends AbstractScriptProcessor {
     return Pair.of(filter, projector);
   }
 
+  /**
+   * corant-modules-query-shared
+   *
+   * <p>
+   * The hash index of the fetched results that built with the join keys of the injection filter,
+   * each parent result probes the index to get the candidate fetched results in the original order,
+   * the candidates still need to be evaluated with the whole filter. The fetched results whose key
+   * values can't be hashed consistently with the equality of the filter (e.g. float and double
+   * numbers) are always treated as candidates, and if the key values of a parent result can't be
+   * hashed, all fetched results are candidates.
+   *
+   * @author bingo 下午2:36:47
+   *
+   */
+  static class JoinIndex {
+
+    static final Object NULL_KEY = new Object();
+    static final Object UNHASHABLE = new Object();
+
+    final JoinKeys keys;
+    final List<Map<Object, Object>> fetchResults;
+    final Map<Object, List<Integer>> buckets = new HashMap<>();
+    final List<Integer> residuals = new ArrayList<>();
+
+    JoinIndex(JoinKeys keys, List<Map<Object, Object>> fetchResults, QueryObjectMapper mapper) {
+      this.keys = keys;
+      this.fetchResults = fetchResults;
+      for (int i = 0; i < fetchResults.size(); i++) {
+        Object key = resolveKey(fetchResults.get(i), keys.fetchVariables, mapper);
+        if (key == UNHASHABLE) {
+          residuals.add(i);
+        } else {
+          buckets.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+      }
+    }
+
+    /**
+     * Returns the hash key of the given value, the values that equal in the comparison of the
+     * equality node have the same key.
+     *
+     * @see ASTEqualNode#getValue(org.corant.modules.json.expression.EvaluationContext)
+     */
+    static Object resolveKey(Object value) {
+      if (value == null) {
+        return NULL_KEY;
+      } else if (value instanceof Long || value instanceof Integer || value instanceof Short
+          || value instanceof Byte) {
+        return ((Number) value).longValue();
+      } else if (value instanceof BigInteger) {
+        BigInteger bi = (BigInteger) value;
+        return bi.bitLength() < Long.SIZE ? (Object) bi.longValue() : bi;
+      } else if (value instanceof BigDecimal) {
+        BigDecimal bd = (BigDecimal) value;
+        if (bd.signum() == 0) {
+          return 0L;
+        }
+        BigDecimal stripped = bd.stripTrailingZeros();
+        return stripped.scale() <= 0 ? resolveKey(stripped.toBigIntegerExact()) : stripped;
+      } else if (value instanceof Number) {
+        return UNHASHABLE;
+      }
+      return value;
+    }
+
+    static Object resolveKey(Map<Object, Object> result, List<MyASTVariableNode> variables,
+        QueryObjectMapper mapper) {
+      if (variables.size() == 1) {
+        return resolveKey(mapper.getMappedValue(result, variables.get(0).getNamePath()));
+      }
+      Object[] key = new Object[variables.size()];
+      for (int i = 0; i < key.length; i++) {
+        if ((key[i] = resolveKey(
+            mapper.getMappedValue(result, variables.get(i).getNamePath()))) == UNHASHABLE) {
+          return UNHASHABLE;
+        }
+      }
+      return Arrays.asList(key);
+    }
+
+    List<Map<Object, Object>> probe(Map<Object, Object> parentResult, QueryObjectMapper mapper) {
+      Object key = resolveKey(parentResult, keys.parentVariables, mapper);
+      if (key == UNHASHABLE) {
+        return fetchResults;
+      }
+      List<Integer> hits = buckets.getOrDefault(key, Collections.emptyList());
+      List<Map<Object, Object>> candidates = new ArrayList<>(hits.size() + residuals.size());
+      int h = 0;
+      int r = 0;
+      while (h < hits.size() || r < residuals.size()) {
+        if (r == residuals.size() || h < hits.size() && hits.get(h) < residuals.get(r)) {
+          candidates.add(fetchResults.get(hits.get(h++)));
+        } else {
+          candidates.add(fetchResults.get(residuals.get(r++)));
+        }
+      }
+      return candidates;
+    }
+  }
+
+  /**
+   * corant-modules-query-shared
+   *
+   * <p>
+   * The join keys of the injection filter, which are the parent result variables and the fetched
+   * result variables of the equality nodes that are the conjuncts of the filter, for example
+   * <code>{"$and":[{"$eq":["@r.id","@fr.parentId"]},{"$gt":["@fr.amount",0]}]}</code>.
+   *
+   * @author bingo 下午2:36:47
+   *
+   */
+  static class JoinKeys {
+
+    final List<MyASTVariableNode> parentVariables = new ArrayList<>();
+    final List<MyASTVariableNode> fetchVariables = new ArrayList<>();
+
+    static JoinKeys resolve(Node<Boolean> filter) {
+      JoinKeys keys = new JoinKeys();
+      keys.collect(filter);
+      return keys.parentVariables.isEmpty() ? null : keys;
+    }
+
+    void collect(Node<?> node) {
+      if (node instanceof ASTLogicAndNode) {
+        for (Node<?> child : ((ASTLogicAndNode) node).getChildren()) {
+          collect(child);
+        }
+      } else if (node instanceof ASTEqualNode) {
+        ASTEqualNode equal = (ASTEqualNode) node;
+        if (isVariable(equal.getLeft(), PARENT_RESULT_VAR_PREFIX)
+            && isVariable(equal.getRight(), FETCH_RESULT_VAR_PREFIX)) {
+          parentVariables.add((MyASTVariableNode) equal.getLeft());
+          fetchVariables.add((MyASTVariableNode) equal.getRight());
+        } else if (isVariable(equal.getLeft(), FETCH_RESULT_VAR_PREFIX)
+            && isVariable(equal.getRight(), PARENT_RESULT_VAR_PREFIX)) {
+          parentVariables.add((MyASTVariableNode) equal.getRight());
+          fetchVariables.add((MyASTVariableNode) equal.getLeft());
+        }
+      }
+    }
+
+    boolean isVariable(Node<?> node, String prefix) {
+      return node instanceof MyASTVariableNode
+          && ((MyASTVariableNode) node).getName().startsWith(prefix);
+    }
+  }
+
   /**
    * corant-modules-query-shared
    *
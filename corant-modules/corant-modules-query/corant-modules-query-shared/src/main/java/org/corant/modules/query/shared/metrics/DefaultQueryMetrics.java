@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.metrics;
+
+import static org.corant.shared.normal.Names.applicationName;
+import static org.corant.shared.util.MBeans.deregisterFromMBean;
+import static org.corant.shared.util.MBeans.registerToMBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.management.ObjectName;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * The default query metrics, keeps a {@link QueryMeter} for each query and registers it to the
+ * JMX MBean server with the name '{application name}:type=query-metrics,name={query name}' unless
+ * the config property 'corant.query.metrics.jmx-enabled' is false.
+ *
+ * @author bingo 下午2:05:16
+ *
+ */
+@ApplicationScoped
+public class DefaultQueryMetrics implements QueryMetrics {
+
+  protected final Map<String, QueryMeter> meters = new ConcurrentHashMap<>();
+  protected final Set<String> mbeanNames = ConcurrentHashMap.newKeySet();
+
+  @Inject
+  protected Logger logger;
+
+  @Inject
+  @ConfigProperty(name = "corant.query.metrics.jmx-enabled", defaultValue = "true")
+  protected boolean jmxEnabled;
+
+  @Override
+  public void recordExecution(String queryName, String kind, long elapsedNanos, int resultSize,
+      boolean failed) {
+    getMeter(queryName).recordExecution(kind, elapsedNanos, resultSize, failed);
+  }
+
+  @Override
+  public void recordFetch(String queryName, int fanOut) {
+    getMeter(queryName).recordFetch(fanOut);
+  }
+
+  @Override
+  public void recordRender(String queryName, long elapsedNanos) {
+    getMeter(queryName).recordRender(elapsedNanos);
+  }
+
+  @Override
+  public void reset() {
+    meters.values().forEach(QueryMeter::reset);
+  }
+
+  @Override
+  public Map<String, QueryMetricsSnapshot> snapshot() {
+    Map<String, QueryMetricsSnapshot> snapshots = new LinkedHashMap<>();
+    meters.forEach((k, v) -> snapshots.put(k, v.snapshot()));
+    return snapshots;
+  }
+
+  protected QueryMeter createMeter(String queryName) {
+    QueryMeter meter = new QueryMeter(queryName);
+    if (jmxEnabled) {
+      String mbeanName = applicationName().concat(":type=query-metrics,name=")
+          .concat(ObjectName.quote(queryName));
+      try {
+        registerToMBean(mbeanName, meter);
+        mbeanNames.add(mbeanName);
+      } catch (Exception e) {
+        logger.log(Level.WARNING, e,
+            () -> String.format("Can't register query [%s] metrics to jmx.", queryName));
+      }
+    }
+    return meter;
+  }
+
+  protected QueryMeter getMeter(String queryName) {
+    QueryMeter meter = meters.get(queryName);
+    if (meter == null) {
+      meter = meters.computeIfAbsent(queryName, this::createMeter);
+    }
+    return meter;
+  }
+
+  @PreDestroy
+  protected void onPreDestroy() {
+    deregisterFromMBean(mbeanNames.toArray(new String[mbeanNames.size()]));
+    mbeanNames.clear();
+    meters.clear();
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * A lock-free log-linear histogram in the style of HDR histogram, the non-negative long values are
+ * recorded into the buckets that each power of two range is divided into 16 linear sub buckets, so
+ * the relative error of the reported percentiles is less than 1/16. The histogram covers the full
+ * long range with fixed memory, it is suitable for recording latencies in nanoseconds or result
+ * sizes.
+ *
+ * @author bingo 下午2:05:16
+ *
+ */
+public class LatencyHistogram {
+
+  static final int SUB_BUCKET_BITS = 4;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  protected final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  protected final LongAdder sum = new LongAdder();
+  protected final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+  protected final AtomicLong max = new AtomicLong();
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  static long upperBoundOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long mantissa = index % SUB_BUCKETS + (long) SUB_BUCKETS;
+    return ((mantissa + 1) << shift) - 1;
+  }
+
+  /**
+   * Record the given value, the negative value is recorded as 0.
+   *
+   * @param value the value to record
+   */
+  public void record(long value) {
+    long v = Math.max(value, 0L);
+    counts.incrementAndGet(indexOf(v));
+    sum.add(v);
+    if (v < min.get()) {
+      min.accumulateAndGet(v, Math::min);
+    }
+    if (v > max.get()) {
+      max.accumulateAndGet(v, Math::max);
+    }
+  }
+
+  /**
+   * Reset the histogram, the values that recorded concurrently may be partially retained.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    sum.reset();
+    min.set(Long.MAX_VALUE);
+    max.set(0);
+  }
+
+  /**
+   * Returns a point-in-time snapshot of the histogram.
+   */
+  public Snapshot snapshot() {
+    long[] copied = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += copied[i] = counts.get(i);
+    }
+    return new Snapshot(copied, count, sum.sum(), count == 0 ? 0 : min.get(), max.get());
+  }
+
+  /**
+   * corant-modules-query-shared
+   *
+   * @author bingo 下午2:05:16
+   *
+   */
+  public static class Snapshot {
+
+    public static final Snapshot EMPTY = new Snapshot(new long[BUCKETS], 0, 0, 0, 0);
+
+    protected final long count;
+    protected final long sum;
+    protected final long min;
+    protected final long max;
+    protected final long p50;
+    protected final long p90;
+    protected final long p99;
+    protected final long p999;
+
+    protected Snapshot(long[] counts, long count, long sum, long min, long max) {
+      this.count = count;
+      this.sum = sum;
+      this.min = min;
+      this.max = max;
+      p50 = valueAt(counts, count, max, 0.5);
+      p90 = valueAt(counts, count, max, 0.9);
+      p99 = valueAt(counts, count, max, 0.99);
+      p999 = valueAt(counts, count, max, 0.999);
+    }
+
+    static long valueAt(long[] counts, long count, long max, double quantile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max((long) Math.ceil(quantile * count), 1L);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        if ((seen += counts[i]) >= rank) {
+          return Math.min(upperBoundOf(i), max);
+        }
+      }
+      return max;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    public double getMean() {
+      return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long getMin() {
+      return min;
+    }
+
+    public long getP50() {
+      return p50;
+    }
+
+    public long getP90() {
+      return p90;
+    }
+
+    public long getP99() {
+      return p99;
+    }
+
+    public long getP999() {
+      return p999;
+    }
+
+    public long getSum() {
+      return sum;
+    }
+
+    @Override
+    public String toString() {
+      return "Snapshot [count=" + count + ", min=" + min + ", max=" + max + ", mean=" + getMean()
+          + ", p50=" + p50 + ", p90=" + p90 + ", p99=" + p99 + ", p999=" + p999 + "]";
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.metrics;
+
+import org.corant.modules.query.shared.dynamic.DynamicQuerier;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * The sample of a query execution that is bound to the executing thread, the querier resolver and
+ * the fetch handling of the named query service report the render time, the rendered querier and
+ * the fetch query executions to the current sample. The samples of nested query executions on the
+ * same thread are stacked.
+ *
+ * @author bingo 下午2:05:16
+ *
+ */
+public class QueryExecutionSample {
+
+  static final ThreadLocal<QueryExecutionSample> CURRENT = new ThreadLocal<>();
+
+  protected final String queryName;
+  protected final QueryExecutionSample previous;
+  protected final long startNanos = System.nanoTime();
+  protected long renderNanos;
+  protected int fetchFanOut;
+  protected DynamicQuerier<?, ?> querier;
+
+  protected QueryExecutionSample(String queryName, QueryExecutionSample previous) {
+    this.queryName = queryName;
+    this.previous = previous;
+  }
+
+  /**
+   * Begin a sample of the given query on the current thread, the returned sample must be ended on
+   * the same thread.
+   *
+   * @param queryName the query name
+   * @return the sample
+   */
+  public static QueryExecutionSample begin(String queryName) {
+    QueryExecutionSample sample = new QueryExecutionSample(queryName, CURRENT.get());
+    CURRENT.set(sample);
+    return sample;
+  }
+
+  /**
+   * Returns the sample of the current thread or null if there is no query execution being sampled.
+   */
+  public static QueryExecutionSample current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * End the sample and restore the previous sample of the current thread, returns the elapsed time
+   * in nanoseconds.
+   */
+  public long end() {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+    return System.nanoTime() - startNanos;
+  }
+
+  /**
+   * Report a fetch query execution
+   */
+  public void fetched() {
+    fetchFanOut++;
+  }
+
+  public int getFetchFanOut() {
+    return fetchFanOut;
+  }
+
+  /**
+   * Returns the rendered querier of the sampled query, may be null.
+   */
+  public DynamicQuerier<?, ?> getQuerier() {
+    return querier;
+  }
+
+  public String getQueryName() {
+    return queryName;
+  }
+
+  public long getRenderNanos() {
+    return renderNanos;
+  }
+
+  /**
+   * Report a rendered querier, the queriers of other queries e.g. the fetch queries that rendered
+   * during the sampled execution are ignored.
+   *
+   * @param queryName the name that used to resolve the querier
+   * @param querier the rendered querier
+   * @param elapsedNanos the render time in nanoseconds
+   */
+  public void rendered(String queryName, DynamicQuerier<?, ?> querier, long elapsedNanos) {
+    if (this.queryName.equals(queryName)) {
+      this.querier = querier;
+      renderNanos += elapsedNanos;
+    }
+  }
+}
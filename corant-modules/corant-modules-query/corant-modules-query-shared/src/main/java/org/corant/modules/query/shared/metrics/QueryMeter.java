@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * The metrics of a query, records the execution time, the render time, the result size and the
+ * fetch query fan-out into histograms.
+ *
+ * @author bingo 下午2:05:16
+ *
+ */
+public class QueryMeter implements QueryMeterMBean {
+
+  static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  protected final String queryName;
+  protected final LatencyHistogram executions = new LatencyHistogram();
+  protected final LatencyHistogram renders = new LatencyHistogram();
+  protected final LatencyHistogram resultSizes = new LatencyHistogram();
+  protected final LatencyHistogram fetchFanOuts = new LatencyHistogram();
+  protected final LongAdder errors = new LongAdder();
+  protected final Map<String, LongAdder> executionsByKind = new ConcurrentHashMap<>();
+
+  public QueryMeter(String queryName) {
+    this.queryName = queryName;
+  }
+
+  static double toMillis(double nanos) {
+    return nanos / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public long getErrorCount() {
+    return errors.sum();
+  }
+
+  @Override
+  public long getExecutionCount() {
+    return executions.snapshot().getCount();
+  }
+
+  @Override
+  public double getExecutionMaxMillis() {
+    return toMillis(executions.snapshot().getMax());
+  }
+
+  @Override
+  public double getExecutionMeanMillis() {
+    return toMillis(executions.snapshot().getMean());
+  }
+
+  @Override
+  public double getExecutionP50Millis() {
+    return toMillis(executions.snapshot().getP50());
+  }
+
+  @Override
+  public double getExecutionP90Millis() {
+    return toMillis(executions.snapshot().getP90());
+  }
+
+  @Override
+  public double getExecutionP999Millis() {
+    return toMillis(executions.snapshot().getP999());
+  }
+
+  @Override
+  public double getExecutionP99Millis() {
+    return toMillis(executions.snapshot().getP99());
+  }
+
+  @Override
+  public long getFetchFanOutMax() {
+    return fetchFanOuts.snapshot().getMax();
+  }
+
+  @Override
+  public double getFetchFanOutMean() {
+    return fetchFanOuts.snapshot().getMean();
+  }
+
+  public String getQueryName() {
+    return queryName;
+  }
+
+  @Override
+  public double getRenderMeanMillis() {
+    return toMillis(renders.snapshot().getMean());
+  }
+
+  @Override
+  public double getRenderP99Millis() {
+    return toMillis(renders.snapshot().getP99());
+  }
+
+  @Override
+  public long getResultSizeMax() {
+    return resultSizes.snapshot().getMax();
+  }
+
+  @Override
+  public double getResultSizeMean() {
+    return resultSizes.snapshot().getMean();
+  }
+
+  @Override
+  public void reset() {
+    executions.reset();
+    renders.reset();
+    resultSizes.reset();
+    fetchFanOuts.reset();
+    errors.reset();
+    executionsByKind.clear();
+  }
+
+  public QueryMetricsSnapshot snapshot() {
+    Map<String, Long> kinds = new LinkedHashMap<>();
+    executionsByKind.forEach((k, v) -> kinds.put(k, v.sum()));
+    return new QueryMetricsSnapshot(queryName, executions.snapshot(), renders.snapshot(),
+        resultSizes.snapshot(), fetchFanOuts.snapshot(), errors.sum(), kinds);
+  }
+
+  protected void recordExecution(String kind, long elapsedNanos, int resultSize,
+      boolean failed) {
+    executions.record(elapsedNanos);
+    executionsByKind.computeIfAbsent(kind, k -> new LongAdder()).increment();
+    if (failed) {
+      errors.increment();
+    } else {
+      resultSizes.record(resultSize);
+    }
+  }
+
+  protected void recordFetch(int fanOut) {
+    fetchFanOuts.record(fanOut);
+  }
+
+  protected void recordRender(long elapsedNanos) {
+    renders.record(elapsedNanos);
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.metrics;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * The JMX management interface of the metrics of a query, the times are in milliseconds.
+ *
+ * @author bingo 下午2:05:16
+ *
+ */
+public interface QueryMeterMBean {
+
+  long getErrorCount();
+
+  long getExecutionCount();
+
+  double getExecutionMaxMillis();
+
+  double getExecutionMeanMillis();
+
+  double getExecutionP50Millis();
+
+  double getExecutionP90Millis();
+
+  double getExecutionP999Millis();
+
+  double getExecutionP99Millis();
+
+  long getFetchFanOutMax();
+
+  double getFetchFanOutMean();
+
+  double getRenderMeanMillis();
+
+  double getRenderP99Millis();
+
+  long getResultSizeMax();
+
+  double getResultSizeMean();
+
+  void reset();
+}
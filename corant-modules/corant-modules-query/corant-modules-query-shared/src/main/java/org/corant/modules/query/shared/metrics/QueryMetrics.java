@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.metrics;
+
+import java.util.Map;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * The pluggable query metrics surface, the named query services report the execution time, the
+ * result size, the script render time and the fetch query fan-out of each query execution to it
+ * when the querier config enables metrics.
+ *
+ * @author bingo 下午2:05:16
+ *
+ */
+public interface QueryMetrics {
+
+  /**
+   * Record a query execution
+   *
+   * @param queryName the query name
+   * @param kind the query kind, e.g. get/select/page/forward
+   * @param elapsedNanos the execution time in nanoseconds, includes the render and fetch time
+   * @param resultSize the result size
+   * @param failed whether the execution failed
+   */
+  void recordExecution(String queryName, String kind, long elapsedNanos, int resultSize,
+      boolean failed);
+
+  /**
+   * Record the number of fetch query executions triggered by a query execution
+   *
+   * @param queryName the query name
+   * @param fanOut the number of the fetch query executions
+   */
+  void recordFetch(String queryName, int fanOut);
+
+  /**
+   * Record the script render time of a query execution
+   *
+   * @param queryName the query name
+   * @param elapsedNanos the render time in nanoseconds
+   */
+  void recordRender(String queryName, long elapsedNanos);
+
+  /**
+   * Reset all metrics
+   */
+  void reset();
+
+  /**
+   * Returns the point-in-time snapshots of all queries, the key is the query name.
+   */
+  Map<String, QueryMetricsSnapshot> snapshot();
+}
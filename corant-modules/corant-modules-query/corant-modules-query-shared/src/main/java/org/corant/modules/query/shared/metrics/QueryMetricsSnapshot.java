@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.metrics;
+
+import static java.util.Collections.unmodifiableMap;
+import java.util.Map;
+import org.corant.modules.query.shared.metrics.LatencyHistogram.Snapshot;
+
+/**
+ * corant-modules-query-shared
+ *
+ * <p>
+ * The point-in-time metrics snapshot of a query, the execution and render times are in
+ * nanoseconds.
+ *
+ * @author bingo 下午2:05:16
+ *
+ */
+public class QueryMetricsSnapshot {
+
+  protected final String queryName;
+  protected final Snapshot executions;
+  protected final Snapshot renders;
+  protected final Snapshot resultSizes;
+  protected final Snapshot fetchFanOuts;
+  protected final long errors;
+  protected final Map<String, Long> executionsByKind;
+
+  public QueryMetricsSnapshot(String queryName, Snapshot executions, Snapshot renders,
+      Snapshot resultSizes, Snapshot fetchFanOuts, long errors,
+      Map<String, Long> executionsByKind) {
+    this.queryName = queryName;
+    this.executions = executions;
+    this.renders = renders;
+    this.resultSizes = resultSizes;
+    this.fetchFanOuts = fetchFanOuts;
+    this.errors = errors;
+    this.executionsByKind = unmodifiableMap(executionsByKind);
+  }
+
+  public long getErrors() {
+    return errors;
+  }
+
+  public Snapshot getExecutions() {
+    return executions;
+  }
+
+  /**
+   * Returns the execution counts of each query kind, e.g. get/select/page/forward.
+   */
+  public Map<String, Long> getExecutionsByKind() {
+    return executionsByKind;
+  }
+
+  public Snapshot getFetchFanOuts() {
+    return fetchFanOuts;
+  }
+
+  public String getQueryName() {
+    return queryName;
+  }
+
+  public Snapshot getRenders() {
+    return renders;
+  }
+
+  public Snapshot getResultSizes() {
+    return resultSizes;
+  }
+
+  @Override
+  public String toString() {
+    return "QueryMetricsSnapshot [queryName=" + queryName + ", executions=" + executions
+        + ", renders=" + renders + ", resultSizes=" + resultSizes + ", fetchFanOuts="
+        + fetchFanOuts + ", errors=" + errors + ", executionsByKind=" + executionsByKind + "]";
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2013-2021, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.shared.dynamic.freemarker;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.corant.modules.query.QueryParameter.DefaultQueryParameter;
+import org.corant.modules.query.shared.dynamic.freemarker.FreemarkerScriptCache.Entry;
+import org.corant.modules.query.shared.dynamic.freemarker.FreemarkerScriptCache.Tracer;
+import org.junit.Test;
+import freemarker.core.Environment;
+import freemarker.template.Configuration;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.Template;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.utility.DeepUnwrap;
+import junit.framework.TestCase;
+
+/**
+ * corant-modules-query-shared
+ *
+ * @author bingo 下午3:12:47
+ *
+ */
+public class FreemarkerScriptCacheTest extends TestCase {
+
+  static final Configuration cfg = new Configuration(Configuration.VERSION_2_3_31);
+
+  static final String STRUCTURAL_SCRIPT =
+      "SELECT * FROM T WHERE 1 = 1<#if name??> AND NAME = ${TP(name)}</#if>"
+          + "<#if ids??> AND ID IN (<#list ids as id>${TP(id)},</#list>)</#if>";
+
+  static final String VALUE_DEPENDENT_SCRIPT =
+      "SELECT * FROM T WHERE 1 = 1<#if name == 'bingo'> AND NAME = ${TP(name)}</#if>";
+
+  static Map<String, Object> criteria(Object... kvs) {
+    Map<String, Object> map = new HashMap<>();
+    for (int i = 0; i < kvs.length; i += 2) {
+      map.put((String) kvs[i], kvs[i + 1]);
+    }
+    return map;
+  }
+
+  static String render(Template template, Object criteria, TemplateMethodModelEx tmm,
+      Tracer tracer) throws Exception {
+    StringWriter sw = new StringWriter();
+    ObjectWrapper ow = template.getObjectWrapper();
+    Environment env = template.createProcessingEnvironment(
+        tracer == null ? criteria : tracer.traceCriteria(ow.wrap(criteria), criteria), sw);
+    env.setVariable("TP", tracer == null ? tmm : tracer.record(tmm));
+    env.process();
+    return sw.toString();
+  }
+
+  static String shapeOf(FreemarkerScriptCache cache, Object criteria) {
+    return cache.resolveShape(new DefaultQueryParameter().criteria(criteria));
+  }
+
+  @Test
+  public void testBypass() throws Exception {
+    FreemarkerScriptCache cache = new FreemarkerScriptCache(8);
+    Template template = new Template("test", VALUE_DEPENDENT_SCRIPT, cfg);
+    Map<String, Object> criteria = criteria("name", "bingo");
+    String shape = shapeOf(cache, criteria);
+    assertNull(cache.get(shape));
+    Tracer tracer = cache.tracer();
+    render(template, criteria, new ParameterCollector(), tracer);
+    Entry entry = tracer.complete("ignored");
+    assertFalse(entry.isCacheable());
+    cache.put(shape, entry);
+    assertFalse(cache.get(shape).isCacheable());
+    assertEquals(1, cache.getBypasses());
+    assertEquals(0, cache.getHits());
+    // the criteria that can't be traced
+    assertNull(shapeOf(cache, new Object()));
+    assertEquals(2, cache.getBypasses());
+  }
+
+  @Test
+  public void testEviction() {
+    FreemarkerScriptCache cache = new FreemarkerScriptCache(2);
+    Entry entry = new Entry("script", new Object[0][]);
+    cache.put("a", entry);
+    cache.put("b", entry);
+    cache.put("b", entry);
+    assertEquals(2, cache.getSize());
+    assertEquals(0, cache.getEvictions());
+    cache.put("c", entry);
+    assertEquals(1, cache.getSize());
+    assertEquals(2, cache.getEvictions());
+    assertSame(entry, cache.get("c"));
+    assertNull(cache.get("a"));
+  }
+
+  @Test
+  public void testShapeTracing() throws Exception {
+    FreemarkerScriptCache cache = new FreemarkerScriptCache(8);
+    Template template = new Template("test", STRUCTURAL_SCRIPT, cfg);
+    Map<String, Object> first = criteria("name", "bingo", "ids", Arrays.asList(1L, 2L));
+    Map<String, Object> second = criteria("name", "chen", "ids", Arrays.asList(3L, 4L));
+    String shape = shapeOf(cache, first);
+    assertEquals(shape, shapeOf(cache, second));
+    assertFalse(shape.equals(shapeOf(cache, criteria("name", "bingo", "ids",
+        Arrays.asList(1L, 2L, 3L)))));
+    assertFalse(shape.equals(shapeOf(cache, criteria("ids", Arrays.asList(1L, 2L)))));
+
+    Tracer tracer = cache.tracer();
+    ParameterCollector traced = new ParameterCollector();
+    String script = render(template, first, traced, tracer);
+    assertEquals("SELECT * FROM T WHERE 1 = 1 AND NAME = ? AND ID IN (?,?,)", script);
+    assertEquals(Arrays.asList("bingo", 1L, 2L), traced.parameters);
+    cache.put(shape, tracer.complete(script));
+
+    Entry entry = cache.get(shape);
+    assertTrue(entry.isCacheable());
+    assertEquals(1, cache.getHits());
+    ParameterCollector replayed = new ParameterCollector();
+    entry.replay(replayed, second, Collections.emptyMap(), template.getObjectWrapper());
+    ParameterCollector rendered = new ParameterCollector();
+    assertEquals(render(template, second, rendered, null), entry.script);
+    assertEquals(rendered.parameters, replayed.parameters);
+    assertEquals(Arrays.asList("chen", 3L, 4L), replayed.parameters);
+  }
+
+  /**
+   * corant-modules-query-shared
+   *
+   * @author bingo 下午3:12:47
+   *
+   */
+  static class ParameterCollector implements TemplateMethodModelEx {
+
+    final List<Object> parameters = new ArrayList<>();
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public Object exec(List arguments) throws TemplateModelException {
+      for (Object argument : arguments) {
+        parameters.add(DeepUnwrap.unwrap((TemplateModel) argument));
+      }
+      return "?";
+    }
+  }
+}
@@ -13,23 +13,42 @@
  */
 package org.corant.modules.query.sql;
 
+import static org.corant.shared.util.Empties.isNotEmpty;
 import static org.corant.shared.util.Empties.sizeOf;
+import static org.corant.shared.util.Lists.append;
+import static org.corant.shared.util.Maps.getMapBoolean;
 import static org.corant.shared.util.Maps.getMapInteger;
+import static org.corant.shared.util.Objects.forceCast;
 import static org.corant.shared.util.Objects.max;
+import static org.corant.shared.util.Primitives.isSimpleClass;
 import static org.corant.shared.util.Streams.batchStream;
 import java.sql.SQLException;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Stream;
 import org.corant.modules.query.Querier;
+import org.corant.modules.query.QuerierConfig;
 import org.corant.modules.query.QueryParameter;
+import org.corant.modules.query.QueryParameter.DefaultQueryParameter;
 import org.corant.modules.query.QueryParameter.StreamQueryParameter;
 import org.corant.modules.query.QueryRuntimeException;
 import org.corant.modules.query.mapping.FetchQuery;
+import org.corant.modules.query.mapping.Query;
 import org.corant.modules.query.shared.AbstractNamedQuerierResolver;
 import org.corant.modules.query.shared.AbstractNamedQueryService;
 import org.corant.modules.query.sql.dialect.Dialect;
+import org.corant.modules.query.sql.dialect.KeysetColumn;
 
 /**
  * corant-modules-query-sql
@@ -39,6 +58,10 @@ import org.corant.modules.query.sql.dialect.Dialect;
  */
 public abstract class AbstractSqlNamedQueryService extends AbstractNamedQueryService {
 
+  protected static final int MAX_CACHED_TOTALS = 4096;
+
+  protected final Map<String, CachedTotal> cachedTotals = new ConcurrentHashMap<>();
+
   @Override
   public FetchResult fetch(Object result, FetchQuery fetchQuery, Querier parentQuerier) {
     try {
@@ -63,9 +86,11 @@ public abstract class AbstractSqlNamedQueryService extends AbstractNamedQuerySer
    * {@inheritDoc}
    * <p>
    * If the value of query parameter offset > 0 or the value of query parameter retry time > 0 or
-   * the enhancer of query parameter is not null then this method use
-   * {@link #forward(String, Object)} to fetch next data records; otherwise, perform a complete
-   * query.
+   * the enhancer of query parameter is not null or the read-ahead depth of query parameter > 0
+   * then this method use {@link #forward(String, Object)} to fetch next data records; otherwise,
+   * perform a complete query. If the query declares the
+   * {@link QuerierConfig#PRO_KEY_KEYSET_COLUMNS}, the forwarding uses the keyset (seek) pagination
+   * instead of the offset.
    * </p>
    *
    * @see AbstractNamedQueryService#doStream(String, StreamQueryParameter)
@@ -81,8 +106,12 @@ public abstract class AbstractSqlNamedQueryService extends AbstractNamedQuerySer
       useQueryParam = new StreamQueryParameter(queryParam);
     }
     useQueryParam.limit(max(querier.resolveStreamLimit(), 1));
+    if (useQueryParam.getReadAhead() <= 0) {
+      useQueryParam.readAhead(
+          querier.resolveProperty(QuerierConfig.PRO_KEY_STREAM_READ_AHEAD, Integer.class, 0));
+    }
     if (useQueryParam.getOffset() > 0 || useQueryParam.needRetry()
-        || useQueryParam.getEnhancer() != null) {
+        || useQueryParam.getEnhancer() != null || useQueryParam.getReadAhead() > 0) {
       return doStream(queryName, useQueryParam);
     } else {
       Object[] scriptParameter = querier.getScriptParameter();
@@ -102,6 +131,11 @@ public abstract class AbstractSqlNamedQueryService extends AbstractNamedQuerySer
   @Override
   protected <T> Forwarding<T> doForward(String queryName, Object parameter) throws SQLException {
     SqlNamedQuerier querier = getQuerierResolver().resolve(queryName, parameter);
+    List<KeysetColumn> keysetColumns = KeysetColumn
+        .parse(querier.resolveProperty(QuerierConfig.PRO_KEY_KEYSET_COLUMNS, String.class, null));
+    if (!keysetColumns.isEmpty()) {
+      return doKeysetForward(queryName, querier, keysetColumns);
+    }
     Object[] scriptParameter = querier.getScriptParameter();
     String sql = querier.getScript();
     int offset = querier.resolveOffset();
@@ -111,6 +145,15 @@ public abstract class AbstractSqlNamedQueryService extends AbstractNamedQuerySer
     String limitSql = getDialect().getLimitSql(sql, offset, limit + 1, properties);
     log(queryName, scriptParameter, sql, "Limit: " + limitSql);
     Forwarding<T> result = Forwarding.inst();
+    SqlBeanRowMapper<T> mapper = resolveBeanRowMapper(querier);
+    if (mapper != null) {
+      List<T> list = getExecutor().selectBeans(limitSql, mapper, 0, timeout, scriptParameter);
+      if (sizeOf(list) > limit) {
+        list.remove(limit);
+        result.withHasNext(true);
+      }
+      return result.withResults(list);
+    }
     List<Map<String, Object>> list = getExecutor().select(limitSql, timeout, scriptParameter);
     int size = sizeOf(list);
     if (size > 0) {
@@ -124,6 +167,59 @@ public abstract class AbstractSqlNamedQueryService extends AbstractNamedQuerySer
 
   }
 
+  /**
+   * Forward query in keyset (seek) pagination mode, the rows are ordered by the given key columns
+   * and the rows after the key values that given by {@link QueryParameter#CTX_KEYSET_SEEK} in the
+   * query parameter context are fetched, the offset of the query parameter is ignored. The seek key
+   * values can be a map that keyed by the column labels or an array or a collection in the order of
+   * the key columns. After execution, the key values of the last row are put back to the context of
+   * the query parameter if it is a {@link DefaultQueryParameter}, so that the streaming query and
+   * the caller can continue to seek from the last row.
+   *
+   * @param <T> the result type
+   * @param queryName the query name
+   * @param querier the resolved querier
+   * @param columns the ordering key columns
+   * @throws SQLException if the query fails
+   *
+   * @see QuerierConfig#PRO_KEY_KEYSET_COLUMNS
+   * @see Dialect#getKeysetSql(String, List, boolean, Map)
+   */
+  protected <T> Forwarding<T> doKeysetForward(String queryName, SqlNamedQuerier querier,
+      List<KeysetColumn> columns) throws SQLException {
+    QueryParameter queryParam = querier.getQueryParameter();
+    Object[] keys = resolveKeysetSeek(queryName, columns,
+        queryParam.getContext() == null ? null
+            : queryParam.getContext().get(QueryParameter.CTX_KEYSET_SEEK));
+    Object[] scriptParameter = querier.getScriptParameter();
+    String sql = querier.getScript();
+    int limit = querier.resolveLimit();
+    Duration timeout = querier.resolveTimeout();
+    Map<String, String> properties = querier.getQuery().getProperties();
+    String keysetSql = getDialect().getKeysetSql(sql, columns, keys != null, properties);
+    String limitSql = getDialect().getLimitSql(keysetSql, 0, limit + 1, properties);
+    Object[] parameters = keys == null ? scriptParameter
+        : append(scriptParameter, getDialect().getKeysetParameters(columns, keys));
+    log(queryName, parameters, sql, "Keyset: " + limitSql);
+    Forwarding<T> result = Forwarding.inst();
+    List<Map<String, Object>> list = getExecutor().select(limitSql, timeout, parameters);
+    int size = sizeOf(list);
+    if (size > 0) {
+      if (size > limit) {
+        list.remove(limit);
+        result.withHasNext(true);
+      }
+      if (queryParam instanceof DefaultQueryParameter) {
+        Map<String, Object> last = list.get(list.size() - 1);
+        Map<String, Object> seek = new LinkedHashMap<>();
+        columns.forEach(column -> seek.put(column.getName(), column.valueOf(last)));
+        queryParam.getContext().put(QueryParameter.CTX_KEYSET_SEEK, seek);
+      }
+      this.fetch(list, querier);
+    }
+    return result.withResults(querier.handleResults(list));
+  }
+
   @Override
   protected <T> T doGet(String queryName, Object parameter) throws SQLException {
     SqlNamedQuerier querier = getQuerierResolver().resolve(queryName, parameter);
@@ -131,12 +227,27 @@ public abstract class AbstractSqlNamedQueryService extends AbstractNamedQuerySer
     String sql = querier.getScript();
     Duration timeout = querier.resolveTimeout();
     log(queryName, scriptParameter, sql);
+    SqlBeanRowMapper<T> mapper = resolveBeanRowMapper(querier);
+    if (mapper != null) {
+      return getExecutor().getBean(sql, mapper, timeout, scriptParameter);
+    }
     Map<String, Object> result = getExecutor().get(sql, timeout, scriptParameter);
     this.fetch(result, querier);
     return querier.handleResult(result);
 
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * If the query enables the {@link SqlNamedQuerier#PRO_KEY_PAGINATION_PARALLEL_COUNT} and the
+   * executor that returned by {@link #getCountExecutor()} is available, the count query is
+   * submitted to the executor before the limit query is executed, the two queries are executed
+   * on separate connections concurrently, and the count query is cancelled if the total can be
+   * derived from the size of the limit query results. If the query specifies the
+   * {@link SqlNamedQuerier#PRO_KEY_PAGINATION_TOTAL_CACHE_TTL}, the total is reused by the paging
+   * queries with the same criteria within the time to live, so the total may be stale.
+   */
   @Override
   protected <T> Paging<T> doPage(String queryName, Object parameter) throws SQLException {
     SqlNamedQuerier querier = getQuerierResolver().resolve(queryName, parameter);
@@ -147,22 +258,67 @@ public abstract class AbstractSqlNamedQueryService extends AbstractNamedQuerySer
     Duration timeout = querier.resolveTimeout();
     Map<String, String> properties = querier.getQuery().getProperties();
     String limitSql = getDialect().getLimitSql(sql, offset, limit, properties);
+    Duration totalTtl = querier.resolvePaginationTotalCacheTtl();
+    // the count SQL is derived from the SQL, so the SQL is used in the total cache key
+    String totalKey = totalTtl == null ? null
+        : String.join("\u0000", queryName, sql, Arrays.deepToString(scriptParameter));
+    Integer total = totalKey == null ? null : getCachedTotal(totalKey);
+    FutureTask<Integer> counting = null;
+    Executor executor;
+    if (total == null && querier.resolvePaginationParallelCount() && !isQueryWorker()
+        && (executor = asQueryWorkers(getCountExecutor())) != null) {
+      String totalSql = getDialect().getCountSql(sql, properties);
+      log("total-> " + queryName, scriptParameter, totalSql);
+      counting = new FutureTask<>(() -> getMapInteger(
+          getExecutor().get(totalSql, timeout, scriptParameter), Dialect.COUNT_FIELD_NAME));
+      try {
+        executor.execute(counting);
+      } catch (RejectedExecutionException e) {
+        counting = null;
+      }
+    }
     log(queryName, scriptParameter, sql, "Limit: " + limitSql);
-    List<Map<String, Object>> list = getExecutor().select(limitSql, timeout, scriptParameter);
+    SqlBeanRowMapper<T> mapper = resolveBeanRowMapper(querier);
+    List<?> list;
+    try {
+      list = mapper != null
+          ? getExecutor().selectBeans(limitSql, mapper, 0, timeout, scriptParameter)
+          : getExecutor().select(limitSql, timeout, scriptParameter);
+    } catch (SQLException | RuntimeException e) {
+      if (counting != null) {
+        counting.cancel(true);
+      }
+      throw e;
+    }
     Paging<T> result = Paging.of(offset, limit);
     int size = sizeOf(list);
     if (size > 0) {
       if (size < limit) {
+        if (counting != null) {
+          counting.cancel(true);
+        }
         result.withTotal(offset + size);
       } else {
-        String totalSql = getDialect().getCountSql(sql, properties);
-        log("total-> " + queryName, scriptParameter, totalSql);
-        result.withTotal(getMapInteger(getExecutor().get(totalSql, timeout, scriptParameter),
-            Dialect.COUNT_FIELD_NAME));
+        if (total == null) {
+          if (counting != null) {
+            total = awaitTotal(queryName, counting);
+          } else {
+            String totalSql = getDialect().getCountSql(sql, properties);
+            log("total-> " + queryName, scriptParameter, totalSql);
+            total = getMapInteger(getExecutor().get(totalSql, timeout, scriptParameter),
+                Dialect.COUNT_FIELD_NAME);
+          }
+          if (totalKey != null) {
+            putCachedTotal(totalKey, total, totalTtl);
+          }
+        }
+        result.withTotal(total);
       }
       this.fetch(list, querier);
+    } else if (counting != null) {
+      counting.cancel(true);
     }
-    return result.withResults(querier.handleResults(list));
+    return result.withResults(mapper != null ? forceCast(list) : querier.handleResults(list));
   }
 
   @Override
@@ -174,6 +330,13 @@ public abstract class AbstractSqlNamedQueryService extends AbstractNamedQuerySer
     Duration timeout = querier.resolveTimeout();
     // sql = getDialect().getLimitSql(sql, maxSelectSize + 1);
     log(queryName, scriptParameter, sql);
+    SqlBeanRowMapper<T> mapper = resolveBeanRowMapper(querier);
+    if (mapper != null) {
+      List<T> results =
+          getExecutor().selectBeans(sql, mapper, maxSelectSize + 1, timeout, scriptParameter);
+      querier.handleResultSize(results);
+      return results;
+    }
     List<Map<String, Object>> results =
         getExecutor().select(sql, maxSelectSize + 1, timeout, scriptParameter);
     if (querier.handleResultSize(results) > 0) {
@@ -182,6 +345,109 @@ public abstract class AbstractSqlNamedQueryService extends AbstractNamedQuerySer
     return querier.handleResults(results);
   }
 
+  protected Integer awaitTotal(String queryName, Future<Integer> counting) throws SQLException {
+    try {
+      return counting.get();
+    } catch (InterruptedException e) {
+      counting.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new QueryRuntimeException(e,
+          "The count query of query [%s] was interrupted!", queryName);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof SQLException) {
+        throw (SQLException) e.getCause();
+      }
+      throw new QueryRuntimeException(e.getCause(),
+          "An error occurred while executing the count query of query [%s]!", queryName);
+    }
+  }
+
+  protected Integer getCachedTotal(String key) {
+    CachedTotal cached = cachedTotals.get(key);
+    if (cached == null) {
+      return null;
+    }
+    if (cached.expiresAt - System.nanoTime() <= 0) {
+      cachedTotals.remove(key, cached);
+      return null;
+    }
+    return cached.total;
+  }
+
+  protected void putCachedTotal(String key, Integer total, Duration ttl) {
+    if (total == null || ttl.isZero() || ttl.isNegative()) {
+      return;
+    }
+    if (cachedTotals.size() >= MAX_CACHED_TOTALS) {
+      long now = System.nanoTime();
+      cachedTotals.values().removeIf(c -> c.expiresAt - now <= 0);
+      if (cachedTotals.size() >= MAX_CACHED_TOTALS) {
+        cachedTotals.clear();
+      }
+    }
+    cachedTotals.put(key, new CachedTotal(total, System.nanoTime() + ttl.toNanos()));
+  }
+
+  /**
+   * Returns the row mapper that maps the result set rows directly to the result class objects, or
+   * null if the rows should be mapped to maps and then converted by the query handler. The direct
+   * mapping is used only if the query enables the
+   * {@link SqlNamedQuerier#PRO_KEY_DIRECT_RESULT_MAPPING}, the result class is a bean class that
+   * supported by {@link SqlBeanRowMapper}, and the query has neither fetch queries nor hints since
+   * they work on the map rows.
+   *
+   * @param <T> the result type
+   * @param querier the resolved querier
+   */
+  protected <T> SqlBeanRowMapper<T> resolveBeanRowMapper(SqlNamedQuerier querier) {
+    Query query = querier.getQuery();
+    Class<?> resultClass = query.getResultClass();
+    if (resultClass == null || Map.class.isAssignableFrom(resultClass)
+        || isSimpleClass(resultClass) || isNotEmpty(query.getFetchQueries())
+        || isNotEmpty(query.getHints()) || !querier.resolveDirectResultMapping()
+        || getMapBoolean(querier.getQueryParameter().getContext(),
+            QueryParameter.CTX_QHH_DONT_CONVERT_RESULT, false)) {
+      return null;
+    }
+    return forceCast(SqlBeanRowMapper.of(resultClass));
+  }
+
+  protected Object[] resolveKeysetSeek(String queryName, List<KeysetColumn> columns,
+      Object seek) {
+    if (seek == null) {
+      return null;
+    }
+    Object[] keys;
+    if (seek instanceof Map) {
+      keys = columns.stream().map(column -> column.valueOf((Map<?, ?>) seek)).toArray();
+    } else if (seek instanceof Collection) {
+      keys = ((Collection<?>) seek).toArray();
+    } else if (seek instanceof Object[]) {
+      keys = (Object[]) seek;
+    } else {
+      keys = new Object[] {seek};
+    }
+    if (keys.length != columns.size() || Arrays.stream(keys).anyMatch(k -> k == null)) {
+      throw new QueryRuntimeException(
+          "The keyset seek values %s of query [%s] don't match the key columns %s.",
+          Arrays.toString(keys), queryName, columns);
+    }
+    return keys;
+  }
+
+  /**
+   * Returns the executor service used to execute the count query of the paging query concurrently,
+   * if returns null the count query is executed after the limit query. Default, returns the
+   * managed executor service named {@link QuerierConfig#getExecutorName()}. The count queries of
+   * the paging queries that are executed by the query workers are always executed after the limit
+   * queries.
+   *
+   * @see SqlNamedQuerier#PRO_KEY_PAGINATION_PARALLEL_COUNT
+   */
+  protected ExecutorService getCountExecutor() {
+    return getFetchExecutor();
+  }
+
   protected Dialect getDialect() {
     return getExecutor().getDialect();
   }
@@ -191,4 +457,19 @@ public abstract class AbstractSqlNamedQueryService extends AbstractNamedQuerySer
   @Override
   protected abstract AbstractNamedQuerierResolver<SqlNamedQuerier> getQuerierResolver();
 
+  /**
+   * corant-modules-query-sql
+   *
+   * @author bingo 下午2:41:09
+   *
+   */
+  protected static class CachedTotal {
+    final Integer total;
+    final long expiresAt;
+
+    protected CachedTotal(Integer total, long expiresAt) {
+      this.total = total;
+      this.expiresAt = expiresAt;
+    }
+  }
 }
@@ -74,7 +74,7 @@ public class DefaultSqlNamedQuerierResolver extends AbstractNamedQuerierResolver
       Query query = resolveQuery(name);
       builder = builders.computeIfAbsent(name, k -> createBuilder(query));
     }
-    return forceCast(builder.build(param));
+    return forceCast(buildQuerier(name, builder, param));
   }
 
   protected DynamicQuerierBuilder createBuilder(Query query) {
@@ -24,6 +24,7 @@ import java.util.stream.Stream;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
+import org.apache.commons.dbutils.ResultSetHandler;
 import org.apache.commons.dbutils.StatementConfiguration;
 import org.apache.commons.dbutils.handlers.MapHandler;
 import org.apache.commons.dbutils.handlers.MapListHandler;
@@ -86,6 +87,17 @@ public class DefaultSqlQueryExecutor implements SqlQueryExecutor {
     return forceCast(result);
   }
 
+  @Override
+  public <T> T getBean(String sql, SqlBeanRowMapper<T> mapper, Duration timeout, Object... args)
+      throws SQLException {
+    ResultSetHandler<T> handler = rs -> rs.next() ? mapper.toBean(rs) : null;
+    if (args.length > 0) {
+      return getRunner().select(sql, handler, 1, timeout, args);
+    } else {
+      return getRunner().select(sql, handler, 1, timeout);
+    }
+  }
+
   @Override
   public Dialect getDialect() {
     return dialect;
@@ -103,6 +115,17 @@ public class DefaultSqlQueryExecutor implements SqlQueryExecutor {
     return forceCast(result);
   }
 
+  @Override
+  public <T> List<T> selectBeans(String sql, SqlBeanRowMapper<T> mapper, int expectRows,
+      Duration timeout, Object... args) throws SQLException {
+    ResultSetHandler<List<T>> handler = mapper::toBeans;
+    if (args.length > 0) {
+      return getRunner().select(sql, handler, expectRows, timeout, args);
+    } else {
+      return getRunner().select(sql, handler, expectRows, timeout);
+    }
+  }
+
   @Override
   public Stream<Map<String, Object>> stream(String sql, BiPredicate<Integer, Object> terminater,
       Duration timeout, boolean autoClose, Object... args) {
@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.sql;
+
+import static org.corant.shared.util.Empties.isEmpty;
+import static org.corant.shared.util.Primitives.wrap;
+import java.beans.ConstructorProperties;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.corant.modules.datasource.shared.util.DbUtilBasicFieldProcessor;
+import org.corant.modules.datasource.shared.util.DbUtilBasicRowProcessor;
+import org.corant.modules.query.QueryRuntimeException;
+import org.corant.shared.util.Conversions;
+
+/**
+ * corant-modules-query-sql
+ *
+ * <p>
+ * Maps the JDBC result set rows directly to the result class objects without the intermediate map
+ * rows and the JSON object mapper conversion. The result class must be a public class with a
+ * public constructor annotated with {@link ConstructorProperties} or a public no-arguments
+ * constructor, the columns are bound to the constructor parameters first and then to the public
+ * setters. The column labels are matched with the property names exactly, then case-insensitively,
+ * then case-insensitively with the underscores removed, the unmatched columns are ignored. The
+ * column values that are not assignable to the property types are converted by
+ * {@link Conversions}.
+ *
+ * <p>
+ * The constructor and setters of a result class are resolved once, and the column to property
+ * plans are cached per distinct column labels and column types of the result sets.
+ *
+ * @author bingo 下午4:38:57
+ *
+ */
+public class SqlBeanRowMapper<T> {
+
+  static final int MAX_PLANS = 256;
+
+  static final ClassValue<SqlBeanRowMapper<?>> mappers = new ClassValue<>() {
+    @Override
+    protected SqlBeanRowMapper<?> computeValue(Class<?> type) {
+      return create(type);
+    }
+  };
+
+  protected final Class<T> resultClass;
+  protected final MethodHandle constructor;
+  protected final String[] parameterNames;
+  protected final Class<?>[] parameterTypes;
+  protected final Object[] defaults;
+  protected final Map<String, Setter> setters;
+  protected final Map<List<Object>, Plan> plans = new ConcurrentHashMap<>();
+
+  protected SqlBeanRowMapper(Class<T> resultClass, MethodHandle constructor,
+      String[] parameterNames, Class<?>[] parameterTypes, Map<String, Setter> setters) {
+    this.resultClass = resultClass;
+    this.constructor = constructor;
+    this.parameterNames = parameterNames;
+    this.parameterTypes = parameterTypes;
+    defaults = new Object[parameterTypes.length];
+    for (int i = 0; i < parameterTypes.length; i++) {
+      if (parameterTypes[i].isPrimitive()) {
+        defaults[i] = Array.get(Array.newInstance(parameterTypes[i], 1), 0);
+      }
+    }
+    this.setters = setters;
+  }
+
+  /**
+   * Returns the cached mapper of the given result class or null if the result class can't be
+   * mapped directly.
+   *
+   * @param <T> the result type
+   * @param resultClass the result class
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> SqlBeanRowMapper<T> of(Class<T> resultClass) {
+    return (SqlBeanRowMapper<T>) mappers.get(resultClass);
+  }
+
+  static SqlBeanRowMapper<?> create(Class<?> type) {
+    if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())
+        || type.isInterface() || type.isArray() || type.isPrimitive() || type.isEnum()) {
+      return null;
+    }
+    try {
+      Lookup lookup = MethodHandles.publicLookup();
+      Constructor<?> useConstructor = null;
+      String[] names = new String[0];
+      for (Constructor<?> ctor : type.getConstructors()) {
+        ConstructorProperties cp = ctor.getAnnotation(ConstructorProperties.class);
+        if (cp != null && cp.value().length == ctor.getParameterCount()) {
+          if (useConstructor == null || names.length < cp.value().length) {
+            useConstructor = ctor;
+            names = cp.value();
+          }
+        } else if (ctor.getParameterCount() == 0 && useConstructor == null) {
+          useConstructor = ctor;
+        }
+      }
+      if (useConstructor == null) {
+        return null;
+      }
+      Class<?>[] types = useConstructor.getParameterTypes();
+      MethodHandle constructor = lookup.unreflectConstructor(useConstructor)
+          .asSpreader(Object[].class, types.length)
+          .asType(MethodType.methodType(Object.class, Object[].class));
+      Map<String, Setter> setters = new HashMap<>();
+      for (PropertyDescriptor pd : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+        Method write = pd.getWriteMethod();
+        if (write != null && Modifier.isPublic(write.getDeclaringClass().getModifiers())) {
+          setters.put(pd.getName(), new Setter(lookup.unreflect(write)
+              .asType(MethodType.methodType(void.class, Object.class, Object.class)),
+              pd.getPropertyType()));
+        }
+      }
+      return new SqlBeanRowMapper<>(type, constructor, names, types, setters);
+    } catch (IntrospectionException | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  static String normalize(String name) {
+    return name.replace("_", "").toLowerCase(Locale.ENGLISH);
+  }
+
+  public Class<T> getResultClass() {
+    return resultClass;
+  }
+
+  /**
+   * Maps the current row of the given result set to the result object.
+   *
+   * @param rs the result set that positioned at a row
+   * @return the result object
+   * @throws SQLException if the result set can't be read
+   */
+  public T toBean(ResultSet rs) throws SQLException {
+    return toBean(rs, resolvePlan(rs));
+  }
+
+  /**
+   * Maps the remaining rows of the given result set to the result objects.
+   *
+   * @param rs the result set
+   * @return the result object list
+   * @throws SQLException if the result set can't be read
+   */
+  public List<T> toBeans(ResultSet rs) throws SQLException {
+    List<T> results = new ArrayList<>();
+    if (rs.next()) {
+      Plan plan = resolvePlan(rs);
+      do {
+        results.add(toBean(rs, plan));
+      } while (rs.next());
+    }
+    return results;
+  }
+
+  protected Object convert(Object value, Class<?> type) {
+    if (value == null || wrap(type).isInstance(value)) {
+      return value;
+    }
+    return Conversions.toObject(value, type);
+  }
+
+  protected Plan resolvePlan(ResultSet rs) throws SQLException {
+    ResultSetMetaData rsmd = rs.getMetaData();
+    int cols = rsmd.getColumnCount();
+    String[] labels = new String[cols];
+    Object[] keys = new Object[cols << 1];
+    for (int i = 1; i <= cols; i++) {
+      String label = rsmd.getColumnLabel(i);
+      labels[i - 1] = isEmpty(label) ? rsmd.getColumnName(i) : label;
+      keys[i - 1] = labels[i - 1];
+      keys[cols + i - 1] = rsmd.getColumnType(i);
+    }
+    // the field processors of the plan are resolved with the column types
+    List<Object> key = Arrays.asList(keys);
+    Plan plan = plans.get(key);
+    if (plan == null) {
+      plan = new Plan(this, rsmd, labels);
+      if (plans.size() >= MAX_PLANS) {
+        plans.clear();
+      }
+      plans.put(key, plan);
+    }
+    return plan;
+  }
+
+  @SuppressWarnings("unchecked")
+  protected T toBean(ResultSet rs, Plan plan) throws SQLException {
+    Object[] arguments = defaults.clone();
+    Object[] values = new Object[plan.columns.length];
+    for (int i = 0; i < plan.columns.length; i++) {
+      int column = plan.columns[i];
+      values[i] = plan.processors[i] != null ? plan.processors[i].convert(rs, column)
+          : rs.getObject(column);
+    }
+    try {
+      for (int i = 0; i < values.length; i++) {
+        if (plan.parameters[i] >= 0 && values[i] != null) {
+          arguments[plan.parameters[i]] = convert(values[i], parameterTypes[plan.parameters[i]]);
+        }
+      }
+      Object bean = constructor.invokeExact(arguments);
+      for (int i = 0; i < values.length; i++) {
+        Setter setter = plan.setters[i];
+        if (setter != null && (values[i] != null || !setter.type.isPrimitive())) {
+          setter.handle.invokeExact(bean, convert(values[i], setter.type));
+        }
+      }
+      return (T) bean;
+    } catch (SQLException | RuntimeException e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new QueryRuntimeException(e, "Can't map the result set row to %s.", resultClass);
+    }
+  }
+
+  /**
+   * corant-modules-query-sql
+   *
+   * <p>
+   * The column to constructor parameter or setter bindings of the result set with the given
+   * column labels and column types, the unmatched columns are excluded.
+   *
+   * @author bingo 下午4:38:57
+   *
+   */
+  protected static class Plan {
+    final int[] columns;
+    final int[] parameters;
+    final Setter[] setters;
+    final DbUtilBasicFieldProcessor[] processors;
+
+    Plan(SqlBeanRowMapper<?> mapper, ResultSetMetaData rsmd, String[] labels)
+        throws SQLException {
+      Map<String, Integer> parameterIndexes = new HashMap<>();
+      Map<String, Integer> lowerParameterIndexes = new HashMap<>();
+      Map<String, Integer> normalParameterIndexes = new HashMap<>();
+      for (int i = 0; i < mapper.parameterNames.length; i++) {
+        parameterIndexes.put(mapper.parameterNames[i], i);
+        lowerParameterIndexes.put(mapper.parameterNames[i].toLowerCase(Locale.ENGLISH), i);
+        normalParameterIndexes.put(normalize(mapper.parameterNames[i]), i);
+      }
+      Map<String, Setter> lowerSetters = new HashMap<>();
+      Map<String, Setter> normalSetters = new HashMap<>();
+      mapper.setters.forEach((k, v) -> {
+        lowerSetters.put(k.toLowerCase(Locale.ENGLISH), v);
+        normalSetters.put(normalize(k), v);
+      });
+      List<Integer> useColumns = new ArrayList<>();
+      List<Integer> useParameters = new ArrayList<>();
+      List<Setter> useSetters = new ArrayList<>();
+      List<DbUtilBasicFieldProcessor> useProcessors = new ArrayList<>();
+      for (int i = 0; i < labels.length; i++) {
+        String label = labels[i];
+        Integer parameter = parameterIndexes.get(label);
+        if (parameter == null) {
+          parameter = lowerParameterIndexes.get(label.toLowerCase(Locale.ENGLISH));
+        }
+        if (parameter == null) {
+          parameter = normalParameterIndexes.get(normalize(label));
+        }
+        Setter setter = null;
+        if (parameter == null) {
+          setter = mapper.setters.get(label);
+          if (setter == null) {
+            setter = lowerSetters.get(label.toLowerCase(Locale.ENGLISH));
+          }
+          if (setter == null) {
+            setter = normalSetters.get(normalize(label));
+          }
+          if (setter == null) {
+            continue;
+          }
+        }
+        int type = rsmd.getColumnType(i + 1);
+        DbUtilBasicFieldProcessor processor = null;
+        for (DbUtilBasicFieldProcessor fp : DbUtilBasicRowProcessor.FIELD_PROCESSORS) {
+          if (fp.supports(label, type)) {
+            processor = fp;
+            break;
+          }
+        }
+        useColumns.add(i + 1);
+        useParameters.add(parameter == null ? -1 : parameter);
+        useSetters.add(setter);
+        useProcessors.add(processor);
+      }
+      columns = useColumns.stream().mapToInt(Integer::intValue).toArray();
+      parameters = useParameters.stream().mapToInt(Integer::intValue).toArray();
+      setters = useSetters.toArray(new Setter[0]);
+      processors = useProcessors.toArray(new DbUtilBasicFieldProcessor[0]);
+    }
+  }
+
+  /**
+   * corant-modules-query-sql
+   *
+   * @author bingo 下午4:38:57
+   *
+   */
+  protected static class Setter {
+    final MethodHandle handle;
+    final Class<?> type;
+
+    Setter(MethodHandle handle, Class<?> type) {
+      this.handle = handle;
+      this.type = type;
+    }
+  }
+}
@@ -13,6 +13,7 @@
  */
 package org.corant.modules.query.sql;
 
+import java.time.Duration;
 import org.corant.modules.query.shared.dynamic.DynamicQuerier;
 
 /**
@@ -25,12 +26,42 @@ public interface SqlNamedQuerier extends DynamicQuerier<Object[], String> {
 
   String PRO_KEY_PAGINATION_PROCESS_PATTERN = ".pagination-process-pattern";
   String PRO_KEY_PAGINATION_COUNT_QUERY = ".pagination-count-query";
+  String PRO_KEY_PAGINATION_PARALLEL_COUNT = ".pagination-parallel-count";
+  String PRO_KEY_PAGINATION_TOTAL_CACHE_TTL = ".pagination-total-cache-ttl";
+  String PRO_KEY_DIRECT_RESULT_MAPPING = ".direct-result-mapping";
+
+  /**
+   * Returns whether to map the result set rows directly to the result class objects, default is
+   * false.
+   *
+   * @see SqlBeanRowMapper
+   */
+  default boolean resolveDirectResultMapping() {
+    return resolveProperty(PRO_KEY_DIRECT_RESULT_MAPPING, Boolean.class, Boolean.FALSE);
+  }
+
+  /**
+   * Returns whether to execute the count query of the paging query concurrently with the limit
+   * query, default is false.
+   */
+  default boolean resolvePaginationParallelCount() {
+    return resolveProperty(PRO_KEY_PAGINATION_PARALLEL_COUNT, Boolean.class, Boolean.FALSE);
+  }
 
   default PaginationProcessPattern resolvePaginationProcessPattern() {
     return resolveProperty(PRO_KEY_PAGINATION_PROCESS_PATTERN, PaginationProcessPattern.class,
         PaginationProcessPattern.DEFAULT);
   }
 
+  /**
+   * Returns the time to live of the cached total of the paging query, the total is reused by the
+   * paging queries with the same criteria within the time to live. Returns null if the total is
+   * not cached.
+   */
+  default Duration resolvePaginationTotalCacheTtl() {
+    return resolveProperty(PRO_KEY_PAGINATION_TOTAL_CACHE_TTL, Duration.class, null);
+  }
+
   enum PaginationProcessPattern {
     DEFAULT, SEPARATE, PARSABLE
   }
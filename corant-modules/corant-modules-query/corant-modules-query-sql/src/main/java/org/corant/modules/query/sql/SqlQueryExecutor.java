@@ -20,6 +20,7 @@ import java.util.Map;
 import java.util.function.BiPredicate;
 import java.util.stream.Stream;
 import org.corant.modules.query.sql.dialect.Dialect;
+import org.corant.shared.exception.NotSupportedException;
 
 /**
  * corant-modules-query-sql
@@ -31,6 +32,23 @@ public interface SqlQueryExecutor {
 
   Map<String, Object> get(String sql, Duration timeout, Object... args) throws SQLException;
 
+  /**
+   * Returns the first row of the query that mapped directly to the given result class object.
+   *
+   * @param <T> the result type
+   * @param sql the query statement
+   * @param mapper the row mapper
+   * @param timeout the query timeout
+   * @param args the query parameters
+   * @throws SQLException if the query fails
+   *
+   * @see SqlBeanRowMapper
+   */
+  default <T> T getBean(String sql, SqlBeanRowMapper<T> mapper, Duration timeout, Object... args)
+      throws SQLException {
+    throw new NotSupportedException();
+  }
+
   Dialect getDialect();
 
   default List<Map<String, Object>> select(String sql, Duration timeout, Object... args)
@@ -41,6 +59,24 @@ public interface SqlQueryExecutor {
   List<Map<String, Object>> select(String sql, int expectRows, Duration timeout, Object... args)
       throws SQLException;
 
+  /**
+   * Returns the rows of the query that mapped directly to the given result class objects.
+   *
+   * @param <T> the result type
+   * @param sql the query statement
+   * @param mapper the row mapper
+   * @param expectRows the maximum number of rows, 0 means no limit
+   * @param timeout the query timeout
+   * @param args the query parameters
+   * @throws SQLException if the query fails
+   *
+   * @see SqlBeanRowMapper
+   */
+  default <T> List<T> selectBeans(String sql, SqlBeanRowMapper<T> mapper, int expectRows,
+      Duration timeout, Object... args) throws SQLException {
+    throw new NotSupportedException();
+  }
+
   Stream<Map<String, Object>> stream(String sql, BiPredicate<Integer, Object> terminater,
       Duration timeout, boolean autoClose, Object... args);
 
@@ -84,4 +84,9 @@ public class SqlTemplateMethodModelEx extends AbstractTemplateMethodModelEx<Obje
     return parameters.toArray(new Object[parameters.size()]);
   }
 
+  @Override
+  public boolean isParameterized() {
+    return true;
+  }
+
 }
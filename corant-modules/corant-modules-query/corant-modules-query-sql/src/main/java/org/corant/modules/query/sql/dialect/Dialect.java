@@ -15,9 +15,12 @@ package org.corant.modules.query.sql.dialect;
 
 import static org.corant.shared.util.Lists.immutableListOf;
 import static org.corant.shared.util.Maps.getMapBoolean;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
 import org.corant.modules.datasource.shared.SqlStatements;
 import org.corant.modules.query.shared.dynamic.SqlHelper;
 
@@ -34,6 +37,7 @@ public interface Dialect {
   String COUNT_FIELD_NAME = "total_";
   String COUNT_TEMP_TABLE_NAME = "tmp_count_";
   String USE_DEFAULT_COUNT_SQL_HINT_KEY = "_use_default_count_sql";
+  String KEYSET_TABLE_NAME = "keyset_";
 
   String H2_JDBC_URL_PREFIX = "jdbc:h2";
   String HSQL_JDBC_URL_PREFIX = "jdbc:hsqldb";
@@ -110,6 +114,83 @@ public interface Dialect {
     return getLimitSql(sql, 0, limit, hints);
   }
 
+  /**
+   * Returns the parameters of the seek predicate that built by
+   * {@link #getKeysetSql(String, List, boolean, Map)}, the parameters should be appended to the
+   * parameters of the original SQL statement.
+   *
+   * @param columns the ordering key columns
+   * @param keys the key values of the last row of the previous batch, in the order of the columns
+   * @return the seek predicate parameters
+   */
+  default Object[] getKeysetParameters(List<KeysetColumn> columns, Object[] keys) {
+    int size = columns.size();
+    if (supportsRowValueComparison() && isUniformDirection(columns)) {
+      return Arrays.copyOf(keys, size);
+    }
+    List<Object> parameters = new ArrayList<>(size * (size + 3) / 2 + 1);
+    parameters.add(keys[0]);
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j <= i; j++) {
+        parameters.add(keys[j]);
+      }
+    }
+    return parameters.toArray();
+  }
+
+  /**
+   * Convert SQL statement to keyset (seek) pagination SQL, the original statement is wrapped as a
+   * derived table, if seeking, the rows after the last row of the previous batch are filtered by
+   * the key columns, and the rows are ordered by the key columns. The limitation of the returned
+   * SQL statement should be done by {@link #getLimitSql(String, int, Map)}.
+   *
+   * <p>
+   * If the dialect supports the row value comparison and all the key columns have the same
+   * direction, the seek predicate is {@code (a, b) > (?, ?)}, otherwise the predicate is expanded
+   * to {@code a >= ? AND (a > ? OR (a = ? AND b > ?))}, the leading range condition is used to
+   * help the optimizer use the index range scan.
+   *
+   * @param sql to convert SQL
+   * @param columns the ordering key columns
+   * @param seeking whether to append the seek predicate
+   * @param hints the hints use to improve the execution process
+   * @return Keyset SQL statement
+   */
+  default String getKeysetSql(String sql, List<KeysetColumn> columns, boolean seeking,
+      Map<String, ?> hints) {
+    StringBuilder keysetSql = new StringBuilder(sql.length() + 128)
+        .append("SELECT * FROM ( ").append(sql).append(" ) ").append(KEYSET_TABLE_NAME);
+    if (seeking) {
+      keysetSql.append(" WHERE ");
+      if (supportsRowValueComparison() && isUniformDirection(columns)) {
+        StringJoiner names = new StringJoiner(", ", "(", ")");
+        StringJoiner marks = new StringJoiner(", ", "(", ")");
+        for (KeysetColumn column : columns) {
+          names.add(column.getName());
+          marks.add("?");
+        }
+        keysetSql.append(names).append(columns.get(0).isDescending() ? " < " : " > ")
+            .append(marks);
+      } else {
+        KeysetColumn first = columns.get(0);
+        keysetSql.append(first.getName()).append(first.isDescending() ? " <= ?" : " >= ?")
+            .append(" AND (");
+        for (int i = 0; i < columns.size(); i++) {
+          keysetSql.append(i == 0 ? "(" : " OR (");
+          for (int j = 0; j < i; j++) {
+            keysetSql.append(columns.get(j).getName()).append(" = ? AND ");
+          }
+          KeysetColumn column = columns.get(i);
+          keysetSql.append(column.getName()).append(column.isDescending() ? " < ?)" : " > ?)");
+        }
+        keysetSql.append(')');
+      }
+    }
+    StringJoiner orders = new StringJoiner(", ", " ORDER BY ", "");
+    columns.forEach(column -> orders.add(column.toString()));
+    return keysetSql.append(orders).toString();
+  }
+
   default String getNonOrderByPart(String sql) {
     return SqlHelper.removeOrderBy(sql);
   }
@@ -121,6 +202,20 @@ public interface Dialect {
    */
   boolean supportsLimit();
 
+  /**
+   * Return whether the underling data base supports the row value comparison, e.g.
+   * {@code (a, b) > (?, ?)}, which is used in the keyset pagination seek predicate.
+   *
+   * @return supportsRowValueComparison
+   */
+  default boolean supportsRowValueComparison() {
+    return false;
+  }
+
+  private boolean isUniformDirection(List<KeysetColumn> columns) {
+    return columns.stream().allMatch(c -> c.isDescending() == columns.get(0).isDescending());
+  }
+
   /**
    * corant-modules-query-sql
    *
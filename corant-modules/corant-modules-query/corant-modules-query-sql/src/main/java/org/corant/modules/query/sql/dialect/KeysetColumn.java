@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2013-2018, Bingo.Chen (finesoft@gmail.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.corant.modules.query.sql.dialect;
+
+import static org.corant.shared.util.Strings.isBlank;
+import static org.corant.shared.util.Strings.split;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.corant.modules.query.QueryRuntimeException;
+
+/**
+ * corant-modules-query-sql
+ *
+ * <p>
+ * The ordering key column of the keyset (seek) pagination, the column name is the label of the
+ * column in the query result set, the combination of all the key columns must be unique and non
+ * null, otherwise rows may be skipped or repeated between batches.
+ *
+ * @author bingo 下午3:18:42
+ *
+ */
+public class KeysetColumn {
+
+  protected final String name;
+  protected final boolean descending;
+
+  public KeysetColumn(String name, boolean descending) {
+    this.name = name;
+    this.descending = descending;
+  }
+
+  /**
+   * Parse the comma separated key columns, each item consists of the column label and an optional
+   * ASC or DESC direction, e.g. {@code "created_time desc, id desc"}.
+   *
+   * @param columns the key columns expression
+   * @return the key columns, empty if the given expression is blank
+   */
+  public static List<KeysetColumn> parse(String columns) {
+    if (isBlank(columns)) {
+      return Collections.emptyList();
+    }
+    List<KeysetColumn> keys = new ArrayList<>();
+    for (String item : split(columns, ",", true, true)) {
+      String[] parts = split(item, " ", true, true);
+      if (parts.length == 1) {
+        keys.add(new KeysetColumn(parts[0], false));
+      } else if (parts.length == 2 && ("asc".equalsIgnoreCase(parts[1])
+          || "desc".equalsIgnoreCase(parts[1]))) {
+        keys.add(new KeysetColumn(parts[0], "desc".equalsIgnoreCase(parts[1])));
+      } else {
+        throw new QueryRuntimeException("Can't parse the keyset column [%s].", item);
+      }
+    }
+    return Collections.unmodifiableList(keys);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  /**
+   * Returns the value of this column in the given row, if the row doesn't contain the column label
+   * as is, the label is matched case-insensitively since some databases upper case the labels.
+   *
+   * @param row the result row
+   * @return the column value
+   */
+  public Object valueOf(Map<?, ?> row) {
+    if (row.containsKey(name)) {
+      return row.get(name);
+    }
+    for (Map.Entry<?, ?> entry : row.entrySet()) {
+      if (entry.getKey() instanceof String && name.equalsIgnoreCase((String) entry.getKey())) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return name + (descending ? " DESC" : " ASC");
+  }
+}
@@ -111,4 +111,9 @@ public class MySQLDialect implements Dialect {
     return true;
   }
 
+  @Override
+  public boolean supportsRowValueComparison() {
+    return true;
+  }
+
 }
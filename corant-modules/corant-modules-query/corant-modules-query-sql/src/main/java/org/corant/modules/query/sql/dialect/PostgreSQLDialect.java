@@ -61,4 +61,9 @@ public class PostgreSQLDialect implements Dialect {
   public boolean supportsLimit() {
     return true;
   }
+
+  @Override
+  public boolean supportsRowValueComparison() {
+    return true;
+  }
 }
@@ -134,6 +134,7 @@ public class ConverterRegistry {
   public static synchronized <S, T> void register(Converter<S, T> converter) {
     Class[] types = resolveTypes(converter);
     register(types[0], types[1], converter);
+    Converters.invalidateLookupCache();
   }
 
   /**
@@ -147,6 +148,7 @@ public class ConverterRegistry {
     if (converterFactory != null && !CONVERTER_FACTORIES.contains(converterFactory)) {
       CONVERTER_FACTORIES.add(converterFactory);
       CONVERTER_FACTORIES.sort(Sortable::compare);
+      Converters.invalidateLookupCache();
     }
   }
 
@@ -186,11 +188,13 @@ public class ConverterRegistry {
     SUPPORT_CONVERTER_PIPE_TYPES.clear();
     NOT_SUPPORT_TYPES.clear();
     load();
+    Converters.invalidateLookupCache();
   }
 
   static synchronized void deregister(ConverterType<?, ?> converterType) {
     if (SUPPORT_CONVERTERS.remove(converterType) != null) {
       removeConverterPipeTypes(converterType); // FIXME consider other ways
+      Converters.invalidateLookupCache();
     }
   }
 
@@ -14,10 +14,11 @@
 package org.corant.shared.conversion;
 
 import static org.corant.shared.util.Functions.optional;
-import static org.corant.shared.util.Objects.forceCast;
 import static org.corant.shared.util.Streams.streamOf;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.corant.shared.conversion.converter.IdentityConverter;
 import org.corant.shared.ubiquity.Sortable;
 import org.corant.shared.ubiquity.Tuple.Pair;
@@ -34,19 +35,65 @@ import org.corant.shared.ubiquity.Tuple.Pair;
  * of converter factory supported.
  * </pre>
  *
+ * <p>
+ * The lookup results, including the unsupported results, are cached by source class and target
+ * class, the cache is invalidated when the converters or the converter factories are registered or
+ * deregistered.
+ *
  * @author bingo 下午2:12:57
  */
 @SuppressWarnings({"unchecked", "rawtypes"})
 public class Converters {
 
+  static final Object NOT_SUPPORTED = new Object();
+
+  static volatile ClassValue<Map<Class<?>, Object>> lookupCache = createLookupCache();
+
   public static <S, T> Optional<Converter<S, T>> lookup(Class<S> sourceClass,
       Class<T> targetClass) {
+    return optional(resolve(sourceClass, targetClass));
+  }
+
+  /**
+   * Returns the converter that can convert the given source class object to the given target class
+   * object or null if not found, unlike {@link #lookup(Class, Class)} the result is not wrapped.
+   *
+   * @param <S> the source type
+   * @param <T> the target type
+   * @param sourceClass the source class
+   * @param targetClass the target class
+   * @return the converter or null if not found
+   */
+  public static <S, T> Converter<S, T> resolve(Class<S> sourceClass, Class<T> targetClass) {
+    final Map<Class<?>, Object> cached = lookupCache.get(sourceClass);
+    Object converter = cached.get(targetClass);
+    if (converter == null) {
+      converter = resolveUncached(sourceClass, targetClass);
+      cached.put(targetClass, converter == null ? NOT_SUPPORTED : converter);
+    }
+    return converter == NOT_SUPPORTED ? null : (Converter<S, T>) converter;
+  }
+
+  static ClassValue<Map<Class<?>, Object>> createLookupCache() {
+    return new ClassValue<>() {
+      @Override
+      protected Map<Class<?>, Object> computeValue(Class<?> type) {
+        return new ConcurrentHashMap<>();
+      }
+    };
+  }
+
+  static void invalidateLookupCache() {
+    lookupCache = createLookupCache();
+  }
+
+  static Converter resolveUncached(Class<?> sourceClass, Class<?> targetClass) {
     if (targetClass.isAssignableFrom(sourceClass)) {
-      return optional((Converter<S, T>) IdentityConverter.INSTANCE);
+      return IdentityConverter.INSTANCE;
     } else if (ConverterRegistry.isSupportType(sourceClass, targetClass)) {
-      return optional(forceCast(ConverterRegistry.getConverter(sourceClass, targetClass)));
+      return ConverterRegistry.getConverter(sourceClass, targetClass);
     } else if (ConverterRegistry.isNotSupportType(sourceClass, targetClass)) {
-      return optional(null);
+      return null;
     } else {
       // find from registered converters
       Converter converter = getMatchedConverter(sourceClass, targetClass);
@@ -71,12 +118,10 @@ public class Converters {
       } else {
         ConverterRegistry.register(sourceClass, targetClass, converter);
       }
-      if (converter != null) {
-        return optional(forceCast(converter));
-      } else {
+      if (converter == null) {
         ConverterRegistry.registerNotSupportType(sourceClass, targetClass);
-        return optional(null);
       }
+      return converter;
     }
   }
 
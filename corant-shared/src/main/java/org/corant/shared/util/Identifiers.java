@@ -101,6 +101,8 @@ public class Identifiers {
     protected volatile long lastTimestamp = -1L;
     protected volatile long localLastTimestamp = -1L;
     protected final AtomicLong sequence = new AtomicLong(0L);
+    // the last timestamp (relative to epoch) and the last sequence used without delayed timing
+    protected final AtomicLong lastState = new AtomicLong(-1L);
 
     /**
      * Construct a generator without delay
@@ -229,6 +231,34 @@ public class Identifiers {
       }
     }
 
+    /**
+     * Generate the given number of identifiers in one step, without delayed timing the sequences are
+     * reserved in contiguous ranges, so the identifiers of the returned array are ascending.
+     *
+     * @param timeGener the time supplier
+     * @param size the number of identifiers to generate
+     * @return the generated identifiers
+     */
+    public long[] generate(Supplier<?> timeGener, int size) {
+      if (size < 0) {
+        throw new IllegalArgumentException("The size can't less than zero");
+      }
+      long[] ids = new long[size];
+      if (delayedTimingMs > 0) {
+        synchronized (this) {
+          for (int i = 0; i < size; i++) {
+            ids[i] = doGenerateWithCache(timeGener);
+          }
+        }
+      } else {
+        int i = 0;
+        while (i < size) {
+          i += reserve(timeGener, ids, i, size - i);
+        }
+      }
+      return ids;
+    }
+
     /**
      * Returns the expiration time of the generator, we use time increment as the prefix, and return
      * an unsigned long integer (64 bits), so there is a time point of failure.
@@ -339,19 +369,10 @@ public class Identifiers {
       return nextId(lastTimestamp, cursor);
     }
 
-    protected synchronized Long doGenerateWithoutCache(Supplier<?> timeGener) {
-      long timestamp = Identifiers.tills(timeGener, lastTimestamp, true);
-      if (lastTimestamp == timestamp) {
-        int currentSeq = Identifiers.handleSequence(sequence, sequenceMask, true);
-        if (currentSeq == 0) {
-          timestamp = Identifiers.tills(timeGener, lastTimestamp, false);
-        }
-      } else {
-        sequence.set(0L);
-      }
-      lastTimestamp = timestamp;
-      localLastTimestamp = System.currentTimeMillis();
-      return nextId(timestamp, sequence.get());
+    protected Long doGenerateWithoutCache(Supplier<?> timeGener) {
+      long[] ids = new long[1];
+      reserve(timeGener, ids, 0, 1);
+      return ids[0];
     }
 
     protected long nextId(long timestamp, long seq) {
@@ -362,6 +383,48 @@ public class Identifiers {
       return next | seq;
     }
 
+    /**
+     * Reserve a contiguous range of sequences of a timestamp and fill the identifiers into the given
+     * array, the last timestamp and the last sequence are packed into one atomic long and updated by
+     * CAS. If the sequences of the last timestamp are exhausted, it spins until the time advances;
+     * if the time goes backwards, the last timestamp is reused until its sequences are exhausted.
+     *
+     * @param timeGener the time supplier
+     * @param ids the identifiers array to fill
+     * @param offset the start index of the array
+     * @param size the expected number of identifiers
+     * @return the number of the filled identifiers, at least 1 and at most size
+     */
+    protected int reserve(Supplier<?> timeGener, long[] ids, int offset, int size) {
+      while (true) {
+        final long last = lastState.get();
+        final long lastTime = last < 0 ? -1L : (last >>> sequenceBits) + epoch;
+        long timestamp = toLong(timeGener.get());
+        long firstSeq;
+        long count;
+        if (timestamp > lastTime) {
+          firstSeq = 0;
+          count = Math.min(size, sequenceMask + 1);
+        } else {
+          long lastSeq = last & sequenceMask;
+          if (lastSeq == sequenceMask) {
+            Thread.onSpinWait();
+            continue;
+          }
+          timestamp = lastTime;
+          firstSeq = lastSeq + 1;
+          count = Math.min(size, sequenceMask - lastSeq);
+        }
+        long next = timestamp - epoch << sequenceBits | firstSeq + count - 1;
+        if (lastState.compareAndSet(last, next)) {
+          for (int i = 0; i < count; i++) {
+            ids[offset + i] = nextId(timestamp, firstSeq + i);
+          }
+          return (int) count;
+        }
+      }
+    }
+
     private void resetSequenceIfNecessary() {
       if (delayedTimingMs > 0 && localLastTimestamp != -1
           && System.currentTimeMillis() - localLastTimestamp > delayedTimingMs) {
@@ -526,5 +526,13 @@ public class Streams {
       throw new IllegalStateException();
     }
 
+    protected int getBatchSize() {
+      return batchSize;
+    }
+
+    protected Consumer<Long> getHandler() {
+      return handler;
+    }
+
   }
 }
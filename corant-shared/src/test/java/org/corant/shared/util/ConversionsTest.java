@@ -56,6 +56,7 @@ import java.util.Set;
 import java.util.TimeZone;
 import java.util.regex.Pattern;
 import org.corant.shared.conversion.ConverterHints;
+import org.corant.shared.conversion.Converters;
 import org.corant.shared.conversion.converter.AbstractTemporalConverter;
 import org.corant.shared.conversion.converter.AbstractTemporalConverter.TemporalFormatter;
 import org.corant.shared.conversion.converter.StringDateConverter;
@@ -76,6 +77,17 @@ import junit.framework.TestCase;
  */
 public class ConversionsTest extends TestCase {
 
+  @Test
+  public void testConverterLookup() {
+    assertSame(Converters.resolve(String.class, Integer.class),
+        Converters.resolve(String.class, Integer.class));
+    assertSame(Converters.resolve(Integer.class, Number.class),
+        Converters.lookup(Integer.class, Number.class).orElse(null));
+    assertNull(Converters.resolve(Pattern.class, Currency.class));
+    assertNull(Converters.resolve(Pattern.class, Currency.class));
+    assertEquals(toInteger("12"), Integer.valueOf(12));
+  }
+
   @Test
   public void testDateInstant() {
     Date date = new Date();
@@ -96,4 +96,20 @@ public class IdentifiersTest extends TestCase {
     System.out.println("Completed: " + set.size());
 
   }
+
+  @Test
+  public void testBatch() {
+    GeneralSnowflakeUUIDGenerator generator = new GeneralSnowflakeUUIDGenerator(ChronoUnit.MILLIS,
+        listOf(Pair.of(10L, 3L)), 12L);
+    long first = generator.generate(System::currentTimeMillis);
+    long[] ids = generator.generate(System::currentTimeMillis, 10000);
+    assertEquals(ids.length, 10000);
+    long last = first;
+    for (long id : ids) {
+      assertTrue(id > last);
+      assertEquals(generator.parseGeneratedWorkersId(id), 3L);
+      last = id;
+    }
+    assertTrue(generator.generate(System::currentTimeMillis) > last);
+  }
 }